@@ -1,12 +1,15 @@
 """
 Hybrid Recommender: time-aware collaborative filtering + matrix factorization
 """
+import logging
 import math
 import random
 import numpy as np
 import pandas as pd
 from collections import defaultdict
 
+log = logging.getLogger(__name__)
+
 # --------------- helpers ---------------
 
 def _time_weight(ts_series, half_life_days=90):
@@ -74,14 +77,12 @@ class MatrixFactorization:
     def predict(self, u, item_list):
         if u not in self.u_map:
             return {it: 0.0 for it in item_list}
-        ui = self.u_map[u]
-        pu = self.user_factors[ui]
+        pu = self.user_factors[self.u_map[u]]
+        all_scores = self.item_factors @ pu   # one matrix-vector product for every item
         scores = {}
         for it in item_list:
-            if it in self.i_map:
-                scores[it] = float(pu @ self.item_factors[self.i_map[it]])
-            else:
-                scores[it] = 0.0
+            ii = self.i_map.get(it)
+            scores[it] = float(all_scores[ii]) if ii is not None else 0.0
         return scores
 
 # --------------- Hybrid Recommender ---------------
@@ -234,35 +235,91 @@ import threading
 
 _recommender = None
 _recommender_ts = 0
+_failed_ts = 0
+_failures = 0
 _lock = threading.Lock()
 _TTL = 600  # rebuild every 10 minutes
+_RETRY_MIN = 30  # first retry after a failed rebuild; doubles per failure up to _TTL
+
+def _retry_after():
+    """Seconds to wait after the last failed rebuild before trying again."""
+    return min(_RETRY_MIN * 2 ** max(_failures - 1, 0), _TTL)
 
 def get_cached_recommender():
-    """Return a cached recommender; rebuild only if TTL expired or first call."""
-    global _recommender, _recommender_ts
+    """Return a cached recommender; rebuild only if TTL expired or first call.
+
+    Only one thread rebuilds. Once a model exists, other callers keep getting the stale
+    one during the rebuild instead of queueing on the lock; only the very first build
+    (or one after invalidate_cache) makes them wait. After a failed rebuild the stale
+    model is served without retrying for _retry_after() seconds.
+    """
+    global _recommender, _recommender_ts, _failed_ts, _failures
     now = _time.time()
     if _recommender is not None and (now - _recommender_ts) < _TTL:
         return _recommender
-    with _lock:
+    stale = _recommender
+    if stale is not None:
+        if _failures and now - _failed_ts < _retry_after():
+            return stale
+        if not _lock.acquire(blocking=False):
+            return stale
+    else:
+        _lock.acquire()
+    try:
         # double-check inside lock
         if _recommender is not None and (_time.time() - _recommender_ts) < _TTL:
             return _recommender
-        from .db import get_engine
-        engine = get_engine()
+        try:
+            recommender = _rebuild()
+            _failures = 0
+            return recommender
+        except Exception:
+            _failed_ts = _time.time()
+            _failures += 1
+            if stale is None:
+                raise
+            log.exception('Recommender rebuild failed (%d in a row); serving the previous model, '
+                          'next attempt in %ds', _failures, _retry_after())
+            return stale
+    finally:
+        _lock.release()
+
+def _rebuild():
+    """Build a new recommender and publish it; the caller holds _lock."""
+    global _recommender, _recommender_ts
+    from .db import get_engine
+    from .config import SNAPSHOT_DIR, SNAPSHOT_MAX_AGE
+    from .snapshot import read_interactions
+    engine = get_engine()
+    try:
+        df = read_interactions(SNAPSHOT_DIR, SNAPSHOT_MAX_AGE)
+    except (OSError, ValueError, KeyError):
+        df = None
+    if df is not None:
+        # Interactions from the backend's snapshot; only the small courses table over SQL.
+        courses = pd.read_sql('SELECT course_index, name, type, type_id FROM courses', engine)
+        df = df.merge(courses, on='course_index', how='inner')
+    else:
         df = pd.read_sql(
             'SELECT i.stu_id, i.time, i.course_index, c.name, c.type, c.type_id '
             'FROM interactions i JOIN courses c ON i.course_index = c.course_index',
             engine
         )
-        if df.empty:
-            df = pd.read_sql('SELECT stu_id, time, course_index FROM interactions', engine)
-        _recommender = HybridRecommender(df)
-        _recommender_ts = _time.time()
-        return _recommender
+    if df.empty:
+        df = pd.read_sql('SELECT stu_id, time, course_index FROM interactions', engine)
+    _recommender = HybridRecommender(df)
+    _recommender_ts = _time.time()
+    try:
+        from .snapshot import write_factors
+        write_factors(SNAPSHOT_DIR, _recommender.mf)
+    except OSError:
+        log.exception('Could not write the MF factors to %s', SNAPSHOT_DIR)
+    return _recommender
 
 def invalidate_cache():
     """Force rebuild on next request."""
-    global _recommender, _recommender_ts
+    global _recommender, _recommender_ts, _failures
     with _lock:
         _recommender = None
         _recommender_ts = 0
+        _failures = 0
@@ -6,3 +6,15 @@ DB_CONFIG = {
     'database': 'grad_project',
     'charset': 'utf8mb4',
 }
+
+import os
+
+# Columnar interactions snapshot maintained by backend-springboot (InteractionSnapshot.java).
+SNAPSHOT_DIR = os.environ.get(
+    'INTERACTION_SNAPSHOT_DIR',
+    os.path.join(os.path.dirname(os.path.abspath(__file__)), '..', '..', 'data', 'snapshot'),
+)
+
+# Older than this (seconds since the backend's last refresh) and the snapshot is ignored in
+# favour of SQL; the backend refreshes every 30s by default.
+SNAPSHOT_MAX_AGE = float(os.environ.get('INTERACTION_SNAPSHOT_MAX_AGE', '300'))
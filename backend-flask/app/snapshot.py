@@ -0,0 +1,99 @@
+"""
+Files shared with backend-springboot: the columnar interactions snapshot it writes
+(see InteractionSnapshot.java for the layout) and the MF factors written back for it.
+"""
+import logging
+import os
+import time
+import numpy as np
+import pandas as pd
+
+log = logging.getLogger(__name__)
+
+
+def _read_meta(path):
+    meta = {}
+    with open(path, encoding='utf-8') as f:
+        for line in f:
+            line = line.strip()
+            if line and not line.startswith('#') and '=' in line:
+                key, value = line.split('=', 1)
+                meta[key] = value
+    return meta
+
+
+def _read_column(path, dtype, rows):
+    values = np.fromfile(path, dtype=dtype, count=rows)
+    if len(values) < rows:
+        raise ValueError('%s is shorter than recorded' % path)
+    return values
+
+
+def read_interactions(directory, max_age=None):
+    """
+    DataFrame of stu_id, time, course_index from the snapshot, or None if there is none or
+    it was last refreshed more than max_age seconds ago (the caller then reads SQL).
+    """
+    meta_path = os.path.join(directory, 'snapshot.meta')
+    if not os.path.exists(meta_path):
+        return None
+    meta = _read_meta(meta_path)
+    if meta.get('version') != '1':
+        return None
+    if max_age is not None:
+        refreshed = int(meta.get('refreshedAt', 0)) / 1000.0
+        age = time.time() - refreshed
+        if age > max_age:
+            log.warning('interaction snapshot in %s is %.0fs old (limit %.0fs); reading SQL instead',
+                        directory, age, max_age)
+            return None
+    rows = int(meta['rows'])
+    if rows == 0:
+        return None
+    n_students = int(meta['students'])
+    n_courses = int(meta['courses'])
+
+    # Only the counted prefix is valid. The columns are read rather than memory-mapped, so
+    # the backend cutting a crashed tail off a file cannot fault pages under us.
+    stu = _read_column(os.path.join(directory, 'stu.i32'), '<i4', rows)
+    course = _read_column(os.path.join(directory, 'course.i32'), '<i4', rows)
+    ts = _read_column(os.path.join(directory, 'time.i64'), '<i8', rows)
+
+    with open(os.path.join(directory, 'students.dict'), encoding='utf-8') as f:
+        stu_ids = np.array(f.read().split('\n')[:n_students], dtype=object)
+    course_index = np.fromfile(os.path.join(directory, 'courses.i32'), dtype='<i4', count=n_courses)
+
+    return pd.DataFrame({
+        'stu_id': stu_ids[stu],
+        # wall-clock seconds, so the naive timestamps match the DATETIME values
+        'time': pd.to_datetime(ts, unit='s'),
+        'course_index': course_index[course].astype(np.int64),
+    })
+
+
+def write_factors(directory, mf):
+    """
+    Export the MF factors next to the snapshot for backend-springboot's retrieval index
+    (CourseFactorIndex.java). Data files are replaced first and mf.meta last, so a reader
+    that sees the same model id before and after loading has a consistent set.
+    """
+    if mf.item_factors is None:
+        return
+    os.makedirs(directory, exist_ok=True)
+    items = sorted(mf.i_map, key=mf.i_map.get)
+    users = sorted(mf.u_map, key=mf.u_map.get)
+    model = int(time.time() * 1000)
+
+    def replace(name, data):
+        tmp = os.path.join(directory, name + '.tmp')
+        with open(tmp, 'wb') as f:
+            f.write(data)
+        os.replace(tmp, os.path.join(directory, name))
+
+    replace('mf_items.i32', np.asarray(items, dtype='<i4').tobytes())
+    replace('mf_items.f32', np.ascontiguousarray(mf.item_factors, dtype='<f4').tobytes())
+    replace('mf_users.dict', ''.join('%s\n' % u for u in users).encode('utf-8'))
+    replace('mf_users.f32', np.ascontiguousarray(mf.user_factors, dtype='<f4').tobytes())
+    meta = 'version=1\nmodel=%d\nfactors=%d\nitems=%d\nusers=%d\n' % (
+        model, mf.n_factors, len(items), len(users))
+    replace('mf.meta', meta.encode('utf-8'))
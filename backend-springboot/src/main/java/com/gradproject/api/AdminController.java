@@ -1,18 +1,88 @@
 package com.gradproject.api;
 
+import java.nio.file.NoSuchFileException;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+import com.gradproject.config.AdmissionControl;
+import com.gradproject.config.BulkheadRegistry;
+import com.gradproject.config.ReplicaRoutingDataSource;
+import com.gradproject.config.SingleFlightRegistry;
+import com.gradproject.metrics.QueryPlanChecker;
+import com.gradproject.metrics.SqlStats;
+import com.gradproject.model.BulkRecommendationRequest;
+import com.gradproject.model.PurgeRequest;
 import com.gradproject.service.AdminService;
+import com.gradproject.service.BulkRecommendationService;
+import com.gradproject.service.CacheStatsService;
+import com.gradproject.service.CourseFactorIndex;
+import com.gradproject.service.DatasetImportService;
+import com.gradproject.service.ExportService;
+import com.gradproject.service.InteractionSnapshot;
+import com.gradproject.service.SimilarCourseIndex;
+import com.gradproject.service.StudentIdDictionary;
+import com.gradproject.service.UserPurgeService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
     private final AdminService adminService;
+    private final CacheStatsService cacheStatsService;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
+    private final ObjectProvider<BulkheadRegistry> bulkheads;
+    private final ObjectProvider<AdmissionControl> admissionControl;
+    private final SingleFlightRegistry singleFlights;
+    private final SqlStats sqlStats;
+    private final QueryPlanChecker queryPlanChecker;
+    private final UserPurgeService userPurgeService;
+    private final DatasetImportService datasetImportService;
+    private final InteractionSnapshot interactionSnapshot;
+    private final StudentIdDictionary studentIdDictionary;
+    private final SimilarCourseIndex similarCourseIndex;
+    private final CourseFactorIndex courseFactorIndex;
+    private final BulkRecommendationService bulkRecommendationService;
+    private final ExportService exportService;
 
-    public AdminController(AdminService adminService) {
+    public AdminController(
+        AdminService adminService,
+        CacheStatsService cacheStatsService,
+        ObjectProvider<ReplicaRoutingDataSource> replicaRouting,
+        ObjectProvider<BulkheadRegistry> bulkheads,
+        ObjectProvider<AdmissionControl> admissionControl,
+        SingleFlightRegistry singleFlights,
+        SqlStats sqlStats,
+        QueryPlanChecker queryPlanChecker,
+        UserPurgeService userPurgeService,
+        DatasetImportService datasetImportService,
+        InteractionSnapshot interactionSnapshot,
+        StudentIdDictionary studentIdDictionary,
+        SimilarCourseIndex similarCourseIndex,
+        CourseFactorIndex courseFactorIndex,
+        BulkRecommendationService bulkRecommendationService,
+        ExportService exportService
+    ) {
         this.adminService = adminService;
+        this.cacheStatsService = cacheStatsService;
+        this.replicaRouting = replicaRouting;
+        this.bulkheads = bulkheads;
+        this.admissionControl = admissionControl;
+        this.singleFlights = singleFlights;
+        this.sqlStats = sqlStats;
+        this.queryPlanChecker = queryPlanChecker;
+        this.userPurgeService = userPurgeService;
+        this.datasetImportService = datasetImportService;
+        this.interactionSnapshot = interactionSnapshot;
+        this.studentIdDictionary = studentIdDictionary;
+        this.similarCourseIndex = similarCourseIndex;
+        this.courseFactorIndex = courseFactorIndex;
+        this.bulkRecommendationService = bulkRecommendationService;
+        this.exportService = exportService;
     }
 
     // ==================== 管理员登录 ====================
@@ -45,10 +115,52 @@ public class AdminController {
         return ResponseEntity.ok(Map.of("status", "ok"));
     }
 
+    /** Deletion runs as a background purge job; poll GET /purge-jobs/{jobId}. */
     @DeleteMapping("/users/{id}")
     public ResponseEntity<?> deleteUser(@PathVariable("id") long id) {
-        adminService.deleteUser(id);
-        return ResponseEntity.ok(Map.of("status", "ok"));
+        try {
+            return userPurgeService.purgeUser(id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.accepted().body(job))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "user_not_found")));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body(Map.of("error", "purge_queue_full"));
+        }
+    }
+
+    // ==================== 用户清理任务 ====================
+
+    /** Purge accounts inactive for body.inactiveDays; dryRun only reports the matches. */
+    @PostMapping("/purge-jobs")
+    public ResponseEntity<?> purgeInactiveUsers(@RequestBody PurgeRequest request) {
+        try {
+            Map<String, Object> result = userPurgeService.purgeInactive(
+                request.getInactiveDays(), request.getLimit(), request.isDryRun());
+            return request.isDryRun() ? ResponseEntity.ok(result) : ResponseEntity.accepted().body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_inactive_days",
+                "minInactiveDays", userPurgeService.getMinInactiveDays()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body(Map.of("error", "purge_queue_full"));
+        }
+    }
+
+    @GetMapping("/purge-jobs")
+    public ResponseEntity<?> listPurgeJobs() {
+        return ResponseEntity.ok(userPurgeService.listJobs());
+    }
+
+    @GetMapping("/purge-jobs/{jobId}")
+    public ResponseEntity<?> purgeJob(@PathVariable("jobId") String jobId) {
+        return userPurgeService.getJob(jobId)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "job_not_found")));
+    }
+
+    @DeleteMapping("/purge-jobs/{jobId}")
+    public ResponseEntity<?> cancelPurgeJob(@PathVariable("jobId") String jobId) {
+        return userPurgeService.cancel(jobId)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "job_not_found")));
     }
 
     // ==================== 题库管理 ====================
@@ -153,4 +265,165 @@ public class AdminController {
         adminService.updateCourseUrl(courseIndex, body.get("url"));
         return ResponseEntity.ok(Map.of("status", "ok"));
     }
+
+    // ==================== 缓存监控 ====================
+
+    @GetMapping("/caches")
+    public ResponseEntity<?> cacheStats() {
+        return ResponseEntity.ok(cacheStatsService.snapshot());
+    }
+
+    // ==================== 读写分离 ====================
+
+    @GetMapping("/replicas")
+    public ResponseEntity<?> replicaStatus() {
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        if (routing == null) return ResponseEntity.ok(Map.of("enabled", false));
+        return ResponseEntity.ok(routing.status());
+    }
+
+    // ==================== 并发隔离 ====================
+
+    @GetMapping("/bulkheads")
+    public ResponseEntity<?> bulkheadStats() {
+        BulkheadRegistry registry = bulkheads.getIfAvailable();
+        if (registry == null) return ResponseEntity.ok(Map.of("enabled", false));
+        return ResponseEntity.ok(Map.of("enabled", true, "bulkheads", registry.stats()));
+    }
+
+    // ==================== 请求合并 ====================
+
+    @GetMapping("/single-flights")
+    public ResponseEntity<?> singleFlightStats() {
+        return ResponseEntity.ok(Map.of("singleFlights", singleFlights.stats()));
+    }
+
+    // ==================== 准入控制 ====================
+
+    @GetMapping("/admission")
+    public ResponseEntity<?> admissionStats() {
+        AdmissionControl control = admissionControl.getIfAvailable();
+        if (control == null) return ResponseEntity.ok(Map.of("enabled", false));
+        return ResponseEntity.ok(control.stats());
+    }
+
+    // ==================== SQL 统计 ====================
+
+    /** Statements ranked by total time, calls, rows, p99 or mean latency. */
+    @GetMapping("/sql")
+    public ResponseEntity<?> sqlStats(
+        @RequestParam(value = "top", defaultValue = "20") int top,
+        @RequestParam(value = "sort", defaultValue = "total") String sort
+    ) {
+        return ResponseEntity.ok(sqlStats.top(top, sort));
+    }
+
+    @DeleteMapping("/sql")
+    public ResponseEntity<?> resetSqlStats() {
+        sqlStats.reset();
+        return ResponseEntity.ok(Map.of("status", "ok"));
+    }
+
+    // ==================== 执行计划检查 ====================
+
+    /** EXPLAIN of the hot statements, with full scans / filesorts over the row limit flagged. */
+    @GetMapping("/query-plans")
+    public ResponseEntity<?> queryPlans() {
+        return ResponseEntity.ok(queryPlanChecker.check());
+    }
+
+    // ==================== 数据导入 ====================
+
+    /** Body: {"file": "data.csv"}, relative to dataset-import.directory. Runs in the background. */
+    @PostMapping("/imports")
+    public ResponseEntity<?> startImport(@RequestBody(required = false) Map<String, String> body) {
+        String file = body == null || body.get("file") == null || body.get("file").isBlank()
+            ? "data.csv" : body.get("file");
+        try {
+            return ResponseEntity.accepted().body(datasetImportService.start(file));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_file"));
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(404).body(Map.of("error", "file_not_found"));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", "import_running"));
+        }
+    }
+
+    @GetMapping("/imports/{jobId}")
+    public ResponseEntity<?> importJob(@PathVariable("jobId") String jobId) {
+        return datasetImportService.getJob(jobId)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "job_not_found")));
+    }
+
+    // ==================== 交互快照 ====================
+
+    @GetMapping("/snapshot")
+    public ResponseEntity<?> snapshotStats() {
+        return ResponseEntity.ok(interactionSnapshot.stats());
+    }
+
+    /**
+     * Catch up now instead of waiting for the next scheduled refresh; rebuild=true starts over.
+     * 409 on an instance that does not hold the snapshot directory's lock.
+     */
+    @PostMapping("/snapshot/refresh")
+    public ResponseEntity<?> refreshSnapshot(@RequestParam(value = "rebuild", defaultValue = "false") boolean rebuild) {
+        long appended;
+        try {
+            appended = rebuild ? interactionSnapshot.rebuild() : interactionSnapshot.refresh();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", "snapshot_not_writer"));
+        }
+        Map<String, Object> result = new LinkedHashMap<>(interactionSnapshot.stats());
+        result.put("appended", appended);
+        return ResponseEntity.ok(result);
+    }
+
+    // ==================== 批量推荐 ====================
+
+    /** Streams one NDJSON line per user as results complete, then a summary line. */
+    @PostMapping("/recommendations/bulk")
+    public ResponseEntity<StreamingResponseBody> bulkRecommendations(@RequestBody BulkRecommendationRequest request) {
+        BulkRecommendationService.Job job;
+        try {
+            job = bulkRecommendationService.prepare(request);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = Map.of("error", "invalid_request", "message", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                .body(out -> bulkRecommendationService.writeLine(out, error));
+        }
+        StreamingResponseBody body = out -> bulkRecommendationService.stream(job, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    // ==================== 数据导出 ====================
+
+    /** users, questions, plans or wrong-questions as a CSV or NDJSON download, streamed row by row. */
+    @GetMapping("/export/{table}")
+    public ResponseEntity<StreamingResponseBody> exportTable(
+        @PathVariable("table") String table,
+        @RequestParam(value = "format", defaultValue = "csv") String format,
+        @RequestParam(value = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        if (!exportService.hasTable(table)) {
+            return exportService.badRequest("invalid_table", "table must be users, questions, plans or wrong-questions");
+        }
+        ExportService.Format f = ExportService.Format.parse(format);
+        if (f == null) return exportService.badRequest("invalid_format", "format must be csv or ndjson");
+        return exportService.attachment(table, f, gzip, ExportService.Budget.ADMIN,
+            out -> exportService.exportTable(table, f, out));
+    }
+
+    // ==================== 推荐索引 ====================
+
+    @GetMapping("/recommendation-indexes")
+    public ResponseEntity<?> recommendationIndexes() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("studentIds", studentIdDictionary.stats());
+        result.put("similarCourses", similarCourseIndex.stats());
+        result.put("factorIndex", courseFactorIndex.stats());
+        return ResponseEntity.ok(result);
+    }
 }
@@ -0,0 +1,184 @@
+package com.gradproject.api;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Runs several GET /api/** calls in one round trip. Each entry is dispatched in-process
+ * through the DispatcherServlet on its own virtual thread; results come back in request
+ * order as {url, status, body}. Entries still running at the batch deadline get 504.
+ * Routes that answer asynchronously (streamed downloads, deferred results) are refused:
+ * a sub-request cannot start async processing.
+ */
+@RestController
+@RequestMapping("/api")
+public class BatchController {
+    private static final List<Class<?>> ASYNC_RESULTS = List.of(StreamingResponseBody.class,
+        ResponseBodyEmitter.class, DeferredResult.class, Callable.class, WebAsyncTask.class, CompletionStage.class);
+
+    private final DispatcherServlet dispatcherServlet;
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final ObjectMapper objectMapper;
+    private final int maxRequests;
+    private final Duration timeout;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BatchController(
+        DispatcherServlet dispatcherServlet,
+        @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+        ObjectMapper objectMapper,
+        @Value("${batch.max-requests:20}") int maxRequests,
+        @Value("${batch.timeout:5s}") Duration timeout
+    ) {
+        this.dispatcherServlet = dispatcherServlet;
+        this.handlerMapping = handlerMapping;
+        this.objectMapper = objectMapper;
+        this.maxRequests = maxRequests;
+        this.timeout = timeout;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ==================== 批量请求接口 ====================
+
+    /** Body: a JSON array of relative URLs, e.g. ["/api/questions?courseId=1", ...]. */
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(@RequestBody List<String> urls, HttpServletRequest request) {
+        if (urls.isEmpty()) return ResponseEntity.ok(List.of());
+        if (urls.size() > maxRequests) {
+            return ResponseEntity.badRequest().body(Map.of("error", "too_many_requests", "max", maxRequests));
+        }
+        for (String url : urls) {
+            if (!isAllowed(url)) return ResponseEntity.badRequest().body(Map.of("error", "invalid_url", "url", url));
+            if (isAsync(new BatchSubRequest(request, url))) {
+                return ResponseEntity.badRequest().body(Map.of("error", "streaming_url", "url", url));
+            }
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<Future<Map<String, Object>>> futures = new ArrayList<>();
+        for (String url : urls) {
+            BatchSubRequest subRequest = new BatchSubRequest(request, url);
+            BatchSubResponse subResponse = new BatchSubResponse();
+            futures.add(executor.submit(() -> dispatch(url, subRequest, subResponse)));
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            Future<Map<String, Object>> future = futures.get(i);
+            try {
+                results.add(future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                results.add(result(urls.get(i), 504, Map.of("error", "timeout")));
+            } catch (ExecutionException e) {
+                results.add(result(urls.get(i), 500, Map.of("error", e.getCause().getClass().getSimpleName())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                results.add(result(urls.get(i), 503, Map.of("error", "interrupted")));
+            }
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    private Map<String, Object> dispatch(String url, BatchSubRequest request, BatchSubResponse response) {
+        try {
+            dispatcherServlet.service(request, response);
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return result(url, 500, Map.of("error", cause.getClass().getSimpleName()));
+        }
+        byte[] body = response.getBody();
+        Object parsed;
+        if (body.length == 0) {
+            parsed = null;
+        } else if (response.getContentType() != null && response.getContentType().contains("json")) {
+            try {
+                parsed = objectMapper.readTree(body);
+            } catch (IOException e) {
+                parsed = new String(body, StandardCharsets.UTF_8);
+            }
+        } else {
+            parsed = new String(body, StandardCharsets.UTF_8);
+        }
+        return result(url, response.getStatus(), parsed);
+    }
+
+    /** Only relative GETs into the API, and no nested batches. */
+    private static boolean isAllowed(String url) {
+        if (url == null || !url.startsWith("/api/") || url.contains("..") || url.contains("#")) return false;
+        String path = url.indexOf('?') < 0 ? url : url.substring(0, url.indexOf('?'));
+        return !path.equals("/api/batch");
+    }
+
+    /** Whether the handler for {@code request} returns a streamed or deferred result. */
+    private boolean isAsync(BatchSubRequest request) {
+        HandlerExecutionChain chain;
+        try {
+            ServletRequestPathUtils.parseAndCache(request);
+            chain = handlerMapping.getHandler(request);
+        } catch (Exception e) {
+            return false; // no such route or method: dispatching answers 404/405
+        }
+        if (chain == null || !(chain.getHandler() instanceof HandlerMethod method)) return false;
+        MethodParameter returnType = method.getReturnType();
+        Class<?> type = returnType.getParameterType();
+        if (HttpEntity.class.isAssignableFrom(type)) {
+            type = ResolvableType.forMethodParameter(returnType).as(HttpEntity.class).getGeneric(0).toClass();
+        }
+        for (Class<?> async : ASYNC_RESULTS) {
+            if (async.isAssignableFrom(type)) return true;
+        }
+        return false;
+    }
+
+    private static Map<String, Object> result(String url, int status, Object body) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("url", url);
+        m.put("status", status);
+        m.put("body", body);
+        return m;
+    }
+}
@@ -0,0 +1,243 @@
+package com.gradproject.api;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletConnection;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpUpgradeHandler;
+import jakarta.servlet.http.Part;
+
+/**
+ * A GET request synthesised from one entry of a /api/batch call. Everything it reports is
+ * copied from the outer request in the constructor and it keeps no reference to it: a
+ * sub-request cut off at the batch deadline may still be running after the batch response
+ * has been sent and Tomcat has recycled the outer request for another connection.
+ * Attributes are private, and there is no session, async support or body.
+ */
+class BatchSubRequest implements HttpServletRequest {
+    /** Not forwarded: sub-responses are plain, unconditional JSON. */
+    private static final List<String> DROPPED_HEADERS = List.of(
+        "accept-encoding", "if-none-match", "if-modified-since", "content-type", "content-length");
+
+    private final String path;
+    private final String queryString;
+    private final String contextPath;
+    private final Map<String, List<String>> headers = new LinkedHashMap<>();
+    private final Map<String, String[]> parameters = new LinkedHashMap<>();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final Locale locale;
+    private final List<Locale> locales;
+    private final String scheme;
+    private final String serverName;
+    private final int serverPort;
+    private final String protocol;
+    private final boolean secure;
+    private final String remoteAddr;
+    private final String remoteHost;
+    private final int remotePort;
+    private final String localName;
+    private final String localAddr;
+    private final int localPort;
+    private final Cookie[] cookies;
+    private final String authType;
+    private final String remoteUser;
+    private final Principal userPrincipal;
+    private final ServletContext servletContext;
+    private final String requestId = UUID.randomUUID().toString();
+
+    BatchSubRequest(HttpServletRequest outer, String url) {
+        int q = url.indexOf('?');
+        this.path = q < 0 ? url : url.substring(0, q);
+        this.queryString = q < 0 ? null : url.substring(q + 1);
+        this.contextPath = outer.getContextPath();
+        this.locale = outer.getLocale();
+        this.locales = Collections.list(outer.getLocales());
+        this.scheme = outer.getScheme();
+        this.serverName = outer.getServerName();
+        this.serverPort = outer.getServerPort();
+        this.protocol = outer.getProtocol();
+        this.secure = outer.isSecure();
+        this.remoteAddr = outer.getRemoteAddr();
+        this.remoteHost = outer.getRemoteHost();
+        this.remotePort = outer.getRemotePort();
+        this.localName = outer.getLocalName();
+        this.localAddr = outer.getLocalAddr();
+        this.localPort = outer.getLocalPort();
+        Cookie[] outerCookies = outer.getCookies();
+        this.cookies = outerCookies == null ? null : copy(outerCookies);
+        this.authType = outer.getAuthType();
+        this.remoteUser = outer.getRemoteUser();
+        this.userPrincipal = outer.getUserPrincipal();
+        this.servletContext = outer.getServletContext();
+        for (String name : Collections.list(outer.getHeaderNames())) {
+            if (DROPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) continue;
+            headers.put(name.toLowerCase(Locale.ROOT), Collections.list(outer.getHeaders(name)));
+        }
+        if (queryString != null) parseQuery(queryString);
+    }
+
+    private static Cookie[] copy(Cookie[] cookies) {
+        Cookie[] copies = new Cookie[cookies.length];
+        for (int i = 0; i < cookies.length; i++) copies[i] = (Cookie) cookies[i].clone();
+        return copies;
+    }
+
+    private void parseQuery(String query) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            values.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+        values.forEach((name, list) -> parameters.put(name, list.toArray(new String[0])));
+    }
+
+    @Override public String getMethod() { return "GET"; }
+    @Override public DispatcherType getDispatcherType() { return DispatcherType.REQUEST; }
+    @Override public String getRequestURI() { return contextPath + path; }
+    @Override public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer();
+        url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort());
+        return url.append(getRequestURI());
+    }
+    @Override public String getServletPath() { return path; }
+    @Override public String getPathInfo() { return null; }
+    @Override public String getPathTranslated() { return null; }
+    @Override public String getContextPath() { return contextPath; }
+    @Override public String getQueryString() { return queryString; }
+    @Override public String getScheme() { return scheme; }
+    @Override public String getServerName() { return serverName; }
+    @Override public int getServerPort() { return serverPort; }
+    @Override public String getProtocol() { return protocol; }
+    @Override public boolean isSecure() { return secure; }
+    @Override public String getRemoteAddr() { return remoteAddr; }
+    @Override public String getRemoteHost() { return remoteHost; }
+    @Override public int getRemotePort() { return remotePort; }
+    @Override public String getLocalName() { return localName; }
+    @Override public String getLocalAddr() { return localAddr; }
+    @Override public int getLocalPort() { return localPort; }
+    @Override public ServletContext getServletContext() { return servletContext; }
+    @Override public RequestDispatcher getRequestDispatcher(String path) {
+        return servletContext.getRequestDispatcher(path.startsWith("/") ? path : "/" + path);
+    }
+
+    @Override public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+    @Override public String[] getParameterValues(String name) { return parameters.get(name); }
+    @Override public Map<String, String[]> getParameterMap() { return Collections.unmodifiableMap(parameters); }
+    @Override public Enumeration<String> getParameterNames() { return Collections.enumeration(parameters.keySet()); }
+
+    @Override public String getHeader(String name) {
+        List<String> values = headers.get(name.toLowerCase(Locale.ROOT));
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+    @Override public Enumeration<String> getHeaders(String name) {
+        List<String> values = headers.get(name.toLowerCase(Locale.ROOT));
+        return Collections.enumeration(values == null ? List.of() : values);
+    }
+    @Override public Enumeration<String> getHeaderNames() { return Collections.enumeration(headers.keySet()); }
+    @Override public long getDateHeader(String name) { return -1; }
+    @Override public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override public Cookie[] getCookies() { return cookies == null ? null : copy(cookies); }
+    @Override public String getAuthType() { return authType; }
+    @Override public String getRemoteUser() { return remoteUser; }
+    @Override public Principal getUserPrincipal() { return userPrincipal; }
+    @Override public boolean isUserInRole(String role) { return false; }
+    @Override public boolean authenticate(HttpServletResponse response) { return userPrincipal != null; }
+    @Override public void login(String username, String password) { throw new UnsupportedOperationException(); }
+    @Override public void logout() { throw new UnsupportedOperationException(); }
+
+    @Override public HttpSession getSession(boolean create) {
+        if (create) throw new IllegalStateException("Batched requests have no session");
+        return null;
+    }
+    @Override public HttpSession getSession() { return getSession(true); }
+    @Override public String changeSessionId() { throw new IllegalStateException("Batched requests have no session"); }
+    @Override public String getRequestedSessionId() { return null; }
+    @Override public boolean isRequestedSessionIdValid() { return false; }
+    @Override public boolean isRequestedSessionIdFromCookie() { return false; }
+    @Override public boolean isRequestedSessionIdFromURL() { return false; }
+
+    @Override public String getCharacterEncoding() { return StandardCharsets.UTF_8.name(); }
+    @Override public void setCharacterEncoding(String env) {}
+    @Override public String getContentType() { return null; }
+    @Override public int getContentLength() { return 0; }
+    @Override public long getContentLengthLong() { return 0; }
+    @Override public ServletInputStream getInputStream() {
+        ByteArrayInputStream empty = new ByteArrayInputStream(new byte[0]);
+        return new ServletInputStream() {
+            @Override public boolean isFinished() { return true; }
+            @Override public boolean isReady() { return true; }
+            @Override public void setReadListener(ReadListener listener) { throw new UnsupportedOperationException(); }
+            @Override public int read() { return empty.read(); }
+        };
+    }
+    @Override public BufferedReader getReader() { return new BufferedReader(new StringReader("")); }
+    @Override public Collection<Part> getParts() { return List.of(); }
+    @Override public Part getPart(String name) { return null; }
+    @Override public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override public Object getAttribute(String name) { return attributes.get(name); }
+    @Override public Enumeration<String> getAttributeNames() { return Collections.enumeration(attributes.keySet()); }
+    @Override public void setAttribute(String name, Object value) {
+        if (value == null) attributes.remove(name);
+        else attributes.put(name, value);
+    }
+    @Override public void removeAttribute(String name) { attributes.remove(name); }
+
+    @Override public Locale getLocale() { return locale; }
+    @Override public Enumeration<Locale> getLocales() { return Collections.enumeration(locales); }
+
+    @Override public AsyncContext startAsync() { throw new IllegalStateException("Batched requests are synchronous"); }
+    @Override public AsyncContext startAsync(ServletRequest request, ServletResponse response) { return startAsync(); }
+    @Override public boolean isAsyncStarted() { return false; }
+    @Override public boolean isAsyncSupported() { return false; }
+    @Override public AsyncContext getAsyncContext() { throw new IllegalStateException("Batched requests are synchronous"); }
+
+    @Override public String getRequestId() { return requestId; }
+    @Override public String getProtocolRequestId() { return ""; }
+    @Override public ServletConnection getServletConnection() {
+        return new ServletConnection() {
+            @Override public String getConnectionId() { return requestId; }
+            @Override public String getProtocol() { return protocol; }
+            @Override public String getProtocolConnectionId() { return ""; }
+            @Override public boolean isSecure() { return secure; }
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.gradproject.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Captures status, headers and body of one batched call in memory. Never commits, and
+ * like {@link BatchSubRequest} holds no reference to the outer response.
+ */
+class BatchSubResponse implements HttpServletResponse {
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final Map<String, List<String>> headers = new LinkedHashMap<>();
+    private int status = SC_OK;
+    private String contentType;
+    private String characterEncoding = StandardCharsets.UTF_8.name();
+    private Locale locale = Locale.getDefault();
+    private PrintWriter writer;
+    private ServletOutputStream outputStream;
+
+    byte[] getBody() {
+        if (writer != null) writer.flush();
+        return body.toByteArray();
+    }
+
+    @Override public int getStatus() { return status; }
+    @Override public void setStatus(int sc) { this.status = sc; }
+    @Override public void sendError(int sc) { this.status = sc; }
+    @Override public void sendError(int sc, String msg) { this.status = sc; }
+    @Override public void sendRedirect(String location) {
+        this.status = SC_FOUND;
+        setHeader("Location", location);
+    }
+
+    @Override public void setHeader(String name, String value) {
+        List<String> values = new ArrayList<>();
+        values.add(value);
+        headers.put(name.toLowerCase(Locale.ROOT), values);
+        if ("content-type".equalsIgnoreCase(name)) contentType = value;
+    }
+    @Override public void addHeader(String name, String value) {
+        headers.computeIfAbsent(name.toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(value);
+        if ("content-type".equalsIgnoreCase(name)) contentType = value;
+    }
+    @Override public void setIntHeader(String name, int value) { setHeader(name, String.valueOf(value)); }
+    @Override public void addIntHeader(String name, int value) { addHeader(name, String.valueOf(value)); }
+    @Override public void setDateHeader(String name, long date) { setHeader(name, String.valueOf(date)); }
+    @Override public void addDateHeader(String name, long date) { addHeader(name, String.valueOf(date)); }
+    @Override public boolean containsHeader(String name) { return headers.containsKey(name.toLowerCase(Locale.ROOT)); }
+    @Override public String getHeader(String name) {
+        List<String> values = headers.get(name.toLowerCase(Locale.ROOT));
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+    @Override public Collection<String> getHeaders(String name) {
+        List<String> values = headers.get(name.toLowerCase(Locale.ROOT));
+        return values == null ? List.of() : values;
+    }
+    @Override public Collection<String> getHeaderNames() { return headers.keySet(); }
+    @Override public void addCookie(Cookie cookie) {}
+    @Override public String encodeURL(String url) { return url; }
+    @Override public String encodeRedirectURL(String url) { return url; }
+
+    @Override public String getContentType() { return contentType; }
+    @Override public void setContentType(String type) { this.contentType = type; }
+    @Override public String getCharacterEncoding() { return characterEncoding; }
+    @Override public void setCharacterEncoding(String charset) { this.characterEncoding = charset; }
+    @Override public void setContentLength(int len) {}
+    @Override public void setContentLengthLong(long len) {}
+    @Override public Locale getLocale() { return locale; }
+    @Override public void setLocale(Locale loc) { this.locale = loc; }
+    @Override public void setBufferSize(int size) {}
+    @Override public int getBufferSize() { return 0; }
+    @Override public boolean isCommitted() { return false; }
+    @Override public void flushBuffer() {}
+    @Override public void resetBuffer() { body.reset(); }
+    @Override public void reset() {
+        body.reset();
+        headers.clear();
+        status = SC_OK;
+        contentType = null;
+    }
+
+    @Override public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override public boolean isReady() { return true; }
+                @Override public void setWriteListener(WriteListener listener) { throw new UnsupportedOperationException(); }
+                @Override public void write(int b) { body.write(b); }
+                @Override public void write(byte[] b, int off, int len) { body.write(b, off, len); }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override public PrintWriter getWriter() {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(body, Charset.forName(characterEncoding)));
+        }
+        return writer;
+    }
+}
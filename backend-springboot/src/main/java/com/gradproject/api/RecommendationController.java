@@ -1,30 +1,39 @@
 package com.gradproject.api;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
+import com.gradproject.config.BulkheadFullException;
+import com.gradproject.config.SingleFlightTimeoutException;
 import com.gradproject.model.AuthRequest;
 import com.gradproject.model.MajorTypeRequest;
 import com.gradproject.model.PasswordChangeRequest;
 import com.gradproject.model.ProfileUpdateRequest;
 import com.gradproject.model.PlanRequest;
-import com.gradproject.model.User;
+import com.gradproject.model.UserContext;
 import com.gradproject.model.WrongQuestionRequest;
 import com.gradproject.service.AuthService;
+import com.gradproject.service.AvatarService;
+import com.gradproject.service.CatalogResponseCache;
+import com.gradproject.service.DashboardService;
+import com.gradproject.service.ExportService;
 import com.gradproject.service.CourseService;
 import com.gradproject.service.PlanService;
 import com.gradproject.service.QuestionService;
 import com.gradproject.service.RecommendationClient;
+import com.gradproject.service.RecommendationService;
+import com.gradproject.service.SimilarCourseIndex;
+import com.gradproject.service.TrendingCourses;
+import com.gradproject.service.UserContextService;
 import com.gradproject.service.WrongQuestionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api")
@@ -35,6 +44,14 @@ public class RecommendationController {
     private final PlanService planService;
     private final WrongQuestionService wrongQuestionService;
     private final QuestionService questionService;
+    private final UserContextService userContextService;
+    private final RecommendationService recommendationService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final AvatarService avatarService;
+    private final DashboardService dashboardService;
+    private final SimilarCourseIndex similarCourseIndex;
+    private final TrendingCourses trendingCourses;
+    private final ExportService exportService;
 
     public RecommendationController(
         RecommendationClient recommendationClient,
@@ -42,7 +59,15 @@ public class RecommendationController {
         AuthService authService,
         PlanService planService,
         WrongQuestionService wrongQuestionService,
-        QuestionService questionService
+        QuestionService questionService,
+        UserContextService userContextService,
+        RecommendationService recommendationService,
+        CatalogResponseCache catalogResponseCache,
+        AvatarService avatarService,
+        DashboardService dashboardService,
+        SimilarCourseIndex similarCourseIndex,
+        TrendingCourses trendingCourses,
+        ExportService exportService
     ) {
         this.recommendationClient = recommendationClient;
         this.courseService = courseService;
@@ -50,6 +75,14 @@ public class RecommendationController {
         this.planService = planService;
         this.wrongQuestionService = wrongQuestionService;
         this.questionService = questionService;
+        this.userContextService = userContextService;
+        this.recommendationService = recommendationService;
+        this.catalogResponseCache = catalogResponseCache;
+        this.avatarService = avatarService;
+        this.dashboardService = dashboardService;
+        this.similarCourseIndex = similarCourseIndex;
+        this.trendingCourses = trendingCourses;
+        this.exportService = exportService;
     }
 
     // ==================== 推荐接口 ====================
@@ -60,64 +93,18 @@ public class RecommendationController {
         @RequestParam(value = "topN", defaultValue = "10") int topN
     ) {
       try {
-        String stuId = authService.ensureMapping(userId);
+        UserContext context = userContextService.getContext(userId);
+        String stuId = context.getStuId();
         if (stuId == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "no_student_mapping",
                 "recommendations", java.util.Collections.emptyList()));
         }
-        Set<Integer> allowedTypeIds = buildAllowedTypeIds(userId);
-        Set<String> allowedTypeNames = buildAllowedTypeNames(userId);
-        String recentType = courseService.findRecentTypeName(userId);
-
-        // Request many more from Flask to compensate for category filtering
-        int fetchN = topN * 10;
-        Map<?, ?> result = recommendationClient.getRecommendations(stuId, fetchN);
-        Object recObj = result.get("recommendations");
-        if (recObj instanceof java.util.List<?> list) {
-            java.util.Iterator<?> iterator = list.iterator();
-            while (iterator.hasNext()) {
-                Object item = iterator.next();
-                if (item instanceof java.util.Map<?, ?> raw) {
-                    @SuppressWarnings("unchecked")
-                    java.util.Map<String, Object> map = (java.util.Map<String, Object>) raw;
-                    Object typeIdObj = map.get("type_id");
-                    boolean allowed = false;
-                    if (!allowedTypeIds.isEmpty() && typeIdObj instanceof Number typeId) {
-                        allowed = allowedTypeIds.contains(typeId.intValue());
-                    }
-                    if (!allowed && !allowedTypeNames.isEmpty()) {
-                        Object typeNameObj = map.get("type_name");
-                        if (typeNameObj != null) {
-                            String typeName = String.valueOf(typeNameObj);
-                            for (String keyword : allowedTypeNames) {
-                                if (typeName.contains(keyword)) { allowed = true; break; }
-                            }
-                        }
-                    }
-                    if (!allowed && (!allowedTypeIds.isEmpty() || !allowedTypeNames.isEmpty())) {
-                        iterator.remove();
-                        continue;
-                    }
-                    if (recentType != null) {
-                        Object typeName = map.get("type_name");
-                        String reason = recentType.equals(typeName)
-                            ? "与你近期学习的科目相同" : "基于相似用户兴趣推荐";
-                        map.put("reason", reason);
-                    }
-                }
-            }
-            // Trim to requested topN after filtering
-            while (list.size() > topN) {
-                list.remove(list.size() - 1);
-            }
-
-            // Fallback: if filtering removed everything, query popular courses from allowed categories
-            if (list.isEmpty()) {
-                List<Map<String, Object>> fallback = courseService.findPopularByTypeIds(allowedTypeIds, topN);
-                return ResponseEntity.ok(Map.of("recommendations", fallback));
-            }
-        }
+        Map<?, ?> result = recommendationService.recommend(context, topN);
         return ResponseEntity.ok(result);
+      } catch (BulkheadFullException | SingleFlightTimeoutException e) {
+        return ResponseEntity.status(503).body(Map.of(
+            "error", "recommender_busy",
+            "recommendations", java.util.Collections.emptyList()));
       } catch (Exception e) {
         e.printStackTrace();
         return ResponseEntity.status(500).body(Map.of(
@@ -126,26 +113,84 @@ public class RecommendationController {
       }
     }
 
+    // ==================== 首页聚合接口 ====================
+
+    @GetMapping("/dashboard")
+    public ResponseEntity<?> dashboard(
+        @RequestParam("userId") long userId,
+        @RequestParam(value = "topN", defaultValue = "10") int topN,
+        @RequestParam(value = "wrongSize", defaultValue = "5") int wrongSize
+    ) {
+        UserContext context = userContextService.getContext(userId);
+        if (context.getStuId() == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "user_not_found"));
+        }
+        return ResponseEntity.ok(dashboardService.assemble(context, topN, wrongSize));
+    }
+
+    // ==================== 课程接口 ====================
+
     @GetMapping("/courses")
     public ResponseEntity<?> courses(
         @RequestParam(value = "limit", required = false) Integer limit,
         @RequestParam(value = "page", required = false) Integer page,
         @RequestParam(value = "size", required = false) Integer size,
         @RequestParam(value = "keyword", required = false) String keyword,
-        @RequestParam(value = "mode", defaultValue = "name") String mode
+        @RequestParam(value = "mode", defaultValue = "name") String mode,
+        @RequestHeader HttpHeaders headers
     ) {
         if (page != null && size != null) {
-            return ResponseEntity.ok(courseService.listCoursesPaged(page, size, keyword, mode));
+            // Searches and deep or oversized pages are one-offs: not worth a cache entry.
+            if ((keyword != null && !keyword.isBlank()) || !catalogResponseCache.cacheable(page, size)) {
+                return ResponseEntity.ok(courseService.listCoursesPaged(page, size, keyword, mode));
+            }
+            return catalogResponseCache.serve(CatalogResponseCache.key("courses", "page", page, "size", size), headers,
+                () -> courseService.listCoursesPaged(page, size, null, mode));
         }
         int effectiveLimit = limit == null ? 50 : limit;
-        return ResponseEntity.ok(courseService.listCourses(effectiveLimit));
+        if (!catalogResponseCache.cacheable(1, effectiveLimit)) {
+            return ResponseEntity.ok(courseService.listCourses(effectiveLimit));
+        }
+        return catalogResponseCache.serve(CatalogResponseCache.key("courses", "limit", effectiveLimit), headers,
+            () -> courseService.listCourses(effectiveLimit));
+    }
+
+    /** Courses most often taken together with this one; served from memory, no catalog cache. */
+    @GetMapping("/courses/{courseIndex}/similar")
+    public ResponseEntity<?> similarCourses(
+        @PathVariable("courseIndex") int courseIndex,
+        @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(Map.of(
+            "courseIndex", courseIndex,
+            "similar", similarCourseIndex.similar(courseIndex, limit)));
+    }
+
+    /** Most-clicked courses over the last {@code window} (e.g. 30m, 1h, 24h), from this instance's in-memory counters. */
+    @GetMapping("/courses/trending")
+    public ResponseEntity<?> trendingCourses(
+        @RequestParam(value = "window", defaultValue = "1h") String window,
+        @RequestParam(value = "typeId", required = false) Integer typeId,
+        @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        int minutes;
+        try {
+            minutes = TrendingCourses.parseWindow(window);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_window", "message", e.getMessage()));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("window", window);
+        body.put("typeId", typeId);
+        body.put("trending", trendingCourses.trending(minutes, typeId, Math.min(Math.max(limit, 1), 100)));
+        return ResponseEntity.ok(body);
     }
 
     @PostMapping("/interactions")
     public ResponseEntity<?> recordInteraction(@RequestBody Map<String, Object> body) {
         long userId = ((Number) body.get("userId")).longValue();
         int courseIndex = ((Number) body.get("courseIndex")).intValue();
-        String stuId = authService.ensureMapping(userId);
+        String stuId = userContextService.getContext(userId).getStuId();
         if (stuId == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "no_student_mapping"));
         }
@@ -209,30 +254,44 @@ public class RecommendationController {
         @RequestParam("file") MultipartFile file
     ) throws IOException {
         if (file.isEmpty()) return ResponseEntity.badRequest().body(Map.of("error", "empty_file"));
-        String original = file.getOriginalFilename() == null ? "" : file.getOriginalFilename();
-        String ext = "";
-        int dot = original.lastIndexOf(".");
-        if (dot > -1) ext = original.substring(dot);
-        Path uploadDir = Paths.get(System.getProperty("user.dir"), "uploads");
-        Files.createDirectories(uploadDir);
-        String fileName = "user_" + userId + "_" + System.currentTimeMillis() + ext;
-        Path target = uploadDir.resolve(fileName);
-        file.transferTo(target.toFile());
-        String avatarPath = "/uploads/" + fileName;
-        return authService.updateAvatar(userId, avatarPath)
+        if (authService.getUserById(userId).isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "user_not_found"));
+        }
+        try {
+            Map<String, Object> job = avatarService.submit(userId, file);
+            int status = "processing".equals(job.get("status")) ? 202 : 200;
+            return ResponseEntity.status(status).body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body(Map.of("error", "avatar_queue_full"));
+        }
+    }
+
+    @GetMapping("/user/avatar/{uploadId}")
+    public ResponseEntity<?> avatarStatus(@PathVariable("uploadId") String uploadId) {
+        return avatarService.getJob(uploadId)
             .<ResponseEntity<?>>map(ResponseEntity::ok)
-            .orElse(ResponseEntity.status(404).body(Map.of("error", "user_not_found")));
+            .orElse(ResponseEntity.status(404).body(Map.of("error", "upload_not_found")));
     }
 
     // ==================== 课程类别接口 ====================
 
     @GetMapping("/course-types")
-    public ResponseEntity<?> courseTypes(@RequestParam(value = "exclude", required = false) String exclude) {
-        java.util.List<String> keywords = null;
-        if (exclude != null && !exclude.isBlank()) {
-            keywords = java.util.Arrays.asList(exclude.split(","));
+    public ResponseEntity<?> courseTypes(
+        @RequestParam(value = "exclude", required = false) String exclude,
+        @RequestHeader HttpHeaders headers
+    ) {
+        java.util.List<String> keywords;
+        try {
+            keywords = CourseService.normalizeKeywords(exclude);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_exclude", "message", e.getMessage()));
+        }
+        if (!keywords.isEmpty()) {
+            // Free text: filtered from the cached list, served without a body-cache entry.
+            return ResponseEntity.ok(CourseService.excludeTypes(courseService.listCourseTypes(), keywords));
         }
-        return ResponseEntity.ok(courseService.listCourseTypes(keywords));
+        return catalogResponseCache.serve(CatalogResponseCache.key("course-types"), headers,
+            courseService::listCourseTypes);
     }
 
     // ==================== 题目接口 ====================
@@ -252,7 +311,7 @@ public class RecommendationController {
         @RequestParam("userId") long userId,
         @RequestParam(value = "limit", defaultValue = "10") int limit
     ) {
-        List<Integer> typeIdList = new java.util.ArrayList<>(resolveTypeIds(category, userId));
+        List<Integer> typeIdList = new java.util.ArrayList<>(userContextService.getContext(userId).typeIdsFor(category));
         return ResponseEntity.ok(questionService.listQuestionsByTypeIds(typeIdList, limit, true));
     }
 
@@ -303,7 +362,7 @@ public class RecommendationController {
         if (page != null && size != null) {
             List<Integer> typeIds = null;
             if (category != null && !category.isBlank() && !"all".equalsIgnoreCase(category)) {
-                typeIds = new java.util.ArrayList<>(resolveTypeIds(category, userId));
+                typeIds = new java.util.ArrayList<>(userContextService.getContext(userId).typeIdsFor(category));
             }
             return ResponseEntity.ok(wrongQuestionService.listPaged(userId, typeIds, keyword, page, size));
         }
@@ -326,6 +385,19 @@ public class RecommendationController {
         return ResponseEntity.ok(Map.of("error_count", cnt));
     }
 
+    /** The whole wrong-question book as a CSV or NDJSON download, streamed row by row. */
+    @GetMapping("/wrong-questions/export")
+    public ResponseEntity<StreamingResponseBody> exportWrongQuestions(
+        @RequestParam("userId") long userId,
+        @RequestParam(value = "format", defaultValue = "csv") String format,
+        @RequestParam(value = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        ExportService.Format f = ExportService.Format.parse(format);
+        if (f == null) return exportService.badRequest("invalid_format", "format must be csv or ndjson");
+        return exportService.attachment("wrong-questions-" + userId, f, gzip, ExportService.Budget.STUDENT,
+            out -> exportService.exportWrongQuestions(userId, f, out));
+    }
+
     @DeleteMapping("/wrong-questions/{id}")
     public ResponseEntity<?> deleteWrongQuestion(@PathVariable("id") long id, @RequestParam("userId") long userId) {
         wrongQuestionService.delete(id, userId);
@@ -338,57 +410,8 @@ public class RecommendationController {
         @RequestParam("userId") long userId,
         @RequestParam(value = "limit", defaultValue = "10") int limit
     ) {
-        List<Integer> typeIdList = new java.util.ArrayList<>(resolveTypeIds(category, userId));
+        List<Integer> typeIdList = new java.util.ArrayList<>(userContextService.getContext(userId).typeIdsFor(category));
         if (typeIdList.isEmpty()) return ResponseEntity.ok(java.util.Collections.emptyList());
         return ResponseEntity.ok(wrongQuestionService.listByTypeIds(userId, typeIdList, limit));
     }
-
-    // ==================== 辅助方法 ====================
-
-    private Set<Integer> buildAllowedTypeIds(long userId) {
-        Set<Integer> typeIds = new HashSet<>();
-        typeIds.addAll(courseService.findTypeIdsByKeyword("数学"));
-        typeIds.addAll(courseService.findTypeIdsByKeyword("英语"));
-        typeIds.addAll(courseService.findTypeIdsByKeyword("外语"));
-        typeIds.addAll(courseService.findTypeIdsByKeyword("政治"));
-        typeIds.addAll(courseService.findTypeIdsByKeyword("哲学"));
-        authService.getUserById(userId).ifPresent(user -> {
-            if (user.getMajorTypeId() != null) typeIds.add(user.getMajorTypeId());
-        });
-        return typeIds;
-    }
-
-    private Set<Integer> resolveTypeIds(String category, long userId) {
-        Set<Integer> typeIds = new HashSet<>();
-        if ("major".equalsIgnoreCase(category)) {
-            authService.getUserById(userId).ifPresent(user -> {
-                if (user.getMajorTypeId() != null) typeIds.add(user.getMajorTypeId());
-            });
-        } else if ("math".equalsIgnoreCase(category)) {
-            typeIds.addAll(courseService.findTypeIdsByKeyword("数学"));
-        } else if ("english".equalsIgnoreCase(category)) {
-            typeIds.addAll(courseService.findTypeIdsByKeyword("英语"));
-            typeIds.addAll(courseService.findTypeIdsByKeyword("外语"));
-        } else if ("politics".equalsIgnoreCase(category)) {
-            typeIds.addAll(courseService.findTypeIdsByKeyword("政治"));
-            typeIds.addAll(courseService.findTypeIdsByKeyword("哲学"));
-        }
-        return typeIds;
-    }
-
-    private Set<String> buildAllowedTypeNames(long userId) {
-        Set<String> names = new HashSet<>();
-        names.add("数学");
-        names.add("英语");
-        names.add("外语");
-        names.add("政治");
-        names.add("哲学");
-        authService.getUserById(userId).ifPresent(user -> {
-            if (user.getMajorTypeId() != null) {
-                String majorName = courseService.findTypeNameById(user.getMajorTypeId());
-                if (majorName != null && !majorName.isBlank()) names.add(majorName);
-            }
-        });
-        return names;
-    }
 }
@@ -0,0 +1,193 @@
+package com.gradproject.config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admits /api/** requests against token buckets: one per client address and one shared by
+ * everyone. The address is the one Tomcat resolves from X-Forwarded-For when the request
+ * comes through a trusted proxy ({@code server.forward-headers-strategy: native}), so
+ * clients behind the load balancer do not share its address. There is no per-user bucket:
+ * the userId parameter is chosen by the client, and the app has no authentication that
+ * could key one. At most {@code admission.max-clients} address buckets are kept; past
+ * that, new addresses share a single overflow bucket. Each request is charged
+ * a cost from its route and parameters, so a large topN or maxUsers or a LIKE search
+ * weighs more than a page of questions. The global bucket keeps a reserve per priority:
+ * admin reporting is shed first, student quiz traffic last. A client over its own rates is
+ * refused before it can drain the shared bucket. Refusals are 429 with Retry-After.
+ * <p>
+ * Runs as a HandlerInterceptor rather than a servlet filter so that the entries of
+ * POST /api/batch, which are dispatched straight to the DispatcherServlet, are admitted
+ * one by one as well.
+ */
+public class AdmissionControl implements HandlerInterceptor {
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final AdmissionProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TokenBucket global;
+    private final TokenBucket overflow;
+    private final Map<String, TokenBucket> clients = new ConcurrentHashMap<>();
+    private final LongAdder overflowed = new LongAdder();
+    private final Map<String, RouteStats> routeStats = new ConcurrentHashMap<>();
+    private final Map<AdmissionProperties.Priority, RouteStats> priorityStats =
+        new EnumMap<>(AdmissionProperties.Priority.class);
+
+    public AdmissionControl(AdmissionProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.global = new TokenBucket(properties.getGlobal().getRate(), properties.getGlobal().getBurst());
+        this.overflow = new TokenBucket(properties.getPerAddress().getRate(), properties.getPerAddress().getBurst());
+        for (AdmissionProperties.Priority p : AdmissionProperties.Priority.values()) {
+            priorityStats.put(p, new RouteStats());
+        }
+    }
+
+    private static final class RouteStats {
+        final LongAdder admitted = new LongAdder();
+        final LongAdder rejectedClient = new LongAdder();
+        final LongAdder rejectedGlobal = new LongAdder();
+        final DoubleAdder cost = new DoubleAdder();
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("admitted", admitted.sum());
+            m.put("rejectedClient", rejectedClient.sum());
+            m.put("rejectedGlobal", rejectedGlobal.sum());
+            m.put("cost", Math.round(cost.sum() * 10) / 10.0);
+            return m;
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // Async re-dispatches (streamed responses) were admitted on their first dispatch.
+        if ("OPTIONS".equals(request.getMethod()) || request.getDispatcherType() == DispatcherType.ASYNC) return true;
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        AdmissionProperties.Route route = match(request.getMethod(), path);
+        double cost = route == null ? 1 : cost(route, request);
+        if (cost <= 0) return true;
+        AdmissionProperties.Priority priority = route == null ? AdmissionProperties.Priority.NORMAL : route.getPriority();
+        RouteStats stats = routeStats.computeIfAbsent(route == null ? "other" : route.getPath(), k -> new RouteStats());
+        RouteStats byPriority = priorityStats.get(priority);
+
+        TokenBucket address = client(request.getRemoteAddr());
+        if (address == null) {
+            overflowed.increment();
+            address = overflow;
+        }
+        if (!address.tryTake(cost, 0)) {
+            stats.rejectedClient.increment();
+            byPriority.rejectedClient.increment();
+            reject(response, "address", address.secondsUntil(cost, 0));
+            return false;
+        }
+        double floor = properties.getReserve().getOrDefault(priority, 0.0) * global.burst();
+        if (!global.tryTake(cost, floor)) {
+            address.refund(cost);
+            stats.rejectedGlobal.increment();
+            byPriority.rejectedGlobal.increment();
+            reject(response, "global", global.secondsUntil(cost, floor));
+            return false;
+        }
+        stats.admitted.increment();
+        stats.cost.add(cost);
+        byPriority.admitted.increment();
+        byPriority.cost.add(cost);
+        return true;
+    }
+
+    /** The bucket for {@code address}, or null when it is new and max-clients are already tracked. */
+    private TokenBucket client(String address) {
+        TokenBucket bucket = clients.get(address);
+        if (bucket != null || clients.size() >= properties.getMaxClients()) return bucket;
+        AdmissionProperties.Limit limit = properties.getPerAddress();
+        return clients.computeIfAbsent(address, k -> new TokenBucket(limit.getRate(), limit.getBurst()));
+    }
+
+    /** Drop client buckets that have refilled completely; a new one would be identical. */
+    @Scheduled(fixedDelayString = "PT1M")
+    public void evictIdleClients() {
+        clients.values().removeIf(TokenBucket::isFull);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", true);
+        m.put("globalAvailable", Math.round(global.available() * 10) / 10.0);
+        m.put("globalBurst", global.burst());
+        m.put("globalRate", properties.getGlobal().getRate());
+        m.put("trackedClients", clients.size());
+        m.put("maxClients", properties.getMaxClients());
+        m.put("overflowed", overflowed.sum());
+        Map<String, Object> priorities = new LinkedHashMap<>();
+        priorityStats.forEach((p, s) -> priorities.put(p.name(), s.toMap()));
+        m.put("priorities", priorities);
+        List<Map<String, Object>> routes = new ArrayList<>();
+        routeStats.forEach((path, s) -> {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("path", path);
+            r.putAll(s.toMap());
+            routes.add(r);
+        });
+        m.put("routes", routes);
+        return m;
+    }
+
+    private AdmissionProperties.Route match(String method, String path) {
+        for (AdmissionProperties.Route route : properties.getRoutes()) {
+            if (route.getMethod() != null && !route.getMethod().equalsIgnoreCase(method)) continue;
+            if (PATHS.match(route.getPath(), path)) return route;
+        }
+        return null;
+    }
+
+    private static double cost(AdmissionProperties.Route route, HttpServletRequest request) {
+        double cost = route.getCost();
+        if (cost <= 0) return 0;
+        if (route.getScaleParam() != null) {
+            String value = request.getParameter(route.getScaleParam());
+            if (value != null) {
+                try {
+                    double units = Math.ceil(Double.parseDouble(value.trim()) / route.getScaleUnit());
+                    cost *= Math.max(1, units);
+                } catch (NumberFormatException ignored) {
+                    // the controller rejects it with 400
+                }
+            }
+        }
+        for (Map.Entry<String, Double> extra : route.getParamCosts().entrySet()) {
+            String value = request.getParameter(extra.getKey());
+            if (value != null && !value.isBlank()) cost += extra.getValue();
+        }
+        return cost;
+    }
+
+    private void reject(HttpServletResponse response, String scope, long retryAfterSeconds) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+            "error", "rate_limited", "scope", scope, "retryAfterSeconds", retryAfterSeconds));
+    }
+}
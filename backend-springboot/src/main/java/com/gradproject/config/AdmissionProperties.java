@@ -0,0 +1,99 @@
+package com.gradproject.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Token-bucket admission control for /api/** (see {@link AdmissionControl}). Rates are in
+ * cost units per second; an ordinary request costs 1.
+ */
+@ConfigurationProperties(prefix = "admission")
+public class AdmissionProperties {
+    private boolean enabled = true;
+    private Limit global = new Limit(400, 800);
+    /**
+     * Every request, keyed by client address (X-Forwarded-For from a trusted proxy, see
+     * {@code server.tomcat.remoteip}).
+     */
+    private Limit perAddress = new Limit(100, 200);
+    /**
+     * Most address buckets kept at once. New addresses beyond it share one bucket with the
+     * per-address limit.
+     */
+    private int maxClients = 100_000;
+    /**
+     * Share of the global bucket each priority must leave untouched, so lower classes are
+     * shed first when it runs low.
+     */
+    private Map<Priority, Double> reserve = new LinkedHashMap<>(Map.of(
+        Priority.HIGH, 0.0, Priority.NORMAL, 0.1, Priority.LOW, 0.3));
+    /** First match wins; unmatched requests cost 1 at NORMAL priority. */
+    private List<Route> routes = new ArrayList<>();
+
+    public enum Priority { HIGH, NORMAL, LOW }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Limit getGlobal() { return global; }
+    public void setGlobal(Limit global) { this.global = global; }
+    public Limit getPerAddress() { return perAddress; }
+    public void setPerAddress(Limit perAddress) { this.perAddress = perAddress; }
+    public int getMaxClients() { return maxClients; }
+    public void setMaxClients(int maxClients) { this.maxClients = maxClients; }
+    public Map<Priority, Double> getReserve() { return reserve; }
+    public void setReserve(Map<Priority, Double> reserve) { this.reserve = reserve; }
+    public List<Route> getRoutes() { return routes; }
+    public void setRoutes(List<Route> routes) { this.routes = routes; }
+
+    public static class Limit {
+        private double rate;
+        private double burst;
+
+        public Limit() {}
+
+        Limit(double rate, double burst) {
+            this.rate = rate;
+            this.burst = burst;
+        }
+
+        public double getRate() { return rate; }
+        public void setRate(double rate) { this.rate = rate; }
+        public double getBurst() { return burst; }
+        public void setBurst(double burst) { this.burst = burst; }
+    }
+
+    /**
+     * Cost is {@code cost × ceil(scaleParam / scaleUnit)} (at least {@code cost}), plus
+     * {@code paramCosts[p]} for every listed parameter that is present and not blank.
+     * A cost of 0 skips admission (e.g. /api/batch, whose entries are admitted one by one).
+     */
+    public static class Route {
+        private String path;
+        /** HTTP method, or null for any. */
+        private String method;
+        private double cost = 1;
+        private Priority priority = Priority.NORMAL;
+        private String scaleParam;
+        private double scaleUnit = 1;
+        private Map<String, Double> paramCosts = new LinkedHashMap<>();
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+        public String getMethod() { return method; }
+        public void setMethod(String method) { this.method = method; }
+        public double getCost() { return cost; }
+        public void setCost(double cost) { this.cost = cost; }
+        public Priority getPriority() { return priority; }
+        public void setPriority(Priority priority) { this.priority = priority; }
+        public String getScaleParam() { return scaleParam; }
+        public void setScaleParam(String scaleParam) { this.scaleParam = scaleParam; }
+        public double getScaleUnit() { return scaleUnit; }
+        public void setScaleUnit(double scaleUnit) { this.scaleUnit = scaleUnit; }
+        public Map<String, Double> getParamCosts() { return paramCosts; }
+        public void setParamCosts(Map<String, Double> paramCosts) { this.paramCosts = paramCosts; }
+    }
+}
@@ -0,0 +1,84 @@
+package com.gradproject.config;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Wraps the local cache manager so that every evict / clear issued through Spring's cache
+ * abstraction (e.g. {@code @CacheEvict}) is also published on the {@link CacheInvalidationBus}.
+ * Reads and puts stay purely local.
+ */
+public class BroadcastingCacheManager implements CacheManager {
+    private final CacheManager delegate;
+    private final CacheInvalidationBus bus;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public BroadcastingCacheManager(CacheManager delegate, CacheInvalidationBus bus) {
+        this.delegate = delegate;
+        this.bus = bus;
+        bus.attach(delegate);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) return cache;
+        Cache local = delegate.getCache(name);
+        if (local == null) return null;
+        return caches.computeIfAbsent(name, n -> new BroadcastingCache(local, bus));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    static class BroadcastingCache implements Cache {
+        private final Cache delegate;
+        private final CacheInvalidationBus bus;
+
+        BroadcastingCache(Cache delegate, CacheInvalidationBus bus) {
+            this.delegate = delegate;
+            this.bus = bus;
+        }
+
+        @Override public String getName() { return delegate.getName(); }
+        @Override public Object getNativeCache() { return delegate.getNativeCache(); }
+        @Override public ValueWrapper get(Object key) { return delegate.get(key); }
+        @Override public <T> T get(Object key, Class<T> type) { return delegate.get(key, type); }
+        @Override public <T> T get(Object key, Callable<T> valueLoader) { return delegate.get(key, valueLoader); }
+        @Override public void put(Object key, Object value) { delegate.put(key, value); }
+        @Override public ValueWrapper putIfAbsent(Object key, Object value) { return delegate.putIfAbsent(key, value); }
+
+        @Override
+        public void evict(Object key) {
+            delegate.evict(key);
+            bus.publish(getName(), key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean present = delegate.evictIfPresent(key);
+            bus.publish(getName(), key);
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+            bus.publish(getName(), null);
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean invalidated = delegate.invalidate();
+            bus.publish(getName(), null);
+            return invalidated;
+        }
+    }
+}
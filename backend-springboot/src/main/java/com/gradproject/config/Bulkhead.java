@@ -0,0 +1,89 @@
+package com.gradproject.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.gradproject.metrics.LatencyHistogram;
+
+/**
+ * A fair semaphore in front of a scarce resource (connection pool, recommender), so that
+ * thousands of virtual threads queue here in FIFO order with a bounded wait instead of
+ * piling onto the resource itself. Records how long callers waited for a permit.
+ */
+public class Bulkhead {
+    private final String name;
+    private final int permits;
+    private final long timeoutNanos;
+    private final Semaphore semaphore;
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String name, int permits, Duration acquireTimeout) {
+        this.name = name;
+        this.permits = permits;
+        this.timeoutNanos = acquireTimeout.toNanos();
+        this.semaphore = new Semaphore(permits, true);
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * Wait up to the acquire timeout for a permit. Every successful call must be paired
+     * with {@link #release()}.
+     */
+    public void acquire() {
+        long start = System.nanoTime();
+        boolean acquired;
+        if (semaphore.tryAcquire()) {
+            acquired = true;
+        } else {
+            waiting.incrementAndGet();
+            try {
+                acquired = semaphore.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        queueWait.record(System.nanoTime() - start);
+        if (!acquired) {
+            rejected.increment();
+            throw new BulkheadFullException(name, Duration.ofNanos(timeoutNanos));
+        }
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public <T> T call(Callable<T> task) throws Exception {
+        acquire();
+        try {
+            return task.call();
+        } finally {
+            release();
+        }
+    }
+
+    /** Permits, current use and queue length, rejections and the queue-wait distribution. */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("name", name);
+        m.put("permits", permits);
+        m.put("inUse", permits - semaphore.availablePermits());
+        m.put("waiting", waiting.get());
+        m.put("rejected", rejected.sum());
+        m.put("acquireTimeoutMs", TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+        m.put("queueWait", queueWait.summary());
+        return m;
+    }
+}
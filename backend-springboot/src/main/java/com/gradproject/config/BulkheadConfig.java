@@ -0,0 +1,64 @@
+package com.gradproject.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Bulkheads for the virtual-thread execution mode. With virtual threads Tomcat no longer
+ * caps concurrent requests at its worker pool size, so the connection pool and the
+ * recommender get explicit FIFO queues with a bounded wait in front of them.
+ */
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class BulkheadConfig {
+
+    @Bean
+    static BulkheadRegistry bulkheadRegistry() {
+        return new BulkheadRegistry();
+    }
+
+    @Bean
+    public Bulkhead recommenderBulkhead(BulkheadRegistry registry, BulkheadProperties properties) {
+        BulkheadProperties.Limit limit = properties.getRecommender();
+        return registry.register(new Bulkhead("recommender", limit.getPermits(), limit.getAcquireTimeout()));
+    }
+
+    /** Puts the jdbc bulkhead in front of the application's DataSource. */
+    @Bean
+    static BeanPostProcessor jdbcBulkheadPostProcessor(ObjectProvider<BulkheadRegistry> registry,
+                                                       ObjectProvider<BulkheadProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) return bean;
+                BulkheadProperties.Limit limit = properties.getObject().getJdbc();
+                int permits = limit.getPermits() > 0 ? limit.getPermits() : poolSize(dataSource);
+                Bulkhead bulkhead = registry.getObject().register(new Bulkhead("jdbc", permits, limit.getAcquireTimeout()));
+                // Keep the routing DataSource's own type: other beans look it up by class.
+                if (bean instanceof ReplicaRoutingDataSource routing) {
+                    routing.setBulkhead(bulkhead);
+                    return routing;
+                }
+                return new BulkheadDataSource(dataSource, bulkhead);
+            }
+        };
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) return hikari.getMaximumPoolSize();
+        if (dataSource instanceof ReplicaRoutingDataSource routing) {
+            return routing.getResolvedDataSources().values().stream().mapToInt(BulkheadConfig::poolSize).sum();
+        }
+        return 10;
+    }
+}
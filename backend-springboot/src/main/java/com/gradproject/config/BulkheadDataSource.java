@@ -0,0 +1,75 @@
+package com.gradproject.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Holds a {@link Bulkhead} permit for as long as a connection is checked out: acquired
+ * before the pool is asked for a connection, released when the connection is closed.
+ * Rejections surface as {@link SQLTransientConnectionException}, the same as a pool timeout.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+    private final Bulkhead bulkhead;
+
+    public BulkheadDataSource(DataSource target, Bulkhead bulkhead) {
+        super(target);
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return guard(bulkhead, () -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return guard(bulkhead, () -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    /** Acquire a permit, open the connection and tie the permit's release to its close(). */
+    static Connection guard(Bulkhead bulkhead, ConnectionSource source) throws SQLException {
+        try {
+            bulkhead.acquire();
+        } catch (BulkheadFullException e) {
+            throw new SQLTransientConnectionException(e.getMessage(), e);
+        }
+        Connection connection;
+        try {
+            connection = source.get();
+        } catch (SQLException | RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                    try {
+                        connection.close();
+                    } finally {
+                        if (released.compareAndSet(false, true)) bulkhead.release();
+                    }
+                    return null;
+                }
+                if ("equals".equals(method.getName()) && method.getParameterCount() == 1) return proxy == args[0];
+                if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) return System.identityHashCode(proxy);
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            });
+    }
+}
@@ -0,0 +1,12 @@
+package com.gradproject.config;
+
+import java.time.Duration;
+
+/** No permit became available within the bulkhead's acquire timeout. */
+public class BulkheadFullException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public BulkheadFullException(String bulkhead, Duration timeout) {
+        super("Bulkhead '" + bulkhead + "' full: no permit within " + timeout.toMillis() + "ms");
+    }
+}
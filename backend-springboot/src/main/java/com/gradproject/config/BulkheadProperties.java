@@ -0,0 +1,38 @@
+package com.gradproject.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bulkhead sizes used when requests run on virtual threads
+ * ({@code spring.threads.virtual.enabled=true}).
+ */
+@ConfigurationProperties(prefix = "bulkhead")
+public class BulkheadProperties {
+    private Limit jdbc = new Limit(0, Duration.ofSeconds(30));
+    private Limit recommender = new Limit(32, Duration.ofSeconds(2));
+
+    public Limit getJdbc() { return jdbc; }
+    public void setJdbc(Limit jdbc) { this.jdbc = jdbc; }
+    public Limit getRecommender() { return recommender; }
+    public void setRecommender(Limit recommender) { this.recommender = recommender; }
+
+    public static class Limit {
+        /** Concurrent permits; for jdbc, 0 means "the total size of the connection pools". */
+        private int permits;
+        private Duration acquireTimeout;
+
+        public Limit() {}
+
+        Limit(int permits, Duration acquireTimeout) {
+            this.permits = permits;
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        public int getPermits() { return permits; }
+        public void setPermits(int permits) { this.permits = permits; }
+        public Duration getAcquireTimeout() { return acquireTimeout; }
+        public void setAcquireTimeout(Duration acquireTimeout) { this.acquireTimeout = acquireTimeout; }
+    }
+}
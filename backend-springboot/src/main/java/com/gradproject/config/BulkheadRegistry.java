@@ -0,0 +1,22 @@
+package com.gradproject.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/** The bulkheads active in this instance, for the admin stats endpoint. */
+public class BulkheadRegistry {
+    private final List<Bulkhead> bulkheads = new CopyOnWriteArrayList<>();
+
+    public Bulkhead register(Bulkhead bulkhead) {
+        bulkheads.add(bulkhead);
+        return bulkhead;
+    }
+
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Bulkhead bulkhead : bulkheads) list.add(bulkhead.stats());
+        return list;
+    }
+}
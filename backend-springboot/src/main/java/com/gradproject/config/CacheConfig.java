@@ -1,7 +1,9 @@
 package com.gradproject.config;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Collection;
+import java.util.Map;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -12,17 +14,38 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CachePolicyProperties.class)
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(CachePolicyProperties properties, CacheLoaderRegistry loaders,
+                                     CacheInvalidationBus invalidationBus) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(
-            Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .recordStats()
-        );
-        return cacheManager;
+        cacheManager.setCaffeine(builder(properties.getDefaultSpec()));
+        properties.getPolicies().forEach((name, spec) -> {
+            Caffeine<Object, Object> builder = builder(spec);
+            if (spec.contains("refreshAfterWrite")) {
+                cacheManager.registerCustomCache(name, builder.build(loaders.loaderFor(name)));
+            } else {
+                cacheManager.registerCustomCache(name, builder.build());
+            }
+        });
+        if (!properties.getBus().isEnabled()) return cacheManager;
+        return new BroadcastingCacheManager(cacheManager, invalidationBus);
+    }
+
+    private static Caffeine<Object, Object> builder(String spec) {
+        Caffeine<Object, Object> builder = Caffeine.from(spec).recordStats();
+        if (spec.contains("maximumWeight")) {
+            builder.weigher((Object key, Object value) -> weigh(value));
+        }
+        return builder;
+    }
+
+    /** Rough entry weight: one unit per element for collection-valued entries. */
+    private static int weigh(Object value) {
+        if (value instanceof Collection<?> c) return 1 + c.size();
+        if (value instanceof Map<?, ?> m) return 1 + m.size();
+        return 1;
     }
 }
@@ -0,0 +1,189 @@
+package com.gradproject.config;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Broadcasts cache evictions to every instance through the cache_invalidation_log table.
+ * <p>
+ * Each eviction is appended as one row tagged with this node's id. Every node polls the
+ * table with a keyset cursor ({@code id > lastSeenId}) and applies rows from other nodes
+ * to its local caches. Ids skipped by the cursor (auto-increment values whose insert had
+ * not committed yet) are re-checked for a short while so late commits are not lost.
+ */
+@Component
+public class CacheInvalidationBus {
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+    private static final long GAP_TIMEOUT_MS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CachePolicyProperties.Bus properties;
+    private final TaskScheduler taskScheduler;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile CacheManager localCaches;
+    private volatile boolean active;
+    private long cursor;
+    private long lastSuccessfulPoll;
+    private final Map<Long, Long> pendingGaps = new HashMap<>();
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate, CachePolicyProperties properties,
+                                TaskScheduler taskScheduler) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties.getBus();
+        this.taskScheduler = taskScheduler;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) return;
+        try {
+            Long maxId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM cache_invalidation_log", Long.class);
+            cursor = maxId == null ? 0 : maxId;
+        } catch (DataAccessException e) {
+            log.error("cache_invalidation_log unavailable, caches stay node-local"
+                + " (apply sql/migrations/V3__cache_invalidation_log.sql): {}", e.getMessage());
+            return;
+        }
+        lastSuccessfulPoll = System.currentTimeMillis();
+        active = true;
+        taskScheduler.scheduleWithFixedDelay(this::poll, properties.getPollInterval());
+        taskScheduler.scheduleWithFixedDelay(this::purgeExpired, Duration.ofMinutes(5));
+    }
+
+    /** The caches that remote invalidations are applied to (bypassing re-broadcast). */
+    void attach(CacheManager localCaches) {
+        this.localCaches = localCaches;
+    }
+
+    public String getNodeId() { return nodeId; }
+
+    /**
+     * Record an eviction for other nodes. A null key means "clear the whole cache";
+     * keys that cannot be encoded are also broadcast as a full clear.
+     */
+    public void publish(String cacheName, Object key) {
+        if (!active) return;
+        try {
+            jdbcTemplate.update(
+                "INSERT INTO cache_invalidation_log (cache_name, cache_key, origin) VALUES (?, ?, ?)",
+                cacheName, encodeKey(key), nodeId);
+        } catch (DataAccessException e) {
+            log.warn("Failed to broadcast eviction {}[{}]: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    synchronized void poll() {
+        try {
+            long now = System.currentTimeMillis();
+            if (now - lastSuccessfulPoll > properties.getRetention().toMillis()) {
+                // Log rows may have been purged while we were cut off: drop everything.
+                clearAll();
+            }
+            recheckGaps(now);
+            int read;
+            do {
+                List<Row> rows = jdbcTemplate.query(
+                    "SELECT id, cache_name, cache_key, origin FROM cache_invalidation_log WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("cache_name"),
+                        rs.getString("cache_key"), rs.getString("origin")),
+                    cursor, properties.getBatchSize());
+                for (Row row : rows) {
+                    for (long missing = cursor + 1; missing < row.id; missing++) {
+                        pendingGaps.put(missing, now);
+                    }
+                    apply(row);
+                    cursor = row.id;
+                }
+                read = rows.size();
+            } while (read == properties.getBatchSize());
+            lastSuccessfulPoll = now;
+        } catch (RuntimeException e) {
+            log.warn("Cache invalidation poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void recheckGaps(long now) {
+        if (pendingGaps.isEmpty()) return;
+        List<Long> ids = new ArrayList<>(pendingGaps.keySet());
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Row> rows = jdbcTemplate.query(
+            "SELECT id, cache_name, cache_key, origin FROM cache_invalidation_log WHERE id IN (" + placeholders + ")",
+            (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("cache_name"),
+                rs.getString("cache_key"), rs.getString("origin")),
+            ids.toArray());
+        for (Row row : rows) {
+            apply(row);
+            pendingGaps.remove(row.id);
+        }
+        Iterator<Map.Entry<Long, Long>> it = pendingGaps.entrySet().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().getValue() > GAP_TIMEOUT_MS) it.remove();
+        }
+    }
+
+    private void apply(Row row) {
+        if (nodeId.equals(row.origin) || localCaches == null) return;
+        Cache cache = localCaches.getCache(row.cacheName);
+        if (cache == null) return;
+        Object key = decodeKey(row.cacheKey);
+        if (key == null) cache.clear();
+        else cache.evict(key);
+    }
+
+    private void clearAll() {
+        if (localCaches == null) return;
+        for (String name : localCaches.getCacheNames()) {
+            Cache cache = localCaches.getCache(name);
+            if (cache != null) cache.clear();
+        }
+    }
+
+    void purgeExpired() {
+        try {
+            Timestamp cutoff = new Timestamp(System.currentTimeMillis() - properties.getRetention().toMillis());
+            jdbcTemplate.update("DELETE FROM cache_invalidation_log WHERE created_at < ?", cutoff);
+        } catch (DataAccessException e) {
+            log.warn("Failed to purge cache_invalidation_log: {}", e.getMessage());
+        }
+    }
+
+    static String encodeKey(Object key) {
+        if (key instanceof Long l) return "L:" + l;
+        if (key instanceof Integer i) return "I:" + i;
+        if (key instanceof String s && s.length() <= 250) return "S:" + s;
+        return null;
+    }
+
+    static Object decodeKey(String encoded) {
+        if (encoded == null || encoded.length() < 2) return null;
+        String value = encoded.substring(2);
+        return switch (encoded.charAt(0)) {
+            case 'L' -> Long.valueOf(value);
+            case 'I' -> Integer.valueOf(value);
+            case 'S' -> value;
+            default -> null;
+        };
+    }
+
+    private record Row(long id, String cacheName, String cacheKey, String origin) {}
+}
@@ -0,0 +1,34 @@
+package com.gradproject.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+
+/**
+ * Uncached load functions for caches whose policy uses refreshAfterWrite.
+ * Services register the raw query behind their {@code @Cacheable} method here;
+ * Caffeine then reloads stale entries in the background instead of letting them expire.
+ */
+@Component
+public class CacheLoaderRegistry {
+    private final Map<String, Function<Object, Object>> loaders = new ConcurrentHashMap<>();
+
+    public void register(String cacheName, Function<Object, Object> loader) {
+        loaders.put(cacheName, loader);
+    }
+
+    /**
+     * Loader bound to a cache name. Returns null (no entry) when nothing is registered,
+     * so a miss falls through to the {@code @Cacheable} method as usual.
+     */
+    CacheLoader<Object, Object> loaderFor(String cacheName) {
+        return key -> {
+            Function<Object, Object> loader = loaders.get(cacheName);
+            return loader == null ? null : loader.apply(key);
+        };
+    }
+}
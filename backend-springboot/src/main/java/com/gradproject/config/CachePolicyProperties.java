@@ -0,0 +1,49 @@
+package com.gradproject.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Per-cache Caffeine policies, written as Caffeine spec strings
+ * (maximumSize / maximumWeight, expireAfterWrite / expireAfterAccess, refreshAfterWrite).
+ * Caches without an entry in {@code policies} use {@code defaultSpec}.
+ */
+@ConfigurationProperties(prefix = "cache")
+public class CachePolicyProperties {
+    private String defaultSpec = "maximumSize=1000,expireAfterWrite=10m";
+    private Map<String, String> policies = new LinkedHashMap<>();
+    private boolean warmUp = true;
+    private final Bus bus = new Bus();
+
+    public String getDefaultSpec() { return defaultSpec; }
+    public void setDefaultSpec(String defaultSpec) { this.defaultSpec = defaultSpec; }
+    public Map<String, String> getPolicies() { return policies; }
+    public void setPolicies(Map<String, String> policies) { this.policies = policies; }
+    public boolean isWarmUp() { return warmUp; }
+    public void setWarmUp(boolean warmUp) { this.warmUp = warmUp; }
+    public Bus getBus() { return bus; }
+
+    public String specFor(String cacheName) {
+        return policies.getOrDefault(cacheName, defaultSpec);
+    }
+
+    /** Cross-instance invalidation via the cache_invalidation_log table. */
+    public static class Bus {
+        private boolean enabled = true;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private Duration retention = Duration.ofHours(1);
+        private int batchSize = 500;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public Duration getPollInterval() { return pollInterval; }
+        public void setPollInterval(Duration pollInterval) { this.pollInterval = pollInterval; }
+        public Duration getRetention() { return retention; }
+        public void setRetention(Duration retention) { this.retention = retention; }
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    }
+}
@@ -0,0 +1,48 @@
+package com.gradproject.config;
+
+import java.util.List;
+import java.util.Map;
+
+import com.gradproject.service.CourseService;
+import com.gradproject.service.UserContextService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the catalog caches (course types, category keyword lookups, type names)
+ * once the application is up, so the first user requests don't pay for the misses.
+ */
+@Component
+public class CacheWarmer {
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final CourseService courseService;
+    private final CachePolicyProperties properties;
+
+    public CacheWarmer(CourseService courseService, CachePolicyProperties properties) {
+        this.courseService = courseService;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isWarmUp()) return;
+        long start = System.currentTimeMillis();
+        try {
+            List<Map<String, Object>> types = courseService.listCourseTypes();
+            for (String keyword : UserContextService.CATEGORY_KEYWORDS) {
+                courseService.findTypeIdsByKeyword(keyword);
+            }
+            for (Map<String, Object> type : types) {
+                courseService.findTypeNameById((Integer) type.get("type_id"));
+            }
+            log.info("Warmed catalog caches with {} course types in {} ms",
+                types.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("Catalog cache warm-up failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.gradproject.config;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import com.gradproject.service.DatasetImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line dataset import: started with {@code --import-dataset=<path to data.csv>},
+ * the application loads the file, prints the result and exits (status 1 on failure).
+ * Add {@code --spring.main.web-application-type=none} to skip starting the web server.
+ */
+@Component
+public class DatasetImportRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DatasetImportRunner.class);
+    static final String OPTION = "import-dataset";
+
+    private final DatasetImportService importService;
+    private final ApplicationContext context;
+
+    public DatasetImportRunner(DatasetImportService importService, ApplicationContext context) {
+        this.importService = importService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) return;
+        List<String> values = args.getOptionValues(OPTION);
+        if (values.isEmpty() || values.get(0).isBlank()) {
+            log.error("--{} needs the path of the CSV file", OPTION);
+            System.exit(SpringApplication.exit(context, () -> 2));
+        }
+        Map<String, Object> result = importService.importFile(Path.of(values.get(0)));
+        log.info("Dataset import finished: {}", result);
+        int status = "done".equals(result.get("phase")) ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
@@ -0,0 +1,239 @@
+package com.gradproject.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import com.gradproject.metrics.SqlStats;
+import org.springframework.core.InfrastructureProxy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * JdbcTemplate whose connections hand out timing statement proxies: every execute* call
+ * is recorded in {@link SqlStats} with its latency, affected or returned row count and
+ * the shapes of its bound parameters.
+ * <p>
+ * A query is timed from execute until its statement is closed, so the latency includes
+ * reading the rows. Result sets are not proxied; the row count comes from this template's
+ * extractors (the size of the mapped list, else the cursor position) and is unknown for
+ * statements run any other way.
+ * <p>
+ * The recording DataSource is an {@link InfrastructureProxy}, so transaction resources
+ * bound for the underlying DataSource are still found by this template.
+ */
+public class InstrumentedJdbcTemplate extends JdbcTemplate {
+    private static final long UNKNOWN = -1;
+    private static final long FAILED = -2;
+
+    /** Rows read by the last extraction on this thread, handed to its statement's close(). */
+    private static final ThreadLocal<Long> FETCHED = new ThreadLocal<>();
+
+    public InstrumentedJdbcTemplate(DataSource dataSource, SqlStats stats) {
+        super(new RecordingDataSource(dataSource, stats));
+    }
+
+    @Override
+    public <T> T query(String sql, ResultSetExtractor<T> rse) {
+        return super.query(sql, counting(rse));
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss, ResultSetExtractor<T> rse) {
+        return super.query(psc, pss, counting(rse));
+    }
+
+    private static <T> ResultSetExtractor<T> counting(ResultSetExtractor<T> rse) {
+        return rs -> {
+            T result;
+            try {
+                result = rse.extractData(rs);
+            } catch (RuntimeException | SQLException e) {
+                FETCHED.set(FAILED);
+                throw e;
+            }
+            long rows = result instanceof Collection<?> c ? c.size() : rowsRead(rs);
+            FETCHED.set(rows);
+            return result;
+        };
+    }
+
+    /** For extractors that stop early, e.g. {@code rs.next() ? ... : null}; unknown once past the end. */
+    private static long rowsRead(ResultSet rs) {
+        try {
+            int row = rs.getRow();
+            return row > 0 ? row : UNKNOWN;
+        } catch (SQLException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /** Wraps {@code dataSource} the same way, e.g. for a transaction manager. */
+    public static DataSource recording(DataSource dataSource, SqlStats stats) {
+        return new RecordingDataSource(dataSource, stats);
+    }
+
+    static class RecordingDataSource extends DelegatingDataSource implements InfrastructureProxy {
+        private final SqlStats stats;
+
+        RecordingDataSource(DataSource target, SqlStats stats) {
+            super(target);
+            this.stats = stats;
+        }
+
+        @Override
+        public Object getWrappedObject() {
+            return obtainTargetDataSource();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return proxy(Connection.class, obtainTargetDataSource().getConnection(), this::onConnection);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return proxy(Connection.class, obtainTargetDataSource().getConnection(username, password), this::onConnection);
+        }
+
+        private Object onConnection(Object target, Method method, Object[] args) throws Throwable {
+            Object result = invoke(target, method, args);
+            String name = method.getName();
+            if (name.equals("prepareStatement") && result instanceof PreparedStatement ps) {
+                return proxy(PreparedStatement.class, ps, new StatementRecorder((String) args[0]));
+            }
+            if (name.equals("createStatement") && result instanceof Statement st) {
+                return proxy(Statement.class, st, new StatementRecorder(null));
+            }
+            return result;
+        }
+
+        /**
+         * Times execute* calls and collects parameter shapes for one statement. A query
+         * stays open until the statement is closed (or runs again) and is recorded then.
+         */
+        private final class StatementRecorder implements Handler {
+            private static final Set<String> EXECUTE = Set.of(
+                "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+            private final String preparedSql;
+            private final List<String> shapes = new ArrayList<>();
+            private int batched;
+            private String openSql;
+            private List<String> openShapes;
+            private long openStart;
+
+            StatementRecorder(String preparedSql) {
+                this.preparedSql = preparedSql;
+            }
+
+            @Override
+            public Object handle(Object target, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    recordShape(index, name, args[1]);
+                    return invoke(target, method, args);
+                }
+                if (name.equals("addBatch")) batched++;
+                if (name.equals("close")) {
+                    recordOpenQuery();
+                    return invoke(target, method, args);
+                }
+                if (!EXECUTE.contains(name)) return invoke(target, method, args);
+
+                recordOpenQuery();
+                FETCHED.remove();
+                String sql = preparedSql != null ? preparedSql : (args != null && args.length > 0 ? (String) args[0] : "<batch>");
+                List<String> parameterShapes = batched > 0 ? List.of("batch x" + batched) : List.copyOf(shapes);
+                long start = System.nanoTime();
+                Object result;
+                try {
+                    result = invoke(target, method, args);
+                } catch (Throwable e) {
+                    stats.record(sql, System.nanoTime() - start, -1, true, parameterShapes);
+                    throw e;
+                }
+                if (result instanceof ResultSet || (result instanceof Boolean b && b)) {
+                    openSql = sql;
+                    openShapes = parameterShapes;
+                    openStart = start;
+                    return result;
+                }
+                stats.record(sql, System.nanoTime() - start, affectedRows(result), false, parameterShapes);
+                return result;
+            }
+
+            private void recordOpenQuery() {
+                if (openSql == null) return;
+                Long fetched = FETCHED.get();
+                FETCHED.remove();
+                boolean failed = fetched != null && fetched == FAILED;
+                long rows = fetched == null || failed ? UNKNOWN : fetched;
+                stats.record(openSql, System.nanoTime() - openStart, rows, failed, openShapes);
+                openSql = null;
+                openShapes = null;
+            }
+
+            private void recordShape(int index, String setter, Object value) {
+                while (shapes.size() < index) shapes.add("?");
+                String shape;
+                if (setter.equals("setNull") || value == null) shape = "null";
+                else if (value instanceof CharSequence s) shape = "String(" + s.length() + ")";
+                else shape = value.getClass().getSimpleName();
+                shapes.set(index - 1, shape);
+            }
+        }
+    }
+
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer i) return i;
+        if (result instanceof Long l) return l;
+        if (result instanceof int[] counts) {
+            long sum = 0;
+            for (int c : counts) if (c > 0) sum += c;
+            return sum;
+        }
+        if (result instanceof long[] counts) {
+            long sum = 0;
+            for (long c : counts) if (c > 0) sum += c;
+            return sum;
+        }
+        return -1;
+    }
+
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler ih = (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> method.getParameterCount() == 1 ? proxy == args[0] : handler.handle(target, method, args);
+            case "hashCode" -> method.getParameterCount() == 0 ? System.identityHashCode(proxy) : handler.handle(target, method, args);
+            default -> handler.handle(target, method, args);
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, ih));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.gradproject.config;
+
+import javax.sql.DataSource;
+
+import com.gradproject.metrics.SqlStats;
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+
+/**
+ * The application's JdbcTemplate records every statement in {@link SqlStats}. The
+ * transaction manager uses the same recording DataSource so statements run inside
+ * transactions are measured too.
+ */
+@Configuration
+@EnableConfigurationProperties(JdbcProperties.class)
+public class JdbcConfig {
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource, SqlStats sqlStats, JdbcProperties properties) {
+        JdbcTemplate jdbcTemplate = new InstrumentedJdbcTemplate(dataSource, sqlStats);
+        JdbcProperties.Template template = properties.getTemplate();
+        jdbcTemplate.setFetchSize(template.getFetchSize());
+        jdbcTemplate.setMaxRows(template.getMaxRows());
+        if (template.getQueryTimeout() != null) {
+            jdbcTemplate.setQueryTimeout(Math.toIntExact(template.getQueryTimeout().toSeconds()));
+        }
+        return jdbcTemplate;
+    }
+
+    @Bean
+    public JdbcTransactionManager transactionManager(JdbcTemplate jdbcTemplate) {
+        return new JdbcTransactionManager(jdbcTemplate.getDataSource());
+    }
+}
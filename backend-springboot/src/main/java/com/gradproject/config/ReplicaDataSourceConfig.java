@@ -0,0 +1,66 @@
+package com.gradproject.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Replaces the auto-configured DataSource with a {@link ReplicaRoutingDataSource} when
+ * {@code replica.enabled=true}. The primary pool is still built from {@code spring.datasource}.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource, ReplicaProperties properties,
+                                               DataSourceProperties primaryProperties, TaskScheduler taskScheduler) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaProperties.Pool> pools = properties.getPools();
+        for (int i = 0; i < pools.size(); i++) {
+            ReplicaProperties.Pool pool = pools.get(i);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(pool.getUrl());
+            replica.setUsername(pool.getUsername() != null ? pool.getUsername() : primaryProperties.getUsername());
+            replica.setPassword(pool.getPassword() != null ? pool.getPassword() : primaryProperties.getPassword());
+            replica.setDriverClassName(primaryProperties.getDriverClassName());
+            replica.setMaximumPoolSize(pool.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, properties);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(routing, properties);
+        monitor.run();
+        taskScheduler.scheduleWithFixedDelay(monitor, properties.getLagCheckInterval());
+        return routing;
+    }
+
+    @Bean
+    ReplicaRoutingAspect replicaRoutingAspect(ReplicaRoutingDataSource dataSource) {
+        return new ReplicaRoutingAspect(dataSource);
+    }
+}
@@ -0,0 +1,60 @@
+package com.gradproject.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures replication lag of each replica on a fixed delay. Replicas that cannot be
+ * queried, or report that replication is stopped, are marked unhealthy and skipped.
+ */
+class ReplicaLagMonitor implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final ReplicaRoutingDataSource routing;
+    private final String lagQuery;
+
+    ReplicaLagMonitor(ReplicaRoutingDataSource routing, ReplicaProperties properties) {
+        this.routing = routing;
+        this.lagQuery = properties.getLagQuery();
+    }
+
+    @Override
+    public void run() {
+        for (ReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+            try (Connection conn = replica.dataSource.getConnection();
+                 Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery(lagQuery)) {
+                long lag = 0;
+                if (rs.next()) {
+                    Object seconds = column(rs, "Seconds_Behind_Source", "Seconds_Behind_Master");
+                    if (seconds == null) throw new SQLException("replication not running");
+                    lag = ((Number) seconds).longValue() * 1000;
+                }
+                if (!replica.healthy) log.info("Replica {} is available (lag {} ms)", replica.name, lag);
+                replica.lagMillis = lag;
+                replica.lastError = null;
+                replica.healthy = true;
+            } catch (SQLException | RuntimeException e) {
+                if (replica.healthy) log.warn("Replica {} unavailable: {}", replica.name, e.getMessage());
+                replica.lastError = e.getMessage();
+                replica.healthy = false;
+            }
+        }
+    }
+
+    private static Object column(ResultSet rs, String... names) throws SQLException {
+        for (String name : names) {
+            try {
+                return rs.getObject(name);
+            } catch (SQLException ignored) {
+                // column name differs between MySQL versions
+            }
+        }
+        throw new SQLException("no lag column in result of lag query");
+    }
+}
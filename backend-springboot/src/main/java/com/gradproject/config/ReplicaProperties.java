@@ -0,0 +1,56 @@
+package com.gradproject.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Read-replica pools for {@link ReplicaRead} methods. The primary stays configured under
+ * {@code spring.datasource}.
+ */
+@ConfigurationProperties(prefix = "replica")
+public class ReplicaProperties {
+    private boolean enabled = false;
+    /** Replicas lagging more than this are skipped. */
+    private Duration maxLag = Duration.ofSeconds(5);
+    /** How long a client's reads stay on the primary after its own write, at minimum. */
+    private Duration readYourWrites = Duration.ofSeconds(2);
+    private Duration lagCheckInterval = Duration.ofSeconds(2);
+    /**
+     * Statement reporting replication lag. An empty result (e.g. a second schema on the
+     * same server, for local testing) counts as zero lag.
+     */
+    private String lagQuery = "SHOW REPLICA STATUS";
+    private List<Pool> pools = new ArrayList<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Duration getMaxLag() { return maxLag; }
+    public void setMaxLag(Duration maxLag) { this.maxLag = maxLag; }
+    public Duration getReadYourWrites() { return readYourWrites; }
+    public void setReadYourWrites(Duration readYourWrites) { this.readYourWrites = readYourWrites; }
+    public Duration getLagCheckInterval() { return lagCheckInterval; }
+    public void setLagCheckInterval(Duration lagCheckInterval) { this.lagCheckInterval = lagCheckInterval; }
+    public String getLagQuery() { return lagQuery; }
+    public void setLagQuery(String lagQuery) { this.lagQuery = lagQuery; }
+    public List<Pool> getPools() { return pools; }
+    public void setPools(List<Pool> pools) { this.pools = pools; }
+
+    public static class Pool {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+    }
+}
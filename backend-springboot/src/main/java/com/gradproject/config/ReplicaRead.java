@@ -0,0 +1,18 @@
+package com.gradproject.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only service method (or every method of a class) whose queries may be
+ * served by a read replica when replica routing is enabled. Without replicas, or when
+ * they lag too far behind, the method runs against the primary as usual.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+}
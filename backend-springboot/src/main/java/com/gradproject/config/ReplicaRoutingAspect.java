@@ -0,0 +1,36 @@
+package com.gradproject.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Routes {@link ReplicaRead} methods to the replicas and records the JdbcTemplate
+ * updates and batch updates that ran for a client, for read-your-writes stickiness.
+ */
+@Aspect
+class ReplicaRoutingAspect {
+    private final ReplicaRoutingDataSource routing;
+
+    ReplicaRoutingAspect(ReplicaRoutingDataSource routing) {
+        this.routing = routing;
+    }
+
+    @Around("@annotation(com.gradproject.config.ReplicaRead) || @within(com.gradproject.config.ReplicaRead)")
+    public Object routeToReplica(ProceedingJoinPoint pjp) throws Throwable {
+        ReplicaRoutingDataSource.enterRead();
+        try {
+            return pjp.proceed();
+        } finally {
+            ReplicaRoutingDataSource.exitRead();
+        }
+    }
+
+    /** Only statements that really write make the client sticky to the primary. */
+    @AfterReturning("execution(* org.springframework.jdbc.core.JdbcOperations.update(..))"
+        + " || execution(* org.springframework.jdbc.core.JdbcOperations.batchUpdate(..))")
+    public void afterWrite() {
+        routing.markWrite();
+    }
+}
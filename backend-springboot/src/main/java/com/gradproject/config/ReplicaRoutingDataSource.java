@@ -0,0 +1,174 @@
+package com.gradproject.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Sends connections requested inside a {@link ReplicaRead} method to a healthy replica,
+ * everything else to the primary.
+ * <p>
+ * A replica is eligible while its last measured lag is within {@code maxLag}. After a
+ * client writes, that client's reads stay on the primary until the write is older than both
+ * the replica's lag and {@code readYourWrites}, so a list shown right after its own
+ * create/update includes it. Other clients keep reading from the replicas. A client is the
+ * userId request parameter, the admin console, or else the remote address; writes made
+ * outside a request (scheduled jobs, imports) make nobody sticky.
+ */
+public final class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    static final String PRIMARY = "primary";
+    private static final ThreadLocal<int[]> READ_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaProperties properties;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Cache<String, Long> lastWrites;
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+    private volatile Bulkhead bulkhead;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicaPools,
+                                    ReplicaProperties properties) {
+        this.properties = properties;
+        long window = Math.max(properties.getReadYourWrites().toMillis(), properties.getMaxLag().toMillis());
+        this.lastWrites = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMillis(window))
+            .build();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicaPools.forEach((name, pool) -> {
+            targets.put(name, pool);
+            replicas.add(new Replica(name, pool));
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    static void enterRead() { READ_DEPTH.get()[0]++; }
+
+    static void exitRead() { READ_DEPTH.get()[0]--; }
+
+    /** Called after a statement that wrote on the primary, on the writing thread. */
+    void markWrite() {
+        String client = currentClient();
+        if (client != null) lastWrites.put(client, System.currentTimeMillis());
+    }
+
+    /** The client the current request belongs to, or null outside a request. */
+    private static String currentClient() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servlet)) return null;
+        HttpServletRequest request = servlet.getRequest();
+        String userId = request.getParameter("userId");
+        if (userId != null && !userId.isBlank()) return "user:" + userId.trim();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/admin/")) return "admin";
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    List<Replica> getReplicas() { return replicas; }
+
+    /** Route every connection (primary or replica) through the jdbc bulkhead. */
+    void setBulkhead(Bulkhead bulkhead) { this.bulkhead = bulkhead; }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Bulkhead b = bulkhead;
+        if (b == null) return super.getConnection();
+        return BulkheadDataSource.guard(b, super::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Bulkhead b = bulkhead;
+        if (b == null) return super.getConnection(username, password);
+        return BulkheadDataSource.guard(b, () -> super.getConnection(username, password));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (READ_DEPTH.get()[0] <= 0) return PRIMARY;
+        long maxLag = properties.getMaxLag().toMillis();
+        String client = currentClient();
+        Long lastWrite = client == null ? null : lastWrites.getIfPresent(client);
+        long sinceWrite = lastWrite == null ? Long.MAX_VALUE : System.currentTimeMillis() - lastWrite;
+        long stickiness = properties.getReadYourWrites().toMillis();
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy || replica.lagMillis > maxLag) continue;
+            if (sinceWrite <= Math.max(stickiness, replica.lagMillis)) continue;
+            replica.reads.increment();
+            return replica.name;
+        }
+        if (sinceWrite <= stickiness) primaryReads.increment();
+        else fallbackReads.increment();
+        return PRIMARY;
+    }
+
+    /** Routing counters and the last lag measurement of each replica. */
+    public Map<String, Object> status() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("name", replica.name);
+            r.put("healthy", replica.healthy);
+            r.put("lagMs", replica.lagMillis);
+            r.put("reads", replica.reads.sum());
+            r.put("lastError", replica.lastError);
+            list.add(r);
+        }
+        m.put("replicas", list);
+        m.put("readsKeptOnPrimaryAfterWrite", primaryReads.sum());
+        m.put("readsFallenBackToPrimary", fallbackReads.sum());
+        m.put("maxLagMs", properties.getMaxLag().toMillis());
+        m.put("stickyClients", lastWrites.estimatedSize());
+        return m;
+    }
+
+    /** Closes the replica pools; the primary pool is a bean of its own. */
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) closeable.close();
+        }
+    }
+
+    static class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean healthy;
+        volatile long lagMillis;
+        volatile String lastError;
+        final LongAdder reads = new LongAdder();
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.gradproject.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load on its own
+ * thread, callers arriving while it is in flight wait for and share its result or its
+ * exception. Nothing is kept once the load finishes; caching stays the caller's business.
+ * <p>
+ * Waiters give up after the timeout with {@link SingleFlightTimeoutException}; the load
+ * itself is bounded only by the leader's own timeouts. The shared value is handed to every
+ * caller as is, so it must not be modified.
+ */
+public class SingleFlight<K, V> {
+    private final String name;
+    private final long timeoutNanos;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SingleFlight(String name, Duration timeout) {
+        this.name = name;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    public String getName() { return name; }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running == null) return lead(key, mine, loader);
+
+        shared.increment();
+        try {
+            return running.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new SingleFlightTimeoutException(name, Duration.ofNanos(timeoutNanos));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException r) throw r;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for " + name + " load", e);
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> mine, Supplier<V> loader) {
+        loads.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** Loads run, calls that shared another caller's load, waiter timeouts and failed loads. */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("name", name);
+        m.put("inFlight", inFlight.size());
+        m.put("loads", loads.sum());
+        m.put("shared", shared.sum());
+        m.put("timeouts", timeouts.sum());
+        m.put("failures", failures.sum());
+        m.put("timeoutMs", TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+        return m;
+    }
+}
@@ -0,0 +1,27 @@
+package com.gradproject.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.stereotype.Component;
+
+/** The single-flight loaders in this instance, for the admin stats endpoint. */
+@Component
+public class SingleFlightRegistry {
+    private final List<SingleFlight<?, ?>> flights = new CopyOnWriteArrayList<>();
+
+    public <K, V> SingleFlight<K, V> create(String name, Duration timeout) {
+        SingleFlight<K, V> flight = new SingleFlight<>(name, timeout);
+        flights.add(flight);
+        return flight;
+    }
+
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (SingleFlight<?, ?> flight : flights) list.add(flight.stats());
+        return list;
+    }
+}
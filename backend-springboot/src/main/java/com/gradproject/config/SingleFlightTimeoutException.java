@@ -0,0 +1,12 @@
+package com.gradproject.config;
+
+import java.time.Duration;
+
+/** Another caller's in-flight load of the same key did not finish within the wait timeout. */
+public class SingleFlightTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SingleFlightTimeoutException(String name, Duration timeout) {
+        super("Shared '" + name + "' load not finished within " + timeout.toMillis() + "ms");
+    }
+}
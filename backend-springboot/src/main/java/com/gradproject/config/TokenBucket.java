@@ -0,0 +1,59 @@
+package com.gradproject.config;
+
+/** Refills continuously at {@code rate} per second up to {@code burst}. */
+final class TokenBucket {
+    private final double rate;
+    private final double burst;
+    private double tokens;
+    private long updated;
+
+    TokenBucket(double rate, double burst) {
+        this.rate = rate;
+        this.burst = burst;
+        this.tokens = burst;
+        this.updated = System.nanoTime();
+    }
+
+    /**
+     * Take {@code cost} tokens if at least {@code floor} remain afterwards. A cost above
+     * the burst size is charged as the whole burst, so it is never refused forever.
+     */
+    synchronized boolean tryTake(double cost, double floor) {
+        refill();
+        double charge = Math.min(cost, burst);
+        if (tokens - charge < floor) return false;
+        tokens -= charge;
+        return true;
+    }
+
+    synchronized void refund(double cost) {
+        tokens = Math.min(burst, tokens + Math.min(cost, burst));
+    }
+
+    /** Seconds until {@code cost} tokens (above {@code floor}) will be available. */
+    synchronized long secondsUntil(double cost, double floor) {
+        refill();
+        double missing = Math.min(cost, burst) + floor - tokens;
+        return missing <= 0 || rate <= 0 ? 1 : Math.max(1, (long) Math.ceil(missing / rate));
+    }
+
+    synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    synchronized boolean isFull() {
+        refill();
+        return tokens >= burst;
+    }
+
+    double burst() {
+        return burst;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - updated) / 1e9 * rate);
+        updated = now;
+    }
+}
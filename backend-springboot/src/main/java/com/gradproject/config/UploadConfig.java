@@ -2,8 +2,10 @@ package com.gradproject.config;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -13,7 +15,12 @@ public class UploadConfig implements WebMvcConfigurer {
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         Path uploadDir = Paths.get(System.getProperty("user.dir"), "uploads");
         String uploadPath = uploadDir.toFile().getAbsolutePath();
+        // Content-addressed thumbnails (see AvatarService): a name never changes content.
+        registry.addResourceHandler("/uploads/avatars/**")
+            .addResourceLocations("file:" + uploadPath + "/avatars/")
+            .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
         registry.addResourceHandler("/uploads/**")
-            .addResourceLocations("file:" + uploadPath + "/");
+            .addResourceLocations("file:" + uploadPath + "/")
+            .setCacheControl(CacheControl.maxAge(Duration.ofHours(1)));
     }
 }
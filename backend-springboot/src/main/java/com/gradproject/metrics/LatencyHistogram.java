@@ -0,0 +1,89 @@
+package com.gradproject.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency recorder with log-linear buckets: each power-of-two range of
+ * microseconds is split into {@value #SUB_BUCKETS} linear sub-buckets, so percentiles are
+ * accurate to within ~12%. Recording is a couple of atomic increments; safe from any thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BITS = 3;
+    private static final int RANGES = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(RANGES * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(index(nanos / 1000));
+        count.increment();
+        totalNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // retry
+        }
+    }
+
+    public long count() { return count.sum(); }
+
+    public long totalNanos() { return totalNanos.sum(); }
+
+    public long maxNanos() { return maxNanos.get(); }
+
+    /** Upper bound (in microseconds) of the bucket holding the given quantile. */
+    public double percentileMicros(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return upperBoundMicros(i);
+        }
+        return upperBoundMicros(snapshot.length - 1);
+    }
+
+    /** count, mean, p50, p90, p99, p999 and max, in milliseconds. */
+    public Map<String, Object> summary() {
+        long n = count();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("count", n);
+        m.put("meanMs", n == 0 ? 0 : totalNanos() / 1e6 / n);
+        m.put("p50Ms", percentileMicros(0.50) / 1000);
+        m.put("p90Ms", percentileMicros(0.90) / 1000);
+        m.put("p99Ms", percentileMicros(0.99) / 1000);
+        m.put("p999Ms", percentileMicros(0.999) / 1000);
+        m.put("maxMs", maxNanos() / 1e6);
+        return m;
+    }
+
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int range = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS + 1;
+        if (range >= RANGES) return RANGES * SUB_BUCKETS - 1;
+        int sub = (int) (micros >>> (range - 1)) & (SUB_BUCKETS - 1);
+        return range * SUB_BUCKETS + sub;
+    }
+
+    private static double upperBoundMicros(int index) {
+        int range = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (range == 0) return sub + 1;
+        long base = (long) SUB_BUCKETS << (range - 1);
+        long width = 1L << (range - 1);
+        return base + (sub + 1) * (double) width;
+    }
+}
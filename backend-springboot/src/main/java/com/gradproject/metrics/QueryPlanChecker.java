@@ -0,0 +1,163 @@
+package com.gradproject.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.gradproject.service.CourseService;
+import com.gradproject.service.PlanService;
+import com.gradproject.service.QuestionService;
+import com.gradproject.service.WrongQuestionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Guards the plans of the hot request-path statements. Each registered statement is
+ * EXPLAINed and flagged when it reads more than {@code plan-check.max-scan-rows} rows
+ * through a full table scan, a full index scan, a filesort or a temporary table.
+ * <p>
+ * Runs once at startup and from GET /api/admin/query-plans. With
+ * {@code plan-check.fail-on-violation=true} a violation fails startup, which is how the
+ * load-test harness uses it. On MySQL the row estimates come from EXPLAIN; H2 has none,
+ * so a scanned table is measured with COUNT(*) instead (fine for embedded test data).
+ */
+@Component
+public class QueryPlanChecker {
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanChecker.class);
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("/\\* [\\w\"]+\\.\"?(\\w+)\"?\\.tableScan");
+
+    /** The SQL is taken from the owning service, so the plan checked is the one served. */
+    static final List<HotStatement> HOT_STATEMENTS = List.of(
+        new HotStatement("QuestionService.listQuestions", QuestionService.listQuestionsSql(true), 1, 10),
+        new HotStatement("WrongQuestionService.create", WrongQuestionService.FIND_BY_QUESTION_ID_SQL, 1L, 1L),
+        new HotStatement("WrongQuestionService.listPaged", WrongQuestionService.listPagedSql(0, false), 1L, 10, 0),
+        new HotStatement("PlanService.listPlans", PlanService.listPlansSql(false, false), 1L),
+        new HotStatement("CourseService.findPopularByTypeIds", CourseService.popularByTypeIdsSql(3), 1, 2, 3, 10)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean onStartup;
+    private final boolean failOnViolation;
+    private final long maxScanRows;
+
+    public QueryPlanChecker(JdbcTemplate jdbcTemplate,
+                            @Value("${plan-check.on-startup:true}") boolean onStartup,
+                            @Value("${plan-check.fail-on-violation:false}") boolean failOnViolation,
+                            @Value("${plan-check.max-scan-rows:1000}") long maxScanRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.onStartup = onStartup;
+        this.failOnViolation = failOnViolation;
+        this.maxScanRows = maxScanRows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkOnStartup() {
+        if (!onStartup) return;
+        Map<String, Object> report;
+        try {
+            report = check();
+        } catch (DataAccessException e) {
+            log.warn("Query plan check skipped: {}", e.getMessage());
+            return;
+        }
+        List<String> violations = new ArrayList<>();
+        for (Object o : (List<?>) report.get("statements")) {
+            Map<?, ?> statement = (Map<?, ?>) o;
+            for (Object problem : (List<?>) statement.get("problems")) {
+                violations.add(statement.get("name") + ": " + problem);
+            }
+        }
+        if (violations.isEmpty()) {
+            log.info("Query plans OK for {} hot statements ({})", HOT_STATEMENTS.size(), report.get("database"));
+            return;
+        }
+        violations.forEach(v -> log.warn("Query plan regression: {}", v));
+        if (failOnViolation) {
+            throw new IllegalStateException("Query plan check failed: " + String.join("; ", violations));
+        }
+    }
+
+    /** EXPLAIN every hot statement and report the plan plus any problems found. */
+    public Map<String, Object> check() {
+        String database = jdbcTemplate.execute(
+            (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        List<Map<String, Object>> statements = new ArrayList<>();
+        int violations = 0;
+        for (HotStatement statement : HOT_STATEMENTS) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", statement.name());
+            List<String> problems = new ArrayList<>();
+            try {
+                if ("MySQL".equalsIgnoreCase(database)) {
+                    entry.put("plan", explainMySql(statement, problems));
+                } else if ("H2".equalsIgnoreCase(database)) {
+                    entry.put("plan", explainH2(statement, problems));
+                } else {
+                    entry.put("plan", "EXPLAIN not supported for " + database);
+                }
+            } catch (DataAccessException e) {
+                problems.add("explain failed: " + e.getMostSpecificCause().getMessage());
+            }
+            entry.put("problems", problems);
+            violations += problems.size();
+            statements.add(entry);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("database", database);
+        report.put("maxScanRows", maxScanRows);
+        report.put("violations", violations);
+        report.put("statements", statements);
+        return report;
+    }
+
+    private List<Map<String, Object>> explainMySql(HotStatement statement, List<String> problems) {
+        List<Map<String, Object>> plan = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("EXPLAIN " + statement.sql(), statement.args())) {
+            String table = String.valueOf(row.get("table"));
+            String type = row.get("type") == null ? "" : row.get("type").toString();
+            String extra = row.get("Extra") == null ? "" : row.get("Extra").toString();
+            long rows = row.get("rows") instanceof Number n ? n.longValue() : 0;
+
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("table", table);
+            step.put("type", type);
+            step.put("key", row.get("key"));
+            step.put("rows", rows);
+            step.put("extra", extra);
+            plan.add(step);
+
+            if (rows <= maxScanRows) continue;
+            if (type.equals("ALL")) problems.add("full scan of " + table + " (~" + rows + " rows)");
+            if (type.equals("index")) problems.add("full index scan of " + table + " (~" + rows + " rows)");
+            if (extra.contains("Using filesort")) problems.add("filesort on " + table + " (~" + rows + " rows)");
+            if (extra.contains("Using temporary")) problems.add("temporary table on " + table + " (~" + rows + " rows)");
+        }
+        return plan;
+    }
+
+    private String explainH2(HotStatement statement, List<String> problems) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + statement.sql(), String.class, statement.args());
+        Matcher m = H2_TABLE_SCAN.matcher(plan == null ? "" : plan);
+        while (m.find()) {
+            String table = m.group(1).toLowerCase(Locale.ROOT);
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+            if (rows != null && rows > maxScanRows) problems.add("full scan of " + table + " (" + rows + " rows)");
+        }
+        return plan;
+    }
+
+    /** A statement on the request path together with representative arguments. */
+    record HotStatement(String name, String sql, Object... args) {}
+}
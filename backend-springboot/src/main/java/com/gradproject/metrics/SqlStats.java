@@ -0,0 +1,215 @@
+package com.gradproject.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-statement SQL statistics. Statements are normalized (literals and IN lists folded,
+ * whitespace collapsed) so the same query with different values shares one entry. Each
+ * entry keeps call, error and row counters plus a {@link LatencyHistogram}; recording is
+ * lock-free. Executions slower than {@code sql.slow-threshold} are logged with the types
+ * of their bound parameters, never the values.
+ */
+@Component
+public class SqlStats {
+    private static final Logger log = LoggerFactory.getLogger(SqlStats.class);
+    private static final String OVERFLOW = "<other statements>";
+    private static final int NORMALIZED_CACHE_LIMIT = 10_000;
+
+    // String literals and IN / VALUES lists are scanned by hand: a regex with a repeated
+    // group recurses per repetition and overflows the stack on multi-thousand-row inserts.
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_START = Pattern.compile("(?i)\\bIN ?\\(");
+    private static final Pattern VALUES_START = Pattern.compile("(?i)\\bVALUES ?\\(");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+    private final long slowThresholdNanos;
+    private final int maxStatements;
+
+    public SqlStats(@Value("${sql.slow-threshold:200ms}") Duration slowThreshold,
+                    @Value("${sql.max-statements:2000}") int maxStatements) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxStatements = maxStatements;
+    }
+
+    /** Record one execution. {@code rows} is rows returned or affected, -1 if unknown. */
+    public void record(String sql, long nanos, long rows, boolean failed, List<String> parameterShapes) {
+        String key = normalize(sql);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxStatements) key = OVERFLOW;
+            entry = entries.computeIfAbsent(key, Entry::new);
+        }
+        entry.calls.increment();
+        if (failed) entry.errors.increment();
+        if (rows > 0) entry.rows.add(rows);
+        entry.latency.record(nanos);
+        if (nanos >= slowThresholdNanos) {
+            log.warn("Slow SQL ({} ms, rows={}, params={}{}): {}", TimeUnit.NANOSECONDS.toMillis(nanos), rows < 0 ? "?" : rows,
+                parameterShapes, failed ? ", failed" : "", key);
+        }
+    }
+
+    /**
+     * The top statements by {@code sort}: "total" (time), "calls", "rows", "p99" or "mean".
+     */
+    public List<Map<String, Object>> top(int limit, String sort) {
+        Comparator<Entry> order = switch (sort) {
+            case "calls" -> Comparator.comparingLong(e -> e.calls.sum());
+            case "rows" -> Comparator.comparingLong(e -> e.rows.sum());
+            case "p99" -> Comparator.comparingDouble(e -> e.latency.percentileMicros(0.99));
+            case "mean" -> Comparator.comparingDouble(e -> (double) e.latency.totalNanos() / Math.max(1, e.latency.count()));
+            default -> Comparator.comparingLong(e -> e.latency.totalNanos());
+        };
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(order.reversed());
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Entry entry : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("sql", entry.sql);
+            m.put("calls", entry.calls.sum());
+            m.put("errors", entry.errors.sum());
+            m.put("rows", entry.rows.sum());
+            m.put("totalMs", entry.latency.totalNanos() / 1e6);
+            m.putAll(entry.latency.summary());
+            m.remove("count");
+            result.add(m);
+        }
+        return result;
+    }
+
+    public void reset() {
+        entries.clear();
+    }
+
+    String normalize(String sql) {
+        String cached = normalized.get(sql);
+        if (cached != null) return cached;
+        String s = replaceStringLiterals(sql);
+        s = NUMBER_LITERAL.matcher(s).replaceAll("?");
+        s = WHITESPACE.matcher(s).replaceAll(" ").trim();
+        s = foldInLists(s);
+        s = foldValuesLists(s);
+        if (normalized.size() < NORMALIZED_CACHE_LIMIT) normalized.put(sql, s);
+        return s;
+    }
+
+    /** 'it''s' and 'a\'b' become ?. */
+    private static String replaceStringLiterals(String sql) {
+        if (sql.indexOf('\'') < 0) return sql;
+        StringBuilder out = new StringBuilder(sql.length());
+        int n = sql.length();
+        int i = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (c != '\'') {
+                out.append(c);
+                i++;
+                continue;
+            }
+            int j = i + 1;
+            while (j < n) {
+                char d = sql.charAt(j);
+                if (d == '\\') j += 2;
+                else if (d == '\'' && j + 1 < n && sql.charAt(j + 1) == '\'') j += 2;
+                else if (d == '\'') break;
+                else j++;
+            }
+            out.append('?');
+            i = j + 1;
+        }
+        return out.toString();
+    }
+
+    /** IN (?, ?, ?) becomes IN (?...). Expects collapsed whitespace. */
+    private static String foldInLists(String s) {
+        Matcher m = IN_START.matcher(s);
+        StringBuilder out = new StringBuilder(s.length());
+        int last = 0;
+        while (m.find()) {
+            if (m.start() < last) continue;
+            int i = m.end();
+            if (i < s.length() && s.charAt(i) == ' ') i++;
+            if (i >= s.length() || s.charAt(i) != '?') continue;
+            i++;
+            while (true) {
+                if (i < s.length() && s.charAt(i) == ' ') i++;
+                if (i >= s.length() || s.charAt(i) != ',') break;
+                i++;
+                if (i < s.length() && s.charAt(i) == ' ') i++;
+                if (i >= s.length() || s.charAt(i) != '?') break;
+                i++;
+            }
+            if (i >= s.length() || s.charAt(i) != ')') continue;
+            out.append(s, last, m.start()).append("IN (?...)");
+            last = i + 1;
+        }
+        return last == 0 ? s : out.append(s, last, s.length()).toString();
+    }
+
+    /** VALUES (?, ?), (?, ?), ... keeps the first row and becomes VALUES (?, ?), ... */
+    private static String foldValuesLists(String s) {
+        Matcher m = VALUES_START.matcher(s);
+        StringBuilder out = new StringBuilder(s.length());
+        int last = 0;
+        while (m.find()) {
+            if (m.start() < last) continue;
+            int firstEnd = tupleEnd(s, m.end() - 1);
+            if (firstEnd < 0) continue;
+            int end = firstEnd;
+            while (true) {
+                int i = end;
+                if (i < s.length() && s.charAt(i) == ' ') i++;
+                if (i >= s.length() || s.charAt(i) != ',') break;
+                i++;
+                if (i < s.length() && s.charAt(i) == ' ') i++;
+                int next = tupleEnd(s, i);
+                if (next < 0) break;
+                end = next;
+            }
+            if (end == firstEnd) continue;
+            out.append(s, last, firstEnd).append(", ...");
+            last = end;
+        }
+        return last == 0 ? s : out.append(s, last, s.length()).toString();
+    }
+
+    /** Index after the ')' closing a parenthesised group without nested parentheses at {@code open}, or -1. */
+    private static int tupleEnd(String s, int open) {
+        if (open >= s.length() || s.charAt(open) != '(') return -1;
+        for (int i = open + 1; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ')') return i + 1;
+            if (c == '(') return -1;
+        }
+        return -1;
+    }
+
+    private static final class Entry {
+        final String sql;
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        Entry(String sql) {
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.gradproject.model;
+
+import java.util.List;
+
+/**
+ * Body of POST /api/admin/recommendations/bulk. Exactly one of userIds, majorTypeId
+ * (every user with that major) or all=true selects the users.
+ */
+public class BulkRecommendationRequest {
+    private List<Long> userIds;
+    private Integer majorTypeId;
+    private boolean all;
+    private Integer topN;
+    private Integer concurrency;
+
+    public List<Long> getUserIds() { return userIds; }
+    public void setUserIds(List<Long> userIds) { this.userIds = userIds; }
+    public Integer getMajorTypeId() { return majorTypeId; }
+    public void setMajorTypeId(Integer majorTypeId) { this.majorTypeId = majorTypeId; }
+    public boolean isAll() { return all; }
+    public void setAll(boolean all) { this.all = all; }
+    public Integer getTopN() { return topN; }
+    public void setTopN(Integer topN) { this.topN = topN; }
+    public Integer getConcurrency() { return concurrency; }
+    public void setConcurrency(Integer concurrency) { this.concurrency = concurrency; }
+}
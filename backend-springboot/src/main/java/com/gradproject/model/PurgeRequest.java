@@ -0,0 +1,15 @@
+package com.gradproject.model;
+
+/** Body of POST /api/admin/purge-jobs: purge accounts with no activity for inactiveDays. */
+public class PurgeRequest {
+    private int inactiveDays;
+    private Integer limit;
+    private boolean dryRun;
+
+    public int getInactiveDays() { return inactiveDays; }
+    public void setInactiveDays(int inactiveDays) { this.inactiveDays = inactiveDays; }
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+    public boolean isDryRun() { return dryRun; }
+    public void setDryRun(boolean dryRun) { this.dryRun = dryRun; }
+}
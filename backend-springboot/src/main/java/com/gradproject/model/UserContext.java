@@ -0,0 +1,81 @@
+package com.gradproject.model;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Per-user request context: the mapped stu_id and its {@link com.gradproject.service.StudentIdDictionary}
+ * index, the user's major and the
+ * category → type_id sets resolved from it. Immutable; cached by user id.
+ */
+public class UserContext {
+    private final long userId;
+    private final String stuId;
+    private final int studentIndex;
+    private final Integer majorTypeId;
+    private final String majorTypeName;
+    private final Set<Integer> mathTypeIds;
+    private final Set<Integer> englishTypeIds;
+    private final Set<Integer> politicsTypeIds;
+    private final Set<Integer> majorTypeIds;
+    private final Set<Integer> allowedTypeIds;
+    private final Set<String> allowedTypeNames;
+
+    public UserContext(long userId, String stuId, int studentIndex, Integer majorTypeId, String majorTypeName,
+                       Set<Integer> mathTypeIds, Set<Integer> englishTypeIds,
+                       Set<Integer> politicsTypeIds, Collection<String> categoryKeywords) {
+        this.userId = userId;
+        this.stuId = stuId;
+        this.studentIndex = studentIndex;
+        this.majorTypeId = majorTypeId;
+        this.majorTypeName = majorTypeName;
+        this.mathTypeIds = Set.copyOf(mathTypeIds);
+        this.englishTypeIds = Set.copyOf(englishTypeIds);
+        this.politicsTypeIds = Set.copyOf(politicsTypeIds);
+        this.majorTypeIds = majorTypeId == null ? Set.of() : Set.of(majorTypeId);
+
+        Set<Integer> ids = new HashSet<>();
+        ids.addAll(this.mathTypeIds);
+        ids.addAll(this.englishTypeIds);
+        ids.addAll(this.politicsTypeIds);
+        ids.addAll(this.majorTypeIds);
+        this.allowedTypeIds = Set.copyOf(ids);
+
+        Set<String> names = new LinkedHashSet<>(categoryKeywords);
+        if (majorTypeName != null && !majorTypeName.isBlank()) names.add(majorTypeName);
+        this.allowedTypeNames = Set.copyOf(names);
+    }
+
+    public long getUserId() { return userId; }
+    public String getStuId() { return stuId; }
+
+    /** Dense index of the stu_id, or -1 when there is no mapping. */
+    public int getStudentIndex() { return studentIndex; }
+
+    public Integer getMajorTypeId() { return majorTypeId; }
+    public String getMajorTypeName() { return majorTypeName; }
+    public Set<Integer> getMathTypeIds() { return mathTypeIds; }
+    public Set<Integer> getEnglishTypeIds() { return englishTypeIds; }
+    public Set<Integer> getPoliticsTypeIds() { return politicsTypeIds; }
+    public Set<Integer> getMajorTypeIds() { return majorTypeIds; }
+
+    /** Union of all category type_ids plus the major: what recommendations may contain. */
+    public Set<Integer> getAllowedTypeIds() { return allowedTypeIds; }
+
+    /** Category keywords plus the major type name, for matching by type_name. */
+    public Set<String> getAllowedTypeNames() { return allowedTypeNames; }
+
+    /**
+     * Type ids for a frontend category (major / math / english / politics).
+     * Unknown categories resolve to an empty set.
+     */
+    public Set<Integer> typeIdsFor(String category) {
+        if ("major".equalsIgnoreCase(category)) return majorTypeIds;
+        if ("math".equalsIgnoreCase(category)) return mathTypeIds;
+        if ("english".equalsIgnoreCase(category)) return englishTypeIds;
+        if ("politics".equalsIgnoreCase(category)) return politicsTypeIds;
+        return Set.of();
+    }
+}
@@ -4,6 +4,9 @@ import java.sql.Date;
 import java.time.LocalDate;
 import java.util.*;
 
+import com.gradproject.config.ReplicaRead;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -49,6 +52,7 @@ public class AdminService {
 
     // ==================== 用户管理 ====================
 
+    @ReplicaRead
     public Map<String, Object> listUsers(int page, int size, String keyword) {
         int offset = (page - 1) * size;
         String where = "";
@@ -83,20 +87,18 @@ public class AdminService {
         return buildPage(list, total, page, size);
     }
 
+    @Caching(evict = {
+        @CacheEvict(value = "users", key = "#userId"),
+        @CacheEvict(value = "userContext", key = "#userId")
+    })
     public void updateUser(long userId, String username, Integer majorTypeId) {
         jdbcTemplate.update("UPDATE users SET username = ?, major_type_id = ? WHERE id = ?",
             username, majorTypeId, userId);
     }
 
-    public void deleteUser(long userId) {
-        jdbcTemplate.update("DELETE FROM wrong_questions WHERE user_id = ?", userId);
-        jdbcTemplate.update("DELETE FROM study_plans WHERE user_id = ?", userId);
-        jdbcTemplate.update("DELETE FROM user_student_map WHERE user_id = ?", userId);
-        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
-    }
-
     // ==================== 题库管理 ====================
 
+    @ReplicaRead
     public Map<String, Object> listAllQuestions(int page, int size, String keyword) {
         int offset = (page - 1) * size;
         String where = "";
@@ -154,6 +156,7 @@ public class AdminService {
 
     // ==================== 错题管理 ====================
 
+    @ReplicaRead
     public Map<String, Object> listAllWrongQuestions(int page, int size, String keyword) {
         int offset = (page - 1) * size;
         String where = "";
@@ -201,6 +204,7 @@ public class AdminService {
 
     // ==================== 学习计划管理 ====================
 
+    @ReplicaRead
     public Map<String, Object> listAllPlans(int page, int size, String keyword) {
         int offset = (page - 1) * size;
         String where = "";
@@ -254,6 +258,7 @@ public class AdminService {
 
     // ==================== 课程链接管理 ====================
 
+    @ReplicaRead
     public Map<String, Object> listCoursesAdmin(int page, int size, String keyword) {
         int offset = (page - 1) * size;
         String where = "";
@@ -288,6 +293,7 @@ public class AdminService {
         return buildPage(list, total, page, size);
     }
 
+    @CacheEvict(value = CatalogResponseCache.CACHE_NAME, allEntries = true)
     public void updateCourseUrl(int courseIndex, String url) {
         jdbcTemplate.update("UPDATE courses SET url = ? WHERE course_index = ?", url, courseIndex);
     }
@@ -7,6 +7,7 @@ import java.util.Optional;
 import com.gradproject.model.User;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -14,10 +15,12 @@ import org.springframework.stereotype.Service;
 @Service
 public class AuthService {
     private final JdbcTemplate jdbcTemplate;
+    private final StudentIdDictionary studentIds;
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
-    public AuthService(JdbcTemplate jdbcTemplate) {
+    public AuthService(JdbcTemplate jdbcTemplate, StudentIdDictionary studentIds) {
         this.jdbcTemplate = jdbcTemplate;
+        this.studentIds = studentIds;
     }
 
     public Optional<User> register(String username, String password) {
@@ -39,7 +42,7 @@ public class AuthService {
     /**
      * Assign an unused stu_id to the given user.
      * Scans from stu_id=1 upward; finds the first integer NOT present in the students table,
-     * inserts it into students, then maps it to the user.
+     * inserts it into students, then maps it to the user and gives it a dense index.
      */
     public void assignStudentId(long userId) {
         // Check if already mapped
@@ -47,25 +50,27 @@ public class AuthService {
             "SELECT COUNT(*) FROM user_student_map WHERE user_id = ?", Integer.class, userId);
         if (mapped != null && mapped > 0) return;
 
-        // Get all existing stu_ids as a set
+        // Get all existing stu_ids and pick the first free integer
         List<String> existingIds = jdbcTemplate.queryForList(
             "SELECT stu_id FROM students", String.class);
-        java.util.Set<String> existingSet = new java.util.HashSet<>(existingIds);
-
-        // Find first integer starting from 1 that is NOT in the students table
-        String chosen = null;
-        for (int n = 1; ; n++) {
-            String candidate = String.valueOf(n);
-            if (!existingSet.contains(candidate)) {
-                chosen = candidate;
-                break;
-            }
-        }
+        String chosen = firstUnusedStudentId(existingIds);
 
         // Insert the new stu_id into students table
         jdbcTemplate.update("INSERT INTO students (stu_id) VALUES (?)", chosen);
         // Map user to this stu_id
         jdbcTemplate.update("INSERT INTO user_student_map (user_id, stu_id) VALUES (?, ?)", userId, chosen);
+        studentIds.intern(chosen);
+    }
+
+    /**
+     * Find the first integer starting from 1 that is NOT among the existing stu_ids.
+     */
+    public static String firstUnusedStudentId(List<String> existingIds) {
+        java.util.Set<String> existingSet = new java.util.HashSet<>(existingIds);
+        for (int n = 1; ; n++) {
+            String candidate = String.valueOf(n);
+            if (!existingSet.contains(candidate)) return candidate;
+        }
     }
 
     /**
@@ -128,13 +133,19 @@ public class AuthService {
         );
     }
 
-    @CacheEvict(value = "users", key = "#userId")
+    @Caching(evict = {
+        @CacheEvict(value = "users", key = "#userId"),
+        @CacheEvict(value = "userContext", key = "#userId")
+    })
     public Optional<User> updateMajorType(long userId, Integer majorTypeId) {
         jdbcTemplate.update("UPDATE users SET major_type_id = ? WHERE id = ?", majorTypeId, userId);
         return getUserByIdDirect(userId);
     }
 
-    @CacheEvict(value = "users", key = "#userId")
+    @Caching(evict = {
+        @CacheEvict(value = "users", key = "#userId"),
+        @CacheEvict(value = "userContext", key = "#userId")
+    })
     public Optional<User> updateProfile(long userId, String username, Integer majorTypeId) {
         if (username != null && !username.isBlank()) {
             Integer exists = jdbcTemplate.queryForObject(
@@ -148,7 +159,7 @@ public class AuthService {
         return getUserByIdDirect(userId);
     }
 
-    @Cacheable(value = "users", key = "#userId")
+    @Cacheable(value = "users", sync = true, key = "#userId")
     public Optional<User> getUserById(long userId) {
         return getUserByIdDirect(userId);
     }
@@ -0,0 +1,301 @@
+package com.gradproject.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Avatar uploads: the request only streams the upload to uploads/tmp while hashing it;
+ * a small worker pool decodes the image, crops it square and writes a fixed-size JPEG
+ * thumbnail to uploads/avatars/{sha256}-{size}.jpg. Identical uploads share files, and
+ * the names never change content, so they are served as immutable (see UploadConfig).
+ * Files no user points at any more are removed by {@link #collectGarbage()}. Job status
+ * is kept in the {@link JobStore}, so any instance can answer the client's poll.
+ */
+@Service
+public class AvatarService {
+    private static final Logger log = LoggerFactory.getLogger(AvatarService.class);
+
+    static final String JOB_KIND = "avatar";
+    /** Thumbnail edge length; users.avatar points at it. */
+    public static final int SIZE = 256;
+    public static final String URL_PREFIX = "/uploads/avatars/";
+    private static final int MAX_SOURCE_PIXELS = 40_000_000;
+    /** Unreferenced files younger than this may belong to an upload still in flight. */
+    private static final Duration GC_GRACE = Duration.ofHours(1);
+
+    private final AuthService authService;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobStore jobStore;
+    private final Path uploadDir = Paths.get(System.getProperty("user.dir"), "uploads");
+    private final Path tmpDir = uploadDir.resolve("tmp");
+    private final Path avatarDir = uploadDir.resolve("avatars");
+    private final ThreadPoolExecutor workers;
+
+    public AvatarService(AuthService authService, JdbcTemplate jdbcTemplate, JobStore jobStore,
+                         @Value("${avatar.workers:2}") int workerCount,
+                         @Value("${avatar.queue-capacity:64}") int queueCapacity) throws IOException {
+        this.authService = authService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobStore = jobStore;
+        Files.createDirectories(tmpDir);
+        Files.createDirectories(avatarDir);
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread t = new Thread(r, "avatar-" + threadIds.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Store the upload and queue it for processing. When the same image was processed
+     * before, the user is switched to it immediately and the job is already "done".
+     *
+     * @throws RejectedExecutionException when the processing queue is full
+     */
+    public Map<String, Object> submit(long userId, MultipartFile file) throws IOException {
+        Path upload = tmpDir.resolve(UUID.randomUUID() + ".upload");
+        String hash;
+        try (InputStream in = file.getInputStream();
+             DigestOutputStream out = new DigestOutputStream(Files.newOutputStream(upload), sha256())) {
+            in.transferTo(out);
+            hash = HexFormat.of().formatHex(out.getMessageDigest().digest());
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        Path thumbnail = avatarDir.resolve(fileName(hash));
+        if (Files.exists(thumbnail)) {
+            Files.deleteIfExists(upload);
+            // Restart the GC grace period: the file may have been unreferenced until now.
+            Files.setLastModifiedTime(thumbnail, FileTime.fromMillis(System.currentTimeMillis()));
+            return finish(jobId, userId, hash);
+        }
+        Map<String, Object> processing = status(jobId, "processing", null, null);
+        jobStore.save(jobId, JOB_KIND, processing);
+        try {
+            workers.execute(() -> process(jobId, userId, hash, upload));
+        } catch (RejectedExecutionException e) {
+            save(jobId, status(jobId, "failed", null, "avatar_queue_full"));
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+        return processing;
+    }
+
+    public Optional<Map<String, Object>> getJob(String jobId) {
+        return jobStore.find(jobId, JOB_KIND);
+    }
+
+    private void process(String jobId, long userId, String hash, Path upload) {
+        try {
+            BufferedImage source = decode(upload);
+            if (source == null) {
+                save(jobId, status(jobId, "failed", null, "unsupported_image"));
+                return;
+            }
+            Path target = avatarDir.resolve(fileName(hash));
+            if (!Files.exists(target)) {
+                Path partial = tmpDir.resolve(UUID.randomUUID() + ".jpg");
+                writeJpeg(thumbnail(source, SIZE), partial);
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            finish(jobId, userId, hash);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Avatar processing failed for user {}: {}", userId, e.getMessage());
+            save(jobId, status(jobId, "failed", null, "processing_failed"));
+        } finally {
+            try {
+                Files.deleteIfExists(upload);
+            } catch (IOException ignored) {
+                // picked up by collectGarbage
+            }
+        }
+    }
+
+    private Map<String, Object> finish(String jobId, long userId, String hash) {
+        String url = URL_PREFIX + fileName(hash);
+        Map<String, Object> done = authService.updateAvatar(userId, url).isPresent()
+            ? status(jobId, "done", url, null)
+            : status(jobId, "failed", null, "user_not_found");
+        save(jobId, done);
+        return done;
+    }
+
+    /** Record a final status; a failure to record it must not hide the result from the log. */
+    private void save(String jobId, Map<String, Object> status) {
+        try {
+            jobStore.save(jobId, JOB_KIND, status);
+        } catch (RuntimeException e) {
+            log.warn("Could not record avatar job {} as {}: {}", jobId, status.get("status"), e.getMessage());
+        }
+    }
+
+    /**
+     * Decode with source subsampling so a large photo is never fully expanded in memory;
+     * images beyond {@link #MAX_SOURCE_PIXELS} are refused outright.
+     */
+    private static BufferedImage decode(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) return null;
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width, height) / (SIZE * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** Center-crop to a square and scale to size x size on a white background. */
+    private static BufferedImage thumbnail(BufferedImage source, int size) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - side) / 2;
+        int y = (source.getHeight() - side) / 2;
+        BufferedImage out = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, size, size);
+            g.drawImage(source, 0, 0, size, size, x, y, x + side, y + side, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (OutputStream os = Files.newOutputStream(target);
+             ImageOutputStream out = ImageIO.createImageOutputStream(os)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.85f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Delete avatar files (current and legacy timestamped uploads) that no user
+     * references, plus abandoned temp files, once they are past the grace period.
+     */
+    @Scheduled(fixedDelayString = "${avatar.gc-interval:PT1H}", initialDelayString = "PT5M")
+    public void collectGarbage() {
+        Set<String> referenced = new HashSet<>();
+        jdbcTemplate.query("SELECT avatar FROM users WHERE avatar LIKE '/uploads/%'", rs -> {
+            String path = rs.getString(1);
+            referenced.add(path.substring(path.lastIndexOf('/') + 1));
+        });
+        long cutoff = System.currentTimeMillis() - GC_GRACE.toMillis();
+        int removed = 0;
+        // Also drops the 64px thumbnails earlier versions wrote next to each avatar.
+        removed += sweep(avatarDir, "*.jpg", cutoff, referenced::contains);
+        removed += sweep(uploadDir, "user_*", cutoff, referenced::contains);
+        removed += sweep(tmpDir, "*", cutoff, name -> false);
+        if (removed > 0) log.info("Removed {} unreferenced avatar files", removed);
+    }
+
+    private static int sweep(Path dir, String glob, long cutoff, Predicate<String> keep) {
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+            for (Path file : files) {
+                if (!Files.isRegularFile(file) || keep.test(file.getFileName().toString())) continue;
+                if (Files.getLastModifiedTime(file).toMillis() > cutoff) continue;
+                Files.deleteIfExists(file);
+                removed++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return removed;
+    }
+
+    private static String fileName(String hash) {
+        return hash + "-" + SIZE + ".jpg";
+    }
+
+    private static Map<String, Object> status(String jobId, String status, String avatar, String error) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("uploadId", jobId);
+        m.put("status", status);
+        if (avatar != null) m.put("avatar", avatar);
+        if (error != null) m.put("error", error);
+        return m;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.gradproject.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gradproject.config.BulkheadFullException;
+import com.gradproject.config.SingleFlightTimeoutException;
+import com.gradproject.model.BulkRecommendationRequest;
+import com.gradproject.model.UserContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Recommendations for many users in one call, written as NDJSON (one JSON object per line)
+ * in completion order. Users are loaded with one query per chunk and the category type_ids
+ * are resolved once for the whole job; each user then goes through the same
+ * {@link RecommendationService} chain as GET /api/recommendations. At most
+ * {@code concurrency} users are in flight and each line is written as soon as it is
+ * ready, so memory does not grow with the number of users.
+ */
+@Service
+public class BulkRecommendationService {
+    private static final int CHUNK = 1000;
+    private static final String USERS_SQL = """
+        SELECT u.id, u.major_type_id, MIN(m.stu_id) AS stu_id
+        FROM users u LEFT JOIN user_student_map m ON m.user_id = u.id
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuthService authService;
+    private final UserContextService userContextService;
+    private final RecommendationService recommendationService;
+    private final ObjectMapper objectMapper;
+    private final int defaultConcurrency;
+    private final int maxConcurrency;
+    private final int maxUsers;
+    private final int maxTopN;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BulkRecommendationService(JdbcTemplate jdbcTemplate, AuthService authService,
+                                     UserContextService userContextService,
+                                     RecommendationService recommendationService, ObjectMapper objectMapper,
+                                     @Value("${bulk-recommendations.concurrency:8}") int defaultConcurrency,
+                                     @Value("${bulk-recommendations.max-concurrency:32}") int maxConcurrency,
+                                     @Value("${bulk-recommendations.max-users:20000}") int maxUsers,
+                                     @Value("${bulk-recommendations.max-top-n:50}") int maxTopN) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.authService = authService;
+        this.userContextService = userContextService;
+        this.recommendationService = recommendationService;
+        this.objectMapper = objectMapper;
+        this.defaultConcurrency = defaultConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.maxUsers = maxUsers;
+        this.maxTopN = maxTopN;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record Target(long userId, Integer majorTypeId, String stuId) {}
+
+    /** A validated request with its users loaded; {@code missing} are ids with no user row. */
+    public record Job(List<Target> targets, List<Long> missing, int topN, int concurrency) {}
+
+    /**
+     * Validate the request and load its users.
+     *
+     * @throws IllegalArgumentException when the selection is missing, ambiguous or too large
+     */
+    public Job prepare(BulkRecommendationRequest request) {
+        boolean byIds = request.getUserIds() != null && !request.getUserIds().isEmpty();
+        boolean byMajor = request.getMajorTypeId() != null;
+        int selectors = (byIds ? 1 : 0) + (byMajor ? 1 : 0) + (request.isAll() ? 1 : 0);
+        if (selectors != 1) throw new IllegalArgumentException("give exactly one of userIds, majorTypeId or all");
+        int topN = request.getTopN() == null ? 10 : request.getTopN();
+        if (topN < 1 || topN > maxTopN) throw new IllegalArgumentException("topN must be between 1 and " + maxTopN);
+        int concurrency = request.getConcurrency() == null ? defaultConcurrency
+            : Math.max(1, Math.min(request.getConcurrency(), maxConcurrency));
+
+        List<Target> targets = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        if (byIds) {
+            Set<Long> ids = new LinkedHashSet<>(request.getUserIds());
+            if (ids.size() > maxUsers) throw new IllegalArgumentException("at most " + maxUsers + " users per call");
+            List<Long> all = new ArrayList<>(ids);
+            for (int from = 0; from < all.size(); from += CHUNK) {
+                List<Long> chunk = all.subList(from, Math.min(from + CHUNK, all.size()));
+                String placeholders = String.join(",", chunk.stream().map(id -> "?").toList());
+                targets.addAll(queryTargets(" WHERE u.id IN (" + placeholders + ")", "", chunk.toArray()));
+            }
+            Set<Long> found = new HashSet<>();
+            for (Target t : targets) found.add(t.userId());
+            for (Long id : all) if (!found.contains(id)) missing.add(id);
+        } else {
+            // One row past the cap is enough to refuse the call without loading every user.
+            String limit = " LIMIT " + (maxUsers + 1);
+            targets = byMajor
+                ? queryTargets(" WHERE u.major_type_id = ?", limit, request.getMajorTypeId())
+                : queryTargets("", limit);
+            if (targets.size() > maxUsers) throw new IllegalArgumentException("at most " + maxUsers + " users per call");
+        }
+        return new Job(targets, missing, topN, concurrency);
+    }
+
+    private List<Target> queryTargets(String where, String limit, Object... params) {
+        return jdbcTemplate.query(USERS_SQL + where + " GROUP BY u.id, u.major_type_id ORDER BY u.id" + limit,
+            (rs, rowNum) -> new Target(rs.getLong("id"), (Integer) rs.getObject("major_type_id"), rs.getString("stu_id")),
+            params);
+    }
+
+    /**
+     * Write one line per user ({userId, stuId, recommendations} or {userId, error}) as
+     * results complete, then a final {summary} line. Stops early if the client goes away.
+     */
+    public void stream(Job job, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        UserContextService.Categories categories = userContextService.resolveCategories();
+        for (Long id : job.missing()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("userId", id);
+            line.put("error", "user_not_found");
+            writeLine(out, line);
+        }
+
+        CompletionService<Map<String, Object>> completed = new ExecutorCompletionService<>(executor);
+        Set<Future<Map<String, Object>>> running = new HashSet<>();
+        Iterator<Target> next = job.targets().iterator();
+        int ok = 0;
+        int failed = 0;
+        try {
+            while (next.hasNext() || !running.isEmpty()) {
+                while (running.size() < job.concurrency() && next.hasNext()) {
+                    Target target = next.next();
+                    running.add(completed.submit(() -> recommend(target, categories, job.topN())));
+                }
+                Future<Map<String, Object>> done = completed.take();
+                running.remove(done);
+                Map<String, Object> line = done.get();
+                if (line.containsKey("error")) failed++;
+                else ok++;
+                writeLine(out, line);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            for (Future<?> f : running) f.cancel(true);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("users", job.targets().size() + job.missing().size());
+        summary.put("ok", ok);
+        summary.put("errors", failed + job.missing().size());
+        summary.put("tookMs", (System.nanoTime() - start) / 1_000_000);
+        writeLine(out, Map.of("summary", summary));
+    }
+
+    private Map<String, Object> recommend(Target target, UserContextService.Categories categories, int topN) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("userId", target.userId());
+        try {
+            String stuId = target.stuId() != null ? target.stuId() : authService.ensureMapping(target.userId());
+            UserContext context = userContextService.contextFor(target.userId(), stuId, target.majorTypeId(), categories);
+            line.put("stuId", stuId);
+            line.put("recommendations", recommendationService.recommend(context, topN).get("recommendations"));
+        } catch (BulkheadFullException | SingleFlightTimeoutException e) {
+            line.put("error", "recommender_busy");
+        } catch (RuntimeException e) {
+            line.put("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        return line;
+    }
+
+    /** One JSON value and a newline, flushed. */
+    public void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+        out.flush();
+    }
+}
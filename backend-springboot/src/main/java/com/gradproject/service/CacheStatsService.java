@@ -0,0 +1,58 @@
+package com.gradproject.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.gradproject.config.CachePolicyProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+@Service
+public class CacheStatsService {
+    private final CacheManager cacheManager;
+    private final CachePolicyProperties properties;
+
+    public CacheStatsService(CacheManager cacheManager, CachePolicyProperties properties) {
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+    }
+
+    /**
+     * Hit / miss / eviction / load statistics for every cache, sorted by name.
+     * Counters are cumulative since startup.
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (String name : new TreeSet<>(cacheManager.getCacheNames())) {
+            org.springframework.cache.Cache springCache = cacheManager.getCache(name);
+            if (springCache == null || !(springCache.getNativeCache() instanceof Cache<?, ?> cache)) continue;
+            CacheStats stats = cache.stats();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("name", name);
+            m.put("policy", properties.specFor(name));
+            m.put("estimatedSize", cache.estimatedSize());
+            cache.policy().eviction().ifPresent(eviction -> {
+                m.put("maximum", eviction.getMaximum());
+                eviction.weightedSize().ifPresent(weight -> m.put("weightedSize", weight));
+            });
+            m.put("requestCount", stats.requestCount());
+            m.put("hitCount", stats.hitCount());
+            m.put("missCount", stats.missCount());
+            m.put("hitRate", stats.hitRate());
+            m.put("evictionCount", stats.evictionCount());
+            m.put("evictionWeight", stats.evictionWeight());
+            m.put("loadSuccessCount", stats.loadSuccessCount());
+            m.put("loadFailureCount", stats.loadFailureCount());
+            m.put("totalLoadTimeMs", stats.totalLoadTime() / 1_000_000.0);
+            m.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+            result.add(m);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+package com.gradproject.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Pre-serialized catalog responses. Each body is stored once as JSON and once gzipped,
+ * with a content-hash ETag, in the "responseBodies" cache; a hit is a byte copy or an
+ * empty 304. Entries are dropped by {@link AdminService#updateCourseUrl}.
+ * <p>
+ * Only the bounded forms of the catalog are cached (no free-text search or exclude list, at
+ * most {@code catalog-cache.max-rows} rows, the first {@code catalog-cache.max-page} pages), so
+ * one-off searches neither pay for serialization, gzip and hashing nor push the hot
+ * bodies out of the cache. Callers serve the other forms directly.
+ */
+@Service
+public class CatalogResponseCache {
+    public static final String CACHE_NAME = "responseBodies";
+
+    private final Cache cache;
+    private final ObjectMapper objectMapper;
+    private final int maxRows;
+    private final int maxPage;
+
+    public CatalogResponseCache(CacheManager cacheManager, ObjectMapper objectMapper,
+                                @Value("${catalog-cache.max-rows:200}") int maxRows,
+                                @Value("${catalog-cache.max-page:10}") int maxPage) {
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        this.objectMapper = objectMapper;
+        this.maxRows = maxRows;
+        this.maxPage = maxPage;
+    }
+
+    /** Whether a listing of {@code rows} rows on {@code page} (1-based) gets a cache entry. */
+    public boolean cacheable(int page, int rows) {
+        return page >= 1 && page <= maxPage && rows >= 1 && rows <= maxRows;
+    }
+
+    /**
+     * A cache key from {@code path} and name/value pairs, each URL-encoded, so a value
+     * containing '&' or '=' cannot imitate another parameter.
+     */
+    public static String key(String path, Object... namesAndValues) {
+        StringBuilder sb = new StringBuilder(path).append('?');
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            if (i > 0) sb.append('&');
+            Object value = namesAndValues[i + 1];
+            sb.append(namesAndValues[i]).append('=')
+                .append(value == null ? "" : URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Serve the cached body for {@code key}, building it from {@code loader} on a miss.
+     * Returns 304 when If-None-Match carries the current ETag of either encoding.
+     */
+    public ResponseEntity<byte[]> serve(String key, HttpHeaders requestHeaders, Supplier<Object> loader) {
+        Body body = cache.get(key, () -> render(loader.get()));
+        boolean gzip = acceptsGzip(requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        String etag = gzip ? body.gzipEtag() : body.etag();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (matches(requestHeaders.getIfNoneMatch(), body)) {
+            return ResponseEntity.status(304).headers(headers).build();
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzip) headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return ResponseEntity.ok().headers(headers).body(gzip ? body.gzip() : body.json());
+    }
+
+    private Body render(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 16);
+            return new Body(json, gzip(json), "\"" + hash + "\"", "\"" + hash + "-gz\"");
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, Body body) {
+        for (String tag : ifNoneMatch) {
+            if (tag.equals("*") || tag.equals(body.etag()) || tag.equals(body.gzipEtag())) return true;
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String c = coding.trim().toLowerCase();
+            if (c.equals("gzip") || (c.startsWith("gzip;") && !c.replace(" ", "").endsWith("q=0"))) return true;
+        }
+        return false;
+    }
+
+    /** Both encodings of one response; strong ETags differ per encoding. */
+    record Body(byte[] json, byte[] gzip, String etag, String gzipEtag) {}
+}
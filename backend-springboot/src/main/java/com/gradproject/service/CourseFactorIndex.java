@@ -0,0 +1,247 @@
+package com.gradproject.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Candidate retrieval over the recommender's matrix-factorisation model: an HNSW graph of
+ * the course factor vectors, searched with a student's factor vector for the courses of
+ * highest predicted score, optionally limited to some type_ids.
+ * <p>
+ * backend-flask writes the factors next to the interaction snapshot whenever it retrains
+ * ({@code mf.meta}, {@code mf_items.*}, {@code mf_users.*}, see write_factors in
+ * snapshot.py). A new model id is picked up by polling, the graph is built on a thread of
+ * its own and the finished {@link Model} replaces the old one in a single write, so
+ * searches never wait for a build and never see half of one.
+ */
+@Service
+public class CourseFactorIndex {
+    private static final Logger log = LoggerFactory.getLogger(CourseFactorIndex.class);
+    private static final String FORMAT_VERSION = "1";
+    private static final String COURSES_SQL = """
+        SELECT c.course_index, c.name, c.type_id, t.type_name
+        FROM courses c LEFT JOIN course_types t ON c.type_id = t.type_id
+        """;
+
+    private final StudentIdDictionary studentIds;
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final boolean enabled;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "factor-index-build");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    private volatile Model model;
+
+    public CourseFactorIndex(StudentIdDictionary studentIds, JdbcTemplate jdbcTemplate,
+                             @Value("${snapshot.directory:../data/snapshot}") String directory,
+                             @Value("${factor-index.enabled:true}") boolean enabled,
+                             @Value("${factor-index.m:16}") int m,
+                             @Value("${factor-index.ef-construction:100}") int efConstruction,
+                             @Value("${factor-index.ef-search:128}") int efSearch) {
+        this.studentIds = studentIds;
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.enabled = enabled;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * One trained model: the graph over its courses, their course_index and catalog data by
+     * node, and the student vectors by {@link StudentIdDictionary} index (row -1 if the
+     * model has not seen the student).
+     */
+    private record Model(long id, int factors, HnswIndex graph, int[] courseIndexes, int[] typeIds,
+                         String[] names, String[] typeNames, float[] studentVectors, int[] studentRows, Instant builtAt, long buildMs) {}
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /** Queue a rebuild when backend-flask has published a model other than the current one. */
+    @Scheduled(fixedDelayString = "${factor-index.refresh-interval:PT1M}", initialDelayString = "PT15S")
+    public void scheduledRefresh() {
+        if (!enabled || building.get()) return;
+        try {
+            Properties meta = readMeta();
+            if (meta == null) return;
+            long id = Long.parseLong(meta.getProperty("model"));
+            Model current = model;
+            if (current != null && current.id() == id) return;
+            if (building.compareAndSet(false, true)) builder.execute(this::rebuild);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Factor index check failed: {}", e.toString());
+        }
+    }
+
+    /**
+     * Courses of highest predicted score for the student among {@code allowedTypeIds}
+     * (all types when null), leaving out {@code exclude}. Empty when there is no model yet
+     * or the model does not know the student.
+     */
+    public List<Map<String, Object>> retrieve(int studentIndex, Set<Integer> allowedTypeIds,
+                                              Set<Integer> exclude, int limit) {
+        Model current = model;
+        if (current == null || studentIndex < 0 || studentIndex >= current.studentRows().length) return new ArrayList<>();
+        int row = current.studentRows()[studentIndex];
+        if (row < 0) return new ArrayList<>();
+
+        float[] query = Arrays.copyOfRange(current.studentVectors(),
+            row * current.factors(), (row + 1) * current.factors());
+        int[] nodes = current.graph().search(query, limit, efSearch, node ->
+            (allowedTypeIds == null || allowedTypeIds.contains(current.typeIds()[node]))
+                && !exclude.contains(current.courseIndexes()[node]));
+        List<Map<String, Object>> result = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("course_index", current.courseIndexes()[node]);
+            item.put("name", current.names()[node]);
+            item.put("type_name", current.typeNames()[node]);
+            item.put("type_id", current.typeIds()[node]);
+            item.put("predicted_score", Math.round(current.graph().innerProduct(node, query) * 10000) / 10000.0);
+            result.add(item);
+        }
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Model current = model;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("building", building.get());
+        m.put("model", current == null ? null : current.id());
+        m.put("courses", current == null ? 0 : current.courseIndexes().length);
+        m.put("factors", current == null ? 0 : current.factors());
+        m.put("builtAt", current == null ? null : current.builtAt().toString());
+        m.put("buildMs", current == null ? 0 : current.buildMs());
+        return m;
+    }
+
+    // ---------------------------------------------------------------- loading
+
+    private void rebuild() {
+        try {
+            long start = System.nanoTime();
+            Properties meta = readMeta();
+            if (meta == null || !FORMAT_VERSION.equals(meta.getProperty("version"))) return;
+            long id = Long.parseLong(meta.getProperty("model"));
+            int factors = Integer.parseInt(meta.getProperty("factors"));
+            int items = Integer.parseInt(meta.getProperty("items"));
+            int users = Integer.parseInt(meta.getProperty("users"));
+
+            int[] courseIndexes = readInts(file("mf_items.i32"), items);
+            float[] itemVectors = readFloats(file("mf_items.f32"), items * factors);
+            float[] studentVectors = readFloats(file("mf_users.f32"), users * factors);
+            String[] stuIds = new String(Files.readAllBytes(file("mf_users.dict")), StandardCharsets.UTF_8).split("\n");
+            Properties after = readMeta();
+            if (after == null || !meta.getProperty("model").equals(after.getProperty("model")) || stuIds.length < users) {
+                log.info("Factor files changed while loading model {}; retrying later", id);
+                return;
+            }
+
+            int[] studentRows = new int[studentIds.size()];
+            Arrays.fill(studentRows, -1);
+            for (int row = 0; row < users; row++) {
+                int index = studentIds.indexOf(stuIds[row]);
+                if (index >= 0 && index < studentRows.length) studentRows[index] = row;
+            }
+            Map<Integer, Integer> nodes = new HashMap<>();
+            for (int node = 0; node < items; node++) nodes.put(courseIndexes[node], node);
+            int[] typeIds = new int[items];
+            String[] names = new String[items];
+            String[] typeNames = new String[items];
+            Arrays.fill(typeIds, -1);
+            Arrays.fill(names, "");
+            Arrays.fill(typeNames, "");
+            jdbcTemplate.query(COURSES_SQL, rs -> {
+                Integer node = nodes.get(rs.getInt("course_index"));
+                if (node == null) return;
+                int typeId = rs.getInt("type_id");
+                typeIds[node] = rs.wasNull() ? -1 : typeId;
+                names[node] = rs.getString("name");
+                typeNames[node] = rs.getString("type_name") == null ? "" : rs.getString("type_name");
+            });
+
+            HnswIndex graph = new HnswIndex(itemVectors, factors, m, efConstruction, id);
+            long buildMs = (System.nanoTime() - start) / 1_000_000;
+            model = new Model(id, factors, graph, courseIndexes, typeIds, names, typeNames,
+                studentVectors, studentRows, Instant.now(), buildMs);
+            log.info("Factor index for model {}: {} courses, {} students, {} ms", id, items, users, buildMs);
+        } catch (NoSuchFileException e) {
+            log.warn("Factor files incomplete ({}); retrying later", e.getFile());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Factor index build failed: {}", e.toString());
+        } finally {
+            building.set(false);
+        }
+    }
+
+    private Path file(String name) {
+        return directory.resolve(name);
+    }
+
+    private Properties readMeta() throws IOException {
+        Path metaFile = file("mf.meta");
+        if (!Files.exists(metaFile)) return null;
+        Properties meta = new Properties();
+        try (Reader in = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+            meta.load(in);
+        }
+        return meta;
+    }
+
+    private static ByteBuffer read(Path path, long bytes) throws IOException {
+        byte[] data = Files.readAllBytes(path);
+        if (data.length < bytes) throw new IOException(path.getFileName() + " is shorter than recorded");
+        return ByteBuffer.wrap(data, 0, (int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int[] readInts(Path path, int count) throws IOException {
+        int[] out = new int[count];
+        read(path, count * 4L).asIntBuffer().get(out);
+        return out;
+    }
+
+    private static float[] readFloats(Path path, int count) throws IOException {
+        float[] out = new float[count];
+        read(path, count * 4L).asFloatBuffer().get(out);
+        return out;
+    }
+}
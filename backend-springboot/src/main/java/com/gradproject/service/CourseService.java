@@ -1,11 +1,19 @@
 package com.gradproject.service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.TreeSet;
+import java.time.Duration;
 
+import com.gradproject.config.CacheLoaderRegistry;
+import com.gradproject.config.ReplicaRead;
+import com.gradproject.config.SingleFlight;
+import com.gradproject.config.SingleFlightRegistry;
 import com.gradproject.model.Course;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -13,11 +21,25 @@ import org.springframework.stereotype.Service;
 @Service
 public class CourseService {
     private final JdbcTemplate jdbcTemplate;
+    private final StudentIdDictionary studentIds;
+    private final RecentClickBuffer recentClicks;
+    private final TrendingCourses trendingCourses;
+    private final SingleFlight<String, List<Map<String, Object>>> popularByType;
 
-    public CourseService(JdbcTemplate jdbcTemplate) {
+    public CourseService(JdbcTemplate jdbcTemplate, CacheLoaderRegistry cacheLoaders,
+                         StudentIdDictionary studentIds, RecentClickBuffer recentClicks,
+                         TrendingCourses trendingCourses, SingleFlightRegistry singleFlights,
+                         @Value("${single-flight.database-timeout:10s}") Duration databaseTimeout) {
         this.jdbcTemplate = jdbcTemplate;
+        this.studentIds = studentIds;
+        this.recentClicks = recentClicks;
+        this.trendingCourses = trendingCourses;
+        this.popularByType = singleFlights.create("popularByType", databaseTimeout);
+        cacheLoaders.register("typeIdsByKeyword", key -> queryTypeIdsByKeyword((String) key));
+        cacheLoaders.register("typeNameById", key -> queryTypeNameById((Integer) key));
     }
 
+    @ReplicaRead
     public List<Course> listCourses(int limit) {
         String sql = """
             SELECT c.course_index, c.name, c.type_id, t.type_name, c.url
@@ -35,6 +57,7 @@ public class CourseService {
         );
     }
 
+    @ReplicaRead
     public Map<String, Object> listCoursesPaged(int page, int size, String keyword, String mode) {
         int offset = (page - 1) * size;
         String where = "";
@@ -76,22 +99,13 @@ public class CourseService {
         return result;
     }
 
-    public String findRecentTypeName(long userId) {
-        String sql = """
-            SELECT t.type_name
-            FROM interactions i
-            JOIN courses c ON i.course_index = c.course_index
-            LEFT JOIN course_types t ON c.type_id = t.type_id
-            JOIN user_student_map m ON m.stu_id = i.stu_id
-            WHERE m.user_id = ?
-            ORDER BY i.time DESC LIMIT 1
-            """;
-        return jdbcTemplate.query(sql, rs -> rs.next() ? rs.getString("type_name") : null, userId);
-    }
+    /** Most exclude keywords accepted by {@link #normalizeKeywords}. */
+    public static final int MAX_EXCLUDE_KEYWORDS = 20;
 
-    @Cacheable(value = "courseTypes", key = "#excludeKeywords != null ? #excludeKeywords.toString() : 'all'")
-    public List<Map<String, Object>> listCourseTypes(List<String> excludeKeywords) {
-        List<Map<String, Object>> types = jdbcTemplate.query(
+    /** Every course type. Only this form is cached; filter it with {@link #excludeTypes}. */
+    @Cacheable(value = "courseTypes", sync = true, key = "'all'")
+    public List<Map<String, Object>> listCourseTypes() {
+        return jdbcTemplate.query(
             "SELECT type_id, type_name FROM course_types ORDER BY type_id",
             (rs, rowNum) -> {
                 Map<String, Object> map = new HashMap<>();
@@ -100,7 +114,28 @@ public class CourseService {
                 return map;
             }
         );
-        if (excludeKeywords == null || excludeKeywords.isEmpty()) return types;
+    }
+
+    /**
+     * Comma-separated keywords trimmed, without blanks or duplicates, sorted.
+     *
+     * @throws IllegalArgumentException when there are more than MAX_EXCLUDE_KEYWORDS
+     */
+    public static List<String> normalizeKeywords(String commaSeparated) {
+        if (commaSeparated == null || commaSeparated.isBlank()) return List.of();
+        TreeSet<String> keywords = new TreeSet<>();
+        for (String kw : commaSeparated.split(",")) {
+            if (!kw.isBlank()) keywords.add(kw.trim());
+        }
+        if (keywords.size() > MAX_EXCLUDE_KEYWORDS) {
+            throw new IllegalArgumentException("at most " + MAX_EXCLUDE_KEYWORDS + " exclude keywords");
+        }
+        return List.copyOf(keywords);
+    }
+
+    /** The types whose name contains none of {@code excludeKeywords}. */
+    public static List<Map<String, Object>> excludeTypes(List<Map<String, Object>> types, List<String> excludeKeywords) {
+        if (excludeKeywords.isEmpty()) return types;
         List<Map<String, Object>> filtered = new ArrayList<>();
         for (Map<String, Object> type : types) {
             String name = String.valueOf(type.get("type_name"));
@@ -113,8 +148,12 @@ public class CourseService {
         return filtered;
     }
 
-    @Cacheable(value = "typeIdsByKeyword", key = "#keyword")
+    @Cacheable(value = "typeIdsByKeyword", sync = true, key = "#keyword")
     public List<Integer> findTypeIdsByKeyword(String keyword) {
+        return queryTypeIdsByKeyword(keyword);
+    }
+
+    private List<Integer> queryTypeIdsByKeyword(String keyword) {
         return jdbcTemplate.query(
             "SELECT type_id FROM course_types WHERE type_name LIKE ?",
             ps -> ps.setString(1, "%" + keyword + "%"),
@@ -122,9 +161,13 @@ public class CourseService {
         );
     }
 
-    @Cacheable(value = "typeNameById", key = "#typeId", condition = "#typeId != null")
+    @Cacheable(value = "typeNameById", sync = true, key = "#typeId", condition = "#typeId != null")
     public String findTypeNameById(Integer typeId) {
         if (typeId == null) return null;
+        return queryTypeNameById(typeId);
+    }
+
+    private String queryTypeNameById(int typeId) {
         return jdbcTemplate.query(
             "SELECT type_name FROM course_types WHERE type_id = ?",
             rs -> rs.next() ? rs.getString("type_name") : null, typeId
@@ -140,16 +183,28 @@ public class CourseService {
             "INSERT IGNORE INTO interactions (stu_id, time, course_index) VALUES (?, NOW(), ?)",
             stuId, courseIndex
         );
+        recentClicks.record(studentIds.indexOf(stuId), courseIndex);
+        trendingCourses.record(courseIndex);
     }
 
     /**
      * Return most popular courses (by interaction count) limited to given type_ids.
-     * Used as a fallback when the recommender returns no courses in allowed categories.
+     * Used as a fallback when the recommender returns no courses in allowed categories,
+     * so concurrent callers with the same types share one query.
      */
     public List<Map<String, Object>> findPopularByTypeIds(java.util.Set<Integer> typeIds, int limit) {
         if (typeIds == null || typeIds.isEmpty()) return new ArrayList<>();
-        String placeholders = String.join(",", typeIds.stream().map(id -> "?").toList());
-        String sql = """
+        String key = new TreeSet<>(typeIds) + ":" + limit;
+        List<Map<String, Object>> shared = popularByType.load(key, () -> queryPopularByTypeIds(typeIds, limit));
+        // Callers that joined the same load get the same rows; each gets its own maps to edit.
+        List<Map<String, Object>> rows = new ArrayList<>(shared.size());
+        for (Map<String, Object> row : shared) rows.add(new HashMap<>(row));
+        return rows;
+    }
+
+    /** Parameters: {@code typeCount} type ids, then limit. Also EXPLAINed by QueryPlanChecker. */
+    public static String popularByTypeIdsSql(int typeCount) {
+        return """
             SELECT c.course_index, c.name, t.type_name, c.type_id,
                    COUNT(i.id) AS popularity
             FROM courses c
@@ -159,7 +214,11 @@ public class CourseService {
             GROUP BY c.course_index, c.name, t.type_name, c.type_id
             ORDER BY popularity DESC
             LIMIT ?
-            """.formatted(placeholders);
+            """.formatted(String.join(",", Collections.nCopies(typeCount, "?")));
+    }
+
+    private List<Map<String, Object>> queryPopularByTypeIds(java.util.Set<Integer> typeIds, int limit) {
+        String sql = popularByTypeIdsSql(typeIds.size());
         List<Object> params = new ArrayList<>(typeIds.stream().map(id -> (Object) id).toList());
         params.add(limit);
         return jdbcTemplate.query(sql, params.toArray(), (rs, rowNum) -> {
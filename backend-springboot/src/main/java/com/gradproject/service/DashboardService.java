@@ -0,0 +1,104 @@
+package com.gradproject.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.gradproject.model.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Builds the home screen in one call. Every section runs concurrently on its own virtual
+ * thread, sharing the already-resolved {@link UserContext}, and has its own deadline
+ * measured from the start of the request. A section that fails or misses its deadline is
+ * returned as null and listed under "errors"; the others are unaffected.
+ */
+@Service
+public class DashboardService {
+    private static final Logger log = LoggerFactory.getLogger(DashboardService.class);
+
+    private final AuthService authService;
+    private final CourseService courseService;
+    private final PlanService planService;
+    private final WrongQuestionService wrongQuestionService;
+    private final RecommendationService recommendationService;
+    private final Duration sectionTimeout;
+    private final Duration recommendationsTimeout;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public DashboardService(AuthService authService, CourseService courseService, PlanService planService,
+                            WrongQuestionService wrongQuestionService, RecommendationService recommendationService,
+                            @Value("${dashboard.section-timeout:1500ms}") Duration sectionTimeout,
+                            @Value("${dashboard.recommendations-timeout:3s}") Duration recommendationsTimeout) {
+        this.authService = authService;
+        this.courseService = courseService;
+        this.planService = planService;
+        this.wrongQuestionService = wrongQuestionService;
+        this.recommendationService = recommendationService;
+        this.sectionTimeout = sectionTimeout;
+        this.recommendationsTimeout = recommendationsTimeout;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> assemble(UserContext context, int topN, int wrongSize) {
+        long userId = context.getUserId();
+        long start = System.nanoTime();
+
+        Map<String, Section> sections = new LinkedHashMap<>();
+        sections.put("user", submit(() -> authService.getUserById(userId).orElse(null), sectionTimeout));
+        sections.put("courseTypes", submit(() -> courseService.listCourseTypes(), sectionTimeout));
+        sections.put("recommendations", submit(
+            () -> recommendationService.recommend(context, topN).get("recommendations"), recommendationsTimeout));
+        sections.put("plans", submit(() -> planService.listPlans(userId, null, "desc"), sectionTimeout));
+        sections.put("wrongQuestions", submit(
+            () -> wrongQuestionService.listPaged(userId, null, null, 1, wrongSize), sectionTimeout));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (Map.Entry<String, Section> entry : sections.entrySet()) {
+            Section section = entry.getValue();
+            long remaining = start + section.timeout.toNanos() - System.nanoTime();
+            try {
+                result.put(entry.getKey(), section.future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                section.future.cancel(true);
+                result.put(entry.getKey(), null);
+                errors.put(entry.getKey(), "timeout");
+            } catch (ExecutionException e) {
+                log.warn("Dashboard section {} failed for user {}: {}", entry.getKey(), userId, e.getCause().toString());
+                result.put(entry.getKey(), null);
+                errors.put(entry.getKey(), e.getCause().getClass().getSimpleName());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                section.future.cancel(true);
+                result.put(entry.getKey(), null);
+                errors.put(entry.getKey(), "interrupted");
+            }
+        }
+        result.put("errors", errors);
+        result.put("tookMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    private Section submit(Callable<Object> task, Duration timeout) {
+        return new Section(executor.submit(task), timeout);
+    }
+
+    private record Section(Future<Object> future, Duration timeout) {}
+}
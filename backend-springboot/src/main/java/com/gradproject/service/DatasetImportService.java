@@ -0,0 +1,358 @@
+package com.gradproject.service;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Loads the interaction dataset (data.csv) into students, course_types, courses and
+ * interactions; the Java replacement for scripts/load_data.py.
+ * <p>
+ * The file is memory-mapped and cut into line-aligned ranges parsed on
+ * {@code dataset-import.threads} cores, twice: the first pass only collects the distinct
+ * students, course types and courses, which are then upserted; the second writes the
+ * interactions in multi-row INSERT IGNORE statements of {@code dataset-import.batch-rows}
+ * rows. Memory stays bounded by the dimension sets plus one batch per thread, however
+ * large the file. Catalog caches are cleared afterwards.
+ */
+@Service
+public class DatasetImportService {
+    private static final Logger log = LoggerFactory.getLogger(DatasetImportService.class);
+    /** Caches built from the imported tables; userContext holds each user's course types. */
+    private static final List<String> CATALOG_CACHES = List.of(
+        "courseTypes", "typeIdsByKeyword", "typeNameById", "userContext", CatalogResponseCache.CACHE_NAME);
+    /** Placeholders per statement stay well below MySQL's limit of 65535. */
+    private static final int MAX_PARAMETERS = 60_000;
+    private static final int MAX_LOCK_RETRIES = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final StudentIdDictionary studentIds;
+    private final Path directory;
+    private final int threads;
+    private final int batchRows;
+    private final Duration jobRetention;
+    private final AtomicReference<ImportJob> running = new AtomicReference<>();
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public DatasetImportService(JdbcTemplate jdbcTemplate, CacheManager cacheManager,
+                                StudentIdDictionary studentIds,
+                                @Value("${dataset-import.directory:..}") String directory,
+                                @Value("${dataset-import.threads:0}") int threads,
+                                @Value("${dataset-import.batch-rows:2000}") int batchRows,
+                                @Value("${jobs.retention:24h}") Duration jobRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.studentIds = studentIds;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.batchRows = batchRows;
+        this.jobRetention = jobRetention;
+    }
+
+    /**
+     * Start importing {@code fileName}, resolved inside {@code dataset-import.directory},
+     * in the background.
+     *
+     * @throws IllegalArgumentException when the name leaves the import directory
+     * @throws NoSuchFileException when the file does not exist
+     * @throws IllegalStateException when another import is running
+     */
+    public Map<String, Object> start(String fileName) throws NoSuchFileException {
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory)) throw new IllegalArgumentException("file outside import directory");
+        if (!Files.isRegularFile(file)) throw new NoSuchFileException(fileName);
+
+        ImportJob job = new ImportJob(file);
+        if (!running.compareAndSet(null, job)) throw new IllegalStateException("import already running");
+        pruneFinishedJobs();
+        jobs.put(job.id, job);
+        Thread.ofPlatform().name("dataset-import").daemon().start(() -> run(job));
+        return job.snapshot();
+    }
+
+    /** Import {@code file} on the calling thread (command-line use); returns the final job state. */
+    public Map<String, Object> importFile(Path file) {
+        ImportJob job = new ImportJob(file.toAbsolutePath().normalize());
+        if (!running.compareAndSet(null, job)) throw new IllegalStateException("import already running");
+        jobs.put(job.id, job);
+        run(job);
+        return job.snapshot();
+    }
+
+    public Optional<Map<String, Object>> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::snapshot);
+    }
+
+    /** Finished jobs stay readable for {@code jobs.retention}. */
+    private void pruneFinishedJobs() {
+        Instant horizon = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(horizon));
+    }
+
+    private void run(ImportJob job) {
+        job.startedAt = Instant.now();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new NamedThreads());
+        try {
+            job.phase = "detecting";
+            InteractionCsv csv = InteractionCsv.open(job.file);
+            job.encoding = csv.charset().name();
+            job.bytesTotal = csv.dataBytes();
+            List<InteractionCsv.Range> ranges = csv.split(threads * 4);
+
+            job.phase = "scanning";
+            Dimensions dimensions = new Dimensions();
+            parallel(pool, csv, ranges, job, () -> dimensions::add, job.badLines::incrementAndGet);
+
+            job.phase = "dimensions";
+            upsertDimensions(dimensions, job);
+
+            job.phase = "interactions";
+            job.bytesDone.set(0);
+            parallel(pool, csv, ranges, job, () -> new InteractionWriter(job), () -> {});
+
+            clearCatalogCaches();
+            job.phase = "done";
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            log.warn("Dataset import of {} failed: {}", job.file, cause.toString());
+            job.error = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+            job.phase = "failed";
+        } finally {
+            pool.shutdownNow();
+            if (!"done".equals(job.phase) && !"failed".equals(job.phase)) {
+                job.error = "aborted in phase " + job.phase;
+                job.phase = "failed";
+            }
+            job.finishedAt = Instant.now();
+            running.compareAndSet(job, null);
+        }
+        log.info("Dataset import {}: {}", job.phase, job.snapshot());
+    }
+
+    /** Read every range on the pool, one sink per range; fails fast on the first error. */
+    private void parallel(ExecutorService pool, InteractionCsv csv, List<InteractionCsv.Range> ranges,
+                          ImportJob job, Supplier<RowSink> sinks, Runnable badLine) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (InteractionCsv.Range range : ranges) {
+            futures.add(pool.submit(() -> {
+                RowSink sink = sinks.get();
+                csv.read(range, sink, badLine);
+                sink.flush();
+                job.bytesDone.addAndGet(range.length());
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) future.get();
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private void upsertDimensions(Dimensions dimensions, ImportJob job) {
+        List<String> stuIds = dimensions.students.stream().sorted().toList();
+        List<Object[]> students = stuIds.stream().map(id -> new Object[] {id}).toList();
+        insertRows("INSERT IGNORE INTO students (stu_id) VALUES ", "(?)", "", students);
+        studentIds.internAll(stuIds);
+        job.students = students.size();
+
+        List<Object[]> types = new ArrayList<>();
+        new TreeMap<>(dimensions.types).forEach((id, name) -> types.add(new Object[] {id, name}));
+        insertRows("INSERT INTO course_types (type_id, type_name) VALUES ", "(?, ?)",
+            " ON DUPLICATE KEY UPDATE type_name = VALUES(type_name)", types);
+        job.courseTypes = types.size();
+
+        // url is maintained by admins and left alone.
+        List<Object[]> courses = new ArrayList<>();
+        new TreeMap<>(dimensions.courses).forEach((index, row) ->
+            courses.add(new Object[] {index, row.name(), row.type(), row.typeId()}));
+        insertRows("INSERT INTO courses (course_index, name, type, type_id) VALUES ", "(?, ?, ?, ?)",
+            " ON DUPLICATE KEY UPDATE name = VALUES(name), type = VALUES(type), type_id = VALUES(type_id)", courses);
+        job.courses = courses.size();
+    }
+
+    /** Multi-row INSERT of {@code rows}, as many per statement as the parameter limit allows. */
+    private int insertRows(String prefix, String tuple, String suffix, List<Object[]> rows) {
+        if (rows.isEmpty()) return 0;
+        int columns = rows.get(0).length;
+        int perStatement = Math.max(1, Math.min(batchRows, MAX_PARAMETERS / columns));
+        int affected = 0;
+        for (int from = 0; from < rows.size(); from += perStatement) {
+            List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + perStatement));
+            Object[] params = new Object[chunk.size() * columns];
+            for (int i = 0; i < chunk.size(); i++) System.arraycopy(chunk.get(i), 0, params, i * columns, columns);
+            affected += update(multiRowSql(prefix, tuple, suffix, chunk.size()), params);
+        }
+        return affected;
+    }
+
+    /** Concurrent INSERT IGNOREs on the same unique key can deadlock; the loser retries. */
+    private int update(String sql, Object[] params) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return jdbcTemplate.update(sql, params);
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= MAX_LOCK_RETRIES) throw e;
+                try {
+                    Thread.sleep(20L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static String multiRowSql(String prefix, String tuple, String suffix, int rows) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rows * (tuple.length() + 2) + suffix.length());
+        sql.append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(tuple);
+        }
+        return sql.append(suffix).toString();
+    }
+
+    private void clearCatalogCaches() {
+        for (String name : CATALOG_CACHES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        }
+    }
+
+    /** Distinct students, course types and courses; the first row seen for a key wins. */
+    private static final class Dimensions {
+        final Set<String> students = ConcurrentHashMap.newKeySet();
+        final Map<Integer, String> types = new ConcurrentHashMap<>();
+        final Map<Integer, InteractionCsv.Row> courses = new ConcurrentHashMap<>();
+
+        void add(InteractionCsv.Row row) {
+            students.add(row.stuId());
+            if (row.typeId() != null) types.putIfAbsent(row.typeId(), row.type());
+            courses.putIfAbsent(row.courseIndex(), row);
+        }
+    }
+
+    /** Consumes the rows of one range; flushed once the range is done. */
+    private interface RowSink extends Consumer<InteractionCsv.Row> {
+        default void flush() {}
+    }
+
+    /** Buffers one batch of interaction rows and writes it as a single statement. */
+    private final class InteractionWriter implements RowSink {
+        private static final String PREFIX = "INSERT IGNORE INTO interactions (stu_id, time, course_index) VALUES ";
+
+        private final ImportJob job;
+        private final List<Object> params = new ArrayList<>(batchRows * 3);
+
+        InteractionWriter(ImportJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void accept(InteractionCsv.Row row) {
+            params.add(row.stuId());
+            params.add(row.time());
+            params.add(row.courseIndex());
+            job.rowsRead.incrementAndGet();
+            if (params.size() >= batchRows * 3) flush();
+        }
+
+        @Override
+        public void flush() {
+            if (params.isEmpty()) return;
+            String sql = multiRowSql(PREFIX, "(?, ?, ?)", "", params.size() / 3);
+            job.interactionsInserted.addAndGet(update(sql, params.toArray()));
+            job.batches.incrementAndGet();
+            params.clear();
+        }
+    }
+
+    private static final class NamedThreads implements ThreadFactory {
+        private final AtomicInteger ids = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "dataset-import-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    private static final class ImportJob {
+        final String id = UUID.randomUUID().toString();
+        final Path file;
+        final AtomicLong bytesDone = new AtomicLong();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong badLines = new AtomicLong();
+        final AtomicLong interactionsInserted = new AtomicLong();
+        final AtomicLong batches = new AtomicLong();
+        volatile String phase = "queued";
+        volatile String encoding;
+        volatile long bytesTotal;
+        volatile int students;
+        volatile int courseTypes;
+        volatile int courses;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        ImportJob(Path file) {
+            this.file = file;
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("jobId", id);
+            m.put("file", file.getFileName().toString());
+            m.put("phase", phase);
+            m.put("encoding", encoding);
+            m.put("bytesTotal", bytesTotal);
+            m.put("bytesDone", bytesDone.get());
+            m.put("students", students);
+            m.put("courseTypes", courseTypes);
+            m.put("courses", courses);
+            m.put("rowsRead", rowsRead.get());
+            m.put("badLines", badLines.get());
+            m.put("interactionsInserted", interactionsInserted.get());
+            m.put("batches", batches.get());
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            m.put("elapsedMs", startedAt == null ? 0 : end.toEpochMilli() - startedAt.toEpochMilli());
+            if (error != null) m.put("error", error);
+            return Collections.unmodifiableMap(m);
+        }
+    }
+}
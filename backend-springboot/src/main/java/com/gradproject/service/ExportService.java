@@ -0,0 +1,353 @@
+package com.gradproject.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gradproject.config.InstrumentedJdbcTemplate;
+import com.gradproject.config.ReplicaRead;
+import com.gradproject.metrics.SqlStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Whole-table downloads as CSV or NDJSON. Each export is one query walking the primary
+ * key (no LIMIT/OFFSET) through a forward-only, read-only cursor, and every row is written
+ * to the response as soon as it is read, so heap use does not grow with the row count.
+ * On MySQL the fetch size is Integer.MIN_VALUE, which makes Connector/J stream rows one at
+ * a time instead of buffering the whole result; other databases read export.fetch-size
+ * rows per round trip. The cursor keeps its pooled connection (and jdbc bulkhead permit)
+ * until the download ends, so downloads are capped per {@link Budget}: at most
+ * {@code export.max-concurrent-student} students' wrong-question books and
+ * {@code export.max-concurrent-admin} admin table dumps run at once, and further ones get
+ * 503. A download still running after {@code export.max-duration} is cut off and its
+ * connection returned.
+ */
+@Service
+public class ExportService {
+    private static final int BUFFER = 64 * 1024;
+    /** Rows written between checks of the export deadline. */
+    private static final int DEADLINE_CHECK_ROWS = 1024;
+
+    private static final Map<String, String> TABLES = new LinkedHashMap<>();
+    static {
+        TABLES.put("users", """
+            SELECT u.id, u.username, u.major_type_id, t.type_name, u.created_at
+            FROM users u LEFT JOIN course_types t ON u.major_type_id = t.type_id
+            ORDER BY u.id
+            """);
+        TABLES.put("questions", """
+            SELECT q.id, q.course_id, q.course_name, q.question, q.options, q.answer, q.explanation
+            FROM course_questions q
+            ORDER BY q.id
+            """);
+        TABLES.put("plans", """
+            SELECT p.id, p.user_id, u.username, p.title, p.description,
+                   p.target_date, p.status, p.created_at
+            FROM study_plans p LEFT JOIN users u ON p.user_id = u.id
+            ORDER BY p.id
+            """);
+        TABLES.put("wrong-questions", """
+            SELECT w.id, w.user_id, u.username, w.question_id, w.question_text,
+                   w.course_name, w.your_answer, w.correct_answer, w.error_count, w.created_at
+            FROM wrong_questions w LEFT JOIN users u ON w.user_id = u.id
+            ORDER BY w.id
+            """);
+    }
+
+    private static final String USER_WRONG_QUESTIONS_SQL = """
+        SELECT w.id, w.question_id, w.question_text, w.course_name,
+               w.your_answer, w.correct_answer, w.error_count, w.created_at
+        FROM wrong_questions w
+        WHERE w.user_id = ?
+        ORDER BY w.id
+        """;
+
+    /** Separate download caps, so admin table dumps cannot lock students out and vice versa. */
+    public enum Budget { STUDENT, ADMIN }
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = MediaType.parseMediaType(mediaType);
+            this.extension = extension;
+        }
+
+        /** null when {@code value} names no format. */
+        public static Format parse(String value) {
+            for (Format f : values()) if (f.extension.equalsIgnoreCase(value)) return f;
+            return null;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final Map<Budget, Semaphore> running = new EnumMap<>(Budget.class);
+    private final Duration maxDuration;
+    private volatile Integer resolvedFetchSize;
+
+    public ExportService(DataSource dataSource, SqlStats sqlStats, ObjectMapper objectMapper,
+                         @Value("${export.fetch-size:1000}") int fetchSize,
+                         @Value("${export.max-concurrent-student:4}") int maxConcurrentStudent,
+                         @Value("${export.max-concurrent-admin:2}") int maxConcurrentAdmin,
+                         @Value("${export.max-duration:10m}") Duration maxDuration) {
+        // Not the shared template: its query timeout and max-rows would cut a long export short.
+        this.jdbcTemplate = new InstrumentedJdbcTemplate(dataSource, sqlStats);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.running.put(Budget.STUDENT, new Semaphore(maxConcurrentStudent));
+        this.running.put(Budget.ADMIN, new Semaphore(maxConcurrentAdmin));
+        this.maxDuration = maxDuration;
+    }
+
+    public boolean hasTable(String table) {
+        return TABLES.containsKey(table);
+    }
+
+    /** Every row of one admin table (users, questions, plans or wrong-questions). */
+    @ReplicaRead
+    public long exportTable(String table, Format format, OutputStream out) throws IOException {
+        String sql = TABLES.get(table);
+        if (sql == null) throw new IllegalArgumentException("Unknown table: " + table);
+        return export(sql, new Object[0], format, out);
+    }
+
+    /** A student's whole wrong-question book, oldest first. */
+    public long exportWrongQuestions(long userId, Format format, OutputStream out) throws IOException {
+        return export(USER_WRONG_QUESTIONS_SQL, new Object[] {userId}, format, out);
+    }
+
+    /**
+     * 200 with {@code body} as a file download named {@code baseName}.csv / .ndjson, or as a
+     * gzip file (.csv.gz / .ndjson.gz) when {@code gzip} is set; 503 when the budget's
+     * downloads are all taken. The permit is released when the body ends or, if it never
+     * runs (executor rejection, async timeout or abort while queued), when the request's
+     * async processing completes.
+     */
+    public ResponseEntity<StreamingResponseBody> attachment(String baseName, Format format, boolean gzip,
+                                                            Budget budget, StreamingResponseBody body) {
+        Semaphore permits = running.get(budget);
+        if (!permits.tryAcquire()) {
+            Map<String, Object> error = Map.of("error", "export_busy", "message", "too many exports running; retry later");
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30")
+                .contentType(MediaType.APPLICATION_JSON).body(out -> objectMapper.writeValue(out, error));
+        }
+        Runnable release = releaseOnce(permits);
+        releaseOnAsyncCompletion(release);
+        String filename = baseName + "." + format.extension + (gzip ? ".gz" : "");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment().filename(filename).build());
+        headers.setContentType(gzip ? MediaType.parseMediaType("application/gzip") : format.mediaType);
+        return ResponseEntity.ok().headers(headers).body(out -> {
+            try {
+                if (!gzip) {
+                    body.writeTo(out);
+                    return;
+                }
+                GZIPOutputStream zip = new GZIPOutputStream(out, BUFFER);
+                body.writeTo(zip);
+                zip.finish();
+            } finally {
+                release.run();
+            }
+        });
+    }
+
+    private static Runnable releaseOnce(Semaphore permits) {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) permits.release();
+        };
+    }
+
+    /** Run {@code release} when the current request's async processing ends, however it ends. */
+    private static void releaseOnAsyncCompletion(Runnable release) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return;
+        WebAsyncUtils.getAsyncManager(attributes.getRequest()).registerCallableInterceptor(
+            ExportService.class.getName(), new CallableProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                    release.run();
+                }
+            });
+    }
+
+    public ResponseEntity<StreamingResponseBody> badRequest(String error, String message) {
+        Map<String, Object> body = Map.of("error", error, "message", message);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+            .body(out -> objectMapper.writeValue(out, body));
+    }
+
+    private long export(String sql, Object[] args, Format format, OutputStream out) throws IOException {
+        long deadline = System.nanoTime() + maxDuration.toNanos();
+        ResultSetExtractor<Long> writer = rs -> {
+            try {
+                return format == Format.CSV ? writeCsv(rs, out, deadline) : writeNdjson(rs, out, deadline);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            Long rows = jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize(con.getMetaData().getDatabaseProductName()));
+                ps.setQueryTimeout(Math.toIntExact(Math.max(maxDuration.toSeconds(), 1)));
+                for (int i = 0; i < args.length; i++) ps.setObject(i + 1, args[i]);
+                return ps;
+            }, writer);
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Abort the download (the client sees it cut short) once it has run past max-duration. */
+    private void checkDeadline(long rows, long deadline) throws IOException {
+        if (rows % DEADLINE_CHECK_ROWS == 0 && System.nanoTime() - deadline > 0) {
+            throw new IOException("Export ran longer than export.max-duration (" + maxDuration + ") after " + rows + " rows");
+        }
+    }
+
+    private int fetchSize(String databaseProduct) {
+        Integer size = resolvedFetchSize;
+        if (size == null) {
+            size = "MySQL".equalsIgnoreCase(databaseProduct) ? Integer.MIN_VALUE : fetchSize;
+            resolvedFetchSize = size;
+        }
+        return size;
+    }
+
+    /** UTF-8 with a BOM so Excel detects the encoding; RFC 4180 quoting. */
+    private long writeCsv(ResultSet rs, OutputStream out, long deadline) throws SQLException, IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER);
+        ResultSetMetaData meta = rs.getMetaData();
+        int columns = meta.getColumnCount();
+        w.write('\uFEFF');
+        for (int i = 1; i <= columns; i++) {
+            if (i > 1) w.write(',');
+            writeCsvField(w, meta.getColumnLabel(i).toLowerCase(Locale.ROOT));
+        }
+        w.write("\r\n");
+        long rows = 0;
+        while (rs.next()) {
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) w.write(',');
+                String value = rs.getString(i);
+                if (value != null) writeCsvField(w, value);
+            }
+            w.write("\r\n");
+            checkDeadline(++rows, deadline);
+        }
+        w.flush();
+        return rows;
+    }
+
+    private static void writeCsvField(Writer w, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            w.write(value);
+            return;
+        }
+        w.write('"');
+        w.write(value.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    /** One object per row with the same camelCase keys as the JSON list endpoints. */
+    private long writeNdjson(ResultSet rs, OutputStream out, long deadline) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columns = meta.getColumnCount();
+        String[] names = new String[columns + 1];
+        int[] types = new int[columns + 1];
+        for (int i = 1; i <= columns; i++) {
+            names[i] = camelCase(meta.getColumnLabel(i).toLowerCase(Locale.ROOT));
+            types[i] = meta.getColumnType(i);
+        }
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+        long rows = 0;
+        while (rs.next()) {
+            gen.writeStartObject();
+            for (int i = 1; i <= columns; i++) {
+                gen.writeFieldName(names[i]);
+                switch (types[i]) {
+                    case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> {
+                        long value = rs.getLong(i);
+                        if (rs.wasNull()) gen.writeNull();
+                        else gen.writeNumber(value);
+                    }
+                    default -> {
+                        String value = rs.getString(i);
+                        if (value == null) gen.writeNull();
+                        else gen.writeString(value);
+                    }
+                }
+            }
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+            checkDeadline(++rows, deadline);
+        }
+        gen.close();
+        return rows;
+    }
+
+    private static String camelCase(String column) {
+        StringBuilder sb = new StringBuilder(column.length());
+        boolean upper = false;
+        for (char c : column.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,279 @@
+package com.gradproject.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph for maximum inner product search.
+ * <p>
+ * Inner product is not a distance, so every vector x gets one extra coordinate
+ * sqrt(maxNorm² - |x|²) and queries get 0 there: all items then have the same norm and
+ * the nearest item by L2 distance is the one with the largest inner product. The graph
+ * itself is the usual one (Malkov and Yashunin): layers with exponentially fewer nodes,
+ * greedy descent to layer 0, a beam of {@code ef} there, and neighbour lists chosen with
+ * the diversity heuristic. Built once by a single thread, then read-only.
+ */
+final class HnswIndex {
+    private record Candidate(int node, float distance) {}
+
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(Candidate::distance);
+
+    private final int dim;
+    private final int size;
+    private final float[] vectors;
+    /** Norm of the augmented vectors, which all have the same length. */
+    private final double radius;
+    private final int m;
+    private final int m0;
+    private final int[] levels;
+    /** links[node][level] holds linkCounts[node][level] neighbour ids. */
+    private final int[][][] links;
+    private final int[][] linkCounts;
+    private int entry = -1;
+    private int maxLevel = -1;
+
+    /** Index the {@code rawDim}-dimensional rows of {@code raw}. */
+    HnswIndex(float[] raw, int rawDim, int m, int efConstruction, long seed) {
+        this.dim = rawDim + 1;
+        this.size = raw.length / rawDim;
+        this.m = m;
+        this.m0 = 2 * m;
+        this.vectors = augment(raw, rawDim, size);
+        this.radius = size == 0 ? 0 : Math.sqrt(norm2(vectors, 0, dim));
+        this.levels = new int[size];
+        this.links = new int[size][][];
+        this.linkCounts = new int[size][];
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double levelFactor = 1 / Math.log(m);
+        for (int node = 0; node < size; node++) {
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+            levels[node] = level;
+            links[node] = new int[level + 1][];
+            linkCounts[node] = new int[level + 1];
+            for (int l = 0; l <= level; l++) links[node][l] = new int[(l == 0 ? m0 : m) + 1];
+            insert(node, efConstruction);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Up to {@code k} accepted nodes by descending inner product with {@code query}. The
+     * beam widens while the filter rejects too much, and a filter that rejects nearly
+     * everything ends in a scan of the whole index.
+     */
+    int[] search(float[] query, int k, int ef, IntPredicate accept) {
+        if (size == 0 || k <= 0) return new int[0];
+        // Scaling the query does not change the ranking; at the items' radius it lies among
+        // them, which is where the graph's links are meaningful.
+        double norm = Math.sqrt(norm2(query, 0, dim - 1));
+        double scale = norm == 0 ? 1 : radius / norm;
+        float[] q = new float[dim];
+        for (int i = 0; i < dim - 1; i++) q[i] = (float) (query[i] * scale);
+
+        int ep = entry;
+        for (int l = maxLevel; l > 0; l--) ep = greedy(q, ep, l);
+        for (int beam = Math.max(ef, k); ; beam *= 4) {
+            if (beam >= size) return scan(q, k, accept);
+            List<Candidate> found = searchLayer(q, ep, beam, 0);
+            int[] result = new int[k];
+            int n = 0;
+            for (Candidate c : found) {
+                if (accept.test(c.node())) result[n++] = c.node();
+                if (n == k) return result;
+            }
+        }
+    }
+
+    /** The model's score for a node: the inner product over the original coordinates. */
+    double innerProduct(int node, float[] query) {
+        int base = node * dim;
+        double sum = 0;
+        for (int i = 0; i < dim - 1; i++) sum += (double) vectors[base + i] * query[i];
+        return sum;
+    }
+
+    private int[] scan(float[] q, int k, IntPredicate accept) {
+        PriorityQueue<Candidate> best = new PriorityQueue<>(NEAREST_FIRST.reversed());
+        for (int node = 0; node < size; node++) {
+            if (!accept.test(node)) continue;
+            best.add(new Candidate(node, distance(q, node)));
+            if (best.size() > k) best.poll();
+        }
+        int[] result = new int[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) result[i] = best.poll().node();
+        return result;
+    }
+
+    // ---------------------------------------------------------------- construction
+
+    private void insert(int node, int efConstruction) {
+        if (entry < 0) {
+            entry = node;
+            maxLevel = levels[node];
+            return;
+        }
+        float[] q = new float[dim];
+        System.arraycopy(vectors, node * dim, q, 0, dim);
+        int level = levels[node];
+        int ep = entry;
+        for (int l = maxLevel; l > level; l--) ep = greedy(q, ep, l);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> found = searchLayer(q, ep, efConstruction, l);
+            for (Candidate c : selectNeighbours(found, m)) {
+                link(node, c.node(), l);
+                link(c.node(), node, l);
+            }
+            ep = found.get(0).node();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entry = node;
+        }
+    }
+
+    private void link(int from, int to, int level) {
+        int n = linkCounts[from][level];
+        links[from][level][n] = to;
+        linkCounts[from][level] = ++n;
+        int max = level == 0 ? m0 : m;
+        if (n <= max) return;
+
+        List<Candidate> candidates = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int other = links[from][level][i];
+            candidates.add(new Candidate(other, distance(from, other)));
+        }
+        candidates.sort(NEAREST_FIRST);
+        List<Candidate> kept = selectNeighbours(candidates, max);
+        for (int i = 0; i < kept.size(); i++) links[from][level][i] = kept.get(i).node();
+        linkCounts[from][level] = kept.size();
+    }
+
+    /**
+     * The diversity heuristic: take candidates nearest first, skipping one that is closer
+     * to an already chosen neighbour than to the base node, then top up with the skipped.
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> sorted, int max) {
+        List<Candidate> chosen = new ArrayList<>(max);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate c : sorted) {
+            if (chosen.size() == max) break;
+            boolean diverse = true;
+            for (Candidate s : chosen) {
+                if (distance(c.node(), s.node()) < c.distance()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? chosen : skipped).add(c);
+        }
+        for (int i = 0; i < skipped.size() && chosen.size() < max; i++) chosen.add(skipped.get(i));
+        return chosen;
+    }
+
+    // ---------------------------------------------------------------- graph search
+
+    private int greedy(float[] q, int ep, int level) {
+        int current = ep;
+        float best = distance(q, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < linkCounts[current][level]; i++) {
+                int next = links[current][level][i];
+                float d = distance(q, next);
+                if (d < best) {
+                    best = d;
+                    current = next;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /** Beam search of one layer; returns up to {@code ef} nodes, nearest first. */
+    private List<Candidate> searchLayer(float[] q, int ep, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> found = new PriorityQueue<>(NEAREST_FIRST.reversed());
+        Candidate start = new Candidate(ep, distance(q, ep));
+        visited.set(ep);
+        frontier.add(start);
+        found.add(start);
+        while (!frontier.isEmpty()) {
+            Candidate c = frontier.poll();
+            if (found.size() >= ef && c.distance() > found.peek().distance()) break;
+            int[] neighbours = links[c.node()][level];
+            for (int i = 0; i < linkCounts[c.node()][level]; i++) {
+                int next = neighbours[i];
+                if (visited.get(next)) continue;
+                visited.set(next);
+                float d = distance(q, next);
+                if (found.size() < ef || d < found.peek().distance()) {
+                    Candidate candidate = new Candidate(next, d);
+                    frontier.add(candidate);
+                    found.add(candidate);
+                    if (found.size() > ef) found.poll();
+                }
+            }
+        }
+        List<Candidate> result = new ArrayList<>(found);
+        result.sort(NEAREST_FIRST);
+        return result;
+    }
+
+    private float distance(float[] q, int node) {
+        int base = node * dim;
+        float sum = 0;
+        for (int i = 0; i < dim; i++) {
+            float d = q[i] - vectors[base + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    private float distance(int a, int b) {
+        int baseA = a * dim;
+        int baseB = b * dim;
+        float sum = 0;
+        for (int i = 0; i < dim; i++) {
+            float d = vectors[baseA + i] - vectors[baseB + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    private static double norm2(float[] v, int from, int length) {
+        double sum = 0;
+        for (int i = from; i < from + length; i++) sum += (double) v[i] * v[i];
+        return sum;
+    }
+
+    private static float[] augment(float[] raw, int rawDim, int size) {
+        double maxNorm = 0;
+        double[] norms = new double[size];
+        for (int node = 0; node < size; node++) {
+            double norm = 0;
+            for (int i = 0; i < rawDim; i++) norm += (double) raw[node * rawDim + i] * raw[node * rawDim + i];
+            norms[node] = norm;
+            maxNorm = Math.max(maxNorm, norm);
+        }
+        int dim = rawDim + 1;
+        float[] out = new float[size * dim];
+        for (int node = 0; node < size; node++) {
+            System.arraycopy(raw, node * rawDim, out, node * dim, rawDim);
+            out[node * dim + rawDim] = (float) Math.sqrt(Math.max(0, maxNorm - norms[node]));
+        }
+        return out;
+    }
+}
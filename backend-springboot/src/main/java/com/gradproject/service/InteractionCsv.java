@@ -0,0 +1,269 @@
+package com.gradproject.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reader for the interaction dataset (data.csv: stu_id, time, course_index and optionally
+ * name, type, type_id). The file is never loaded whole: encoding detection streams it,
+ * and rows are parsed straight from memory-mapped ranges that can be read in parallel.
+ * <p>
+ * Lines and fields are split on raw '\n', ',' and '"' bytes. That is safe for UTF-8 and
+ * GBK/GB18030 alike, since none of them use those values inside a multi-byte character.
+ * Quoted fields may contain commas but not line breaks.
+ */
+final class InteractionCsv {
+    /** Tried in order, like scripts/load_data.py. */
+    static final List<Charset> ENCODINGS = List.of(
+        StandardCharsets.UTF_8, Charset.forName("GBK"), Charset.forName("GB18030"));
+    private static final int MAX_RANGE = 256 << 20;
+
+    record Row(String stuId, String time, int courseIndex, String name, String type, Integer typeId) {}
+
+    /** A byte range [from, to) that starts at a line start and ends after a line break. */
+    record Range(long from, long to) {
+        long length() { return to - from; }
+    }
+
+    private final Path path;
+    private final Charset charset;
+    private final long dataStart;
+    private final long size;
+    private final int stuId, time, courseIndex, name, type, typeId;
+    private final int columnCount;
+
+    private InteractionCsv(Path path, Charset charset, long dataStart, long size, Map<String, Integer> columns) {
+        this.path = path;
+        this.charset = charset;
+        this.dataStart = dataStart;
+        this.size = size;
+        this.stuId = required(columns, "stu_id");
+        this.time = required(columns, "time");
+        this.courseIndex = required(columns, "course_index");
+        this.name = columns.getOrDefault("name", -1);
+        this.type = columns.getOrDefault("type", -1);
+        this.typeId = columns.getOrDefault("type_id", -1);
+        this.columnCount = columns.size();
+    }
+
+    /** Detects the encoding and reads the header. */
+    static InteractionCsv open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = hasUtf8Bom(channel) ? 3 : 0;
+            Charset charset = null;
+            for (Charset candidate : ENCODINGS) {
+                if (decodes(channel, start, candidate)) {
+                    charset = candidate;
+                    break;
+                }
+            }
+            if (charset == null) throw new CharacterCodingException();
+
+            byte[] header = readLine(channel, start);
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            new Parser(charset).split(ByteBuffer.wrap(header), 0, header.length, names);
+            for (int i = 0; i < names.size(); i++) {
+                columns.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            return new InteractionCsv(path, charset, start + header.length, size, columns);
+        }
+    }
+
+    Charset charset() {
+        return charset;
+    }
+
+    long dataBytes() {
+        return size - dataStart;
+    }
+
+    /** Cut the data into about {@code parts} ranges of whole lines, each at most 256 MB. */
+    List<Range> split(int parts) throws IOException {
+        long length = dataBytes();
+        int count = (int) Math.max(parts, (length + MAX_RANGE - 1) / MAX_RANGE);
+        List<Range> ranges = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long from = dataStart;
+            for (int i = 1; i <= count && from < size; i++) {
+                long to = i == count ? size : nextLineStart(channel, dataStart + length * i / count);
+                if (to > from) ranges.add(new Range(from, to));
+                from = Math.max(from, to);
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Parse every line of {@code range}. Lines that lack a required field or whose
+     * course_index is not a number are reported through {@code badLine} instead.
+     */
+    void read(Range range, Consumer<Row> rows, Runnable badLine) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, range.from(), range.length());
+        }
+        Parser parser = new Parser(charset);
+        List<String> fields = new ArrayList<>(columnCount);
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') lineEnd++;
+            int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (contentEnd > lineStart) {
+                fields.clear();
+                parser.split(buffer, lineStart, contentEnd, fields);
+                Row row = toRow(fields);
+                if (row != null) rows.accept(row);
+                else badLine.run();
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private Row toRow(List<String> fields) {
+        String stu = field(fields, stuId);
+        String t = field(fields, time);
+        String course = field(fields, courseIndex);
+        if (stu == null || t == null || course == null) return null;
+        int index;
+        try {
+            index = Integer.parseInt(course);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Integer typeIdValue = null;
+        String rawTypeId = field(fields, typeId);
+        if (rawTypeId != null) {
+            try {
+                typeIdValue = Integer.valueOf(rawTypeId);
+            } catch (NumberFormatException ignored) {
+                // treated as missing rather than failing the whole import
+            }
+        }
+        String nameValue = field(fields, name);
+        String typeValue = field(fields, type);
+        return new Row(stu, t, index, nameValue == null ? "" : nameValue, typeValue == null ? "" : typeValue, typeIdValue);
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) return null;
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static int required(Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null) throw new IllegalArgumentException("CSV header has no " + column + " column");
+        return index;
+    }
+
+    /** Splits one line into fields, decoding each with the file's charset. */
+    private static final class Parser {
+        private final Charset charset;
+        private byte[] scratch = new byte[256];
+
+        Parser(Charset charset) {
+            this.charset = charset;
+        }
+
+        void split(ByteBuffer line, int start, int end, List<String> out) {
+            int i = start;
+            while (true) {
+                int length = 0;
+                if (i < end && line.get(i) == '"') {
+                    i++;
+                    while (i < end) {
+                        byte b = line.get(i++);
+                        if (b == '"') {
+                            if (i < end && line.get(i) == '"') i++;
+                            else break;
+                        }
+                        length = append(length, b);
+                    }
+                    while (i < end && line.get(i) != ',') i++;
+                } else {
+                    while (i < end && line.get(i) != ',') length = append(length, line.get(i++));
+                }
+                out.add(new String(scratch, 0, length, charset));
+                if (i >= end) return;
+                i++; // comma
+            }
+        }
+
+        private int append(int length, byte b) {
+            if (length == scratch.length) scratch = Arrays.copyOf(scratch, length * 2);
+            scratch[length] = b;
+            return length + 1;
+        }
+    }
+
+    private static boolean hasUtf8Bom(FileChannel channel) throws IOException {
+        ByteBuffer bom = ByteBuffer.allocate(3);
+        channel.read(bom, 0);
+        return bom.position() == 3 && bom.get(0) == (byte) 0xEF && bom.get(1) == (byte) 0xBB && bom.get(2) == (byte) 0xBF;
+    }
+
+    /** Strictly decodes the whole file in 1 MB steps; false at the first bad sequence. */
+    private static boolean decodes(FileChannel channel, long start, Charset charset) throws IOException {
+        CharsetDecoder decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer in = ByteBuffer.allocate(1 << 20);
+        CharBuffer out = CharBuffer.allocate(1 << 20);
+        long position = start;
+        while (true) {
+            int read = channel.read(in, position);
+            boolean eof = read < 0;
+            if (!eof) position += read;
+            in.flip();
+            CoderResult result = decoder.decode(in, out, eof);
+            if (result.isError()) return false;
+            out.clear();
+            if (eof) return !decoder.flush(out).isError();
+            in.compact();
+        }
+    }
+
+    private static byte[] readLine(FileChannel channel, long start) throws IOException {
+        long end = nextLineStart(channel, start);
+        ByteBuffer line = ByteBuffer.allocate((int) (end - start));
+        channel.read(line, start);
+        return line.array();
+    }
+
+    /** Position just after the next '\n' at or after {@code position}, or the file size. */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long p = position;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, p);
+            if (read <= 0) return channel.size();
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return p + i + 1;
+            }
+            p += read;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.gradproject.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Columnar copy of the interactions table on local disk, kept current by reading new
+ * rows by id. Readers map the files and index them directly, so a model build or a
+ * cold start reads a few MB sequentially instead of the whole table over JDBC.
+ * <p>
+ * Files in {@code snapshot.directory}, all little-endian, one entry per row or id:
+ * <ul>
+ *   <li>{@code stu.i32}, {@code course.i32}: dense student / course id of each interaction</li>
+ *   <li>{@code time.i64}: interaction time as wall-clock epoch seconds (the DATETIME read as UTC)</li>
+ *   <li>{@code students.dict}: stu_id of each dense student id, one per line (UTF-8); written
+ *       by {@link StudentIdDictionary}, so student ids are the ones used everywhere else</li>
+ *   <li>{@code courses.i32}: course_index of each dense course id</li>
+ *   <li>{@code snapshot.meta}: row and dictionary counts, the last interactions.id read and
+ *       {@code refreshedAt}, the epoch millis of the last successful refresh</li>
+ *   <li>{@code snapshot.lock}: held by the one process allowed to write the directory</li>
+ * </ul>
+ * The meta file is replaced atomically after the data is forced to disk, and anything
+ * past the counts it records is ignored. A tail left by a crash is cut off on the next
+ * start by copying the valid prefix over the file, never by shrinking it in place, so a
+ * reader that mapped the old file is not left with pages past its end (SIGBUS).
+ * backend-flask reads the same files and falls back to SQL when refreshedAt is too old.
+ * <p>
+ * A second instance pointed at the same directory would interleave appends, so only the
+ * instance holding the lock refreshes the snapshot. Another instance on the directory logs
+ * a warning and runs as if {@code snapshot.enabled=false}: its view stays empty, and the
+ * similar-courses index and the recent-click seeding fall back accordingly.
+ * <p>
+ * Ids are assigned at insert time but committed in any order, and INSERT IGNORE skips
+ * ids altogether. A gap after the last id read is therefore only skipped once it has
+ * existed for {@code snapshot.gap-grace}; until then reading stops in front of it.
+ */
+@Service
+public class InteractionSnapshot {
+    private static final Logger log = LoggerFactory.getLogger(InteractionSnapshot.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StudentIdDictionary studentIds;
+    private final Path directory;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration gapGrace;
+
+    // Writer state; only touched under the monitor.
+    private final Map<Integer, Integer> courseIds = new HashMap<>();
+    private int[] courses = new int[64];
+    private int courseCount;
+    private long rows;
+    private long lastId;
+    private int generation;
+    private boolean loaded;
+    private final Deque<long[]> maxIdSamples = new ArrayDeque<>();
+    private FileChannel lockChannel;
+
+    private volatile boolean writer;
+    private volatile View view = View.empty(0);
+    private volatile Instant lastRefresh;
+    private volatile long lastRefreshMs;
+    private volatile long maxIdSeen;
+
+    public InteractionSnapshot(JdbcTemplate jdbcTemplate, StudentIdDictionary studentIds,
+                               @Value("${snapshot.directory:../data/snapshot}") String directory,
+                               @Value("${snapshot.enabled:true}") boolean enabled,
+                               @Value("${snapshot.batch-size:50000}") int batchSize,
+                               @Value("${snapshot.gap-grace:10s}") Duration gapGrace) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.studentIds = studentIds;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.gapGrace = gapGrace;
+    }
+
+    /**
+     * A consistent, immutable view of the first {@code rows} interactions. The buffers
+     * are memory-mapped; {@code courseIndexes[course.get(i)]} is the course_index of row i
+     * and {@code student.get(i)} a {@link StudentIdDictionary} index below {@code students}.
+     * A later view of the same {@code generation} extends this one; a new generation means
+     * the snapshot was rebuilt and dense course ids may differ.
+     */
+    public record View(long rows, IntBuffer student, IntBuffer course, LongBuffer time,
+                       int students, int[] courseIndexes, long lastId, int generation) {
+        static View empty(int generation) {
+            return new View(0, IntBuffer.allocate(0), IntBuffer.allocate(0),
+                LongBuffer.allocate(0), 0, new int[0], 0, generation);
+        }
+    }
+
+    public View view() {
+        return view;
+    }
+
+    @PostConstruct
+    public void lockDirectory() {
+        if (!enabled) return;
+        try {
+            Files.createDirectories(directory);
+            FileChannel channel = FileChannel.open(file("snapshot.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                channel.close();
+                log.warn("Interaction snapshot {} is written by another process; not refreshing it here", directory);
+                return;
+            }
+            lockChannel = channel;
+            writer = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot lock interaction snapshot " + directory, e);
+        }
+    }
+
+    @PreDestroy
+    public void unlockDirectory() throws IOException {
+        if (lockChannel != null) lockChannel.close();
+    }
+
+    @Scheduled(fixedDelayString = "${snapshot.refresh-interval:PT30S}", initialDelayString = "PT10S")
+    public void scheduledRefresh() {
+        if (!writer) return;
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Interaction snapshot refresh failed: {}", e.toString());
+        }
+    }
+
+    /**
+     * Append interactions added since the last refresh; returns the number of rows appended.
+     * Throws IllegalStateException on an instance that does not write the snapshot.
+     */
+    public synchronized long refresh() {
+        checkWriter();
+        long start = System.nanoTime();
+        if (!loaded) load();
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM interactions", Long.class);
+        long max = maxId == null ? 0 : maxId;
+        if (max < lastId) {
+            log.warn("interactions.id went back from {} to {}; rebuilding the snapshot", lastId, max);
+            reset();
+        }
+        long settled = settledId(max);
+
+        long appended = 0;
+        try {
+            while (true) {
+                Batch batch = readBatch(settled);
+                if (batch.rows() == 0) break;
+                append(batch);
+                appended += batch.rows();
+                if (!batch.complete()) break;
+            }
+        } catch (RuntimeException e) {
+            loaded = false; // the course dictionary may be ahead of the files; reload it next time
+            throw e;
+        }
+        if (appended > 0 || view.rows() != rows) remap();
+        if (appended == 0) {
+            try {
+                writeMeta(); // refreshedAt: readers can tell an idle table from a stalled writer
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        maxIdSeen = max;
+        lastRefresh = Instant.now();
+        lastRefreshMs = (System.nanoTime() - start) / 1_000_000;
+        if (appended > 0) log.info("Interaction snapshot: +{} rows, {} total, last id {}", appended, rows, lastId);
+        return appended;
+    }
+
+    /** Drop the files and read the table again from the start. */
+    public synchronized long rebuild() {
+        checkWriter();
+        if (!loaded) load();
+        reset();
+        return refresh();
+    }
+
+    private void checkWriter() {
+        if (!writer) throw new IllegalStateException("Interaction snapshot " + directory + " is not written by this instance");
+    }
+
+    public Map<String, Object> stats() {
+        View v = view;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("writer", writer);
+        m.put("directory", directory.toString());
+        m.put("rows", v.rows());
+        m.put("students", v.students());
+        m.put("courses", v.courseIndexes().length);
+        m.put("lastId", v.lastId());
+        m.put("maxIdSeen", maxIdSeen);
+        m.put("bytes", v.rows() * (4 + 4 + 8));
+        m.put("lastRefresh", lastRefresh == null ? null : lastRefresh.toString());
+        m.put("lastRefreshMs", lastRefreshMs);
+        return m;
+    }
+
+    // ---------------------------------------------------------------- reading the table
+
+    private record Batch(long rows, boolean complete, ByteBuffer student, ByteBuffer course, ByteBuffer time,
+                         int[] newCourses, long lastId) {}
+
+    /**
+     * Read up to {@code batch-size} rows after lastId, assigning dense ids as it goes. Stops
+     * early at an unsettled gap; {@code complete} means the batch was full and more may follow.
+     * Students missing from the dictionary (normally none) are added in one go at the end.
+     */
+    private Batch readBatch(long settled) {
+        ByteBuffer student = ByteBuffer.allocate(batchSize * 4).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer course = ByteBuffer.allocate(batchSize * 4).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer time = ByteBuffer.allocate(batchSize * 8).order(ByteOrder.LITTLE_ENDIAN);
+        int coursesBefore = courseCount;
+        long[] state = {lastId, 0, 0}; // last id, rows taken, stopped at gap
+        Map<String, List<Integer>> unknownStudents = new LinkedHashMap<>();
+
+        jdbcTemplate.query(
+            "SELECT id, stu_id, time, course_index FROM interactions WHERE id > ? ORDER BY id LIMIT ?",
+            rs -> {
+                if (state[2] != 0) return;
+                long id = rs.getLong("id");
+                if (id != state[0] + 1 && id > settled) {
+                    state[2] = 1;
+                    return;
+                }
+                LocalDateTime at = rs.getObject("time", LocalDateTime.class);
+                String stuId = rs.getString("stu_id");
+                int studentIndex = studentIds.indexOf(stuId);
+                if (studentIndex < 0) unknownStudents.computeIfAbsent(stuId, k -> new ArrayList<>()).add((int) state[1]);
+                student.putInt(studentIndex);
+                course.putInt(courseId(rs.getInt("course_index")));
+                time.putLong(at == null ? 0 : at.toEpochSecond(ZoneOffset.UTC));
+                state[0] = id;
+                state[1]++;
+            },
+            lastId, batchSize);
+
+        if (!unknownStudents.isEmpty()) {
+            studentIds.internAll(unknownStudents.keySet());
+            unknownStudents.forEach((stuId, positions) -> {
+                int studentIndex = studentIds.indexOf(stuId);
+                for (int position : positions) student.putInt(position * 4, studentIndex);
+            });
+        }
+        return new Batch(state[1], state[1] == batchSize, student.flip(), course.flip(), time.flip(),
+            Arrays.copyOfRange(courses, coursesBefore, courseCount), state[0]);
+    }
+
+    /**
+     * Highest id below which every gap has been visible for at least gap-grace: the
+     * MAX(id) of the newest sample taken that long ago.
+     */
+    private long settledId(long max) {
+        long now = System.nanoTime();
+        long cutoff = now - gapGrace.toNanos();
+        maxIdSamples.addLast(new long[] {now, max});
+        while (maxIdSamples.size() > 1 && secondSample()[0] <= cutoff) maxIdSamples.removeFirst();
+        long[] oldest = maxIdSamples.peekFirst();
+        return oldest[0] <= cutoff ? oldest[1] : 0;
+    }
+
+    private long[] secondSample() {
+        Iterator<long[]> it = maxIdSamples.iterator();
+        it.next();
+        return it.next();
+    }
+
+    private int courseId(int courseIndex) {
+        Integer id = courseIds.get(courseIndex);
+        if (id != null) return id;
+        if (courseCount == courses.length) courses = Arrays.copyOf(courses, courseCount * 2);
+        courses[courseCount] = courseIndex;
+        courseIds.put(courseIndex, courseCount);
+        return courseCount++;
+    }
+
+    // ---------------------------------------------------------------- files
+
+    private Path file(String name) {
+        return directory.resolve(name);
+    }
+
+    /**
+     * Course dictionary first, then columns, each forced; the meta file last, atomically.
+     * New students are already on disk, the dictionary persists them as it assigns them.
+     */
+    private void append(Batch batch) {
+        try {
+            if (batch.newCourses().length > 0) {
+                ByteBuffer buffer = ByteBuffer.allocate(batch.newCourses().length * 4).order(ByteOrder.LITTLE_ENDIAN);
+                for (int courseIndex : batch.newCourses()) buffer.putInt(courseIndex);
+                appendBytes(file("courses.i32"), buffer.flip());
+            }
+            appendBytes(file("stu.i32"), batch.student());
+            appendBytes(file("course.i32"), batch.course());
+            appendBytes(file("time.i64"), batch.time());
+            rows += batch.rows();
+            lastId = batch.lastId();
+            writeMeta();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void appendBytes(Path path, ByteBuffer data) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            while (data.hasRemaining()) channel.write(data);
+            channel.force(false);
+        }
+    }
+
+    private void writeMeta() throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("version", String.valueOf(FORMAT_VERSION));
+        meta.setProperty("rows", String.valueOf(rows));
+        meta.setProperty("students", String.valueOf(studentIds.size()));
+        meta.setProperty("courses", String.valueOf(courseCount));
+        meta.setProperty("lastId", String.valueOf(lastId));
+        meta.setProperty("refreshedAt", String.valueOf(System.currentTimeMillis()));
+        Path tmp = file("snapshot.meta.tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            meta.store(out, "interaction snapshot, see InteractionSnapshot.java");
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, file("snapshot.meta"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Restore writer state from disk, cutting off anything written after the last meta update. */
+    private void load() {
+        try {
+            Files.createDirectories(directory);
+            loaded = true;
+            clearState();
+            Path metaFile = file("snapshot.meta");
+            if (!Files.exists(metaFile)) {
+                reset();
+                return;
+            }
+            Properties meta = new Properties();
+            try (Reader in = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+                meta.load(in);
+            }
+            if (!String.valueOf(FORMAT_VERSION).equals(meta.getProperty("version"))) {
+                log.warn("Interaction snapshot format {} is not {}; rebuilding", meta.getProperty("version"), FORMAT_VERSION);
+                reset();
+                return;
+            }
+            rows = Long.parseLong(meta.getProperty("rows"));
+            lastId = Long.parseLong(meta.getProperty("lastId"));
+            int studentCount = Integer.parseInt(meta.getProperty("students"));
+            if (studentCount > studentIds.size()) {
+                throw new IOException("students.dict has fewer students than recorded");
+            }
+            int coursesOnDisk = Integer.parseInt(meta.getProperty("courses"));
+
+            cutTo(file("stu.i32"), rows * 4);
+            cutTo(file("course.i32"), rows * 4);
+            cutTo(file("time.i64"), rows * 8);
+            cutTo(file("courses.i32"), (long) coursesOnDisk * 4);
+
+            ByteBuffer courseFile = ByteBuffer.wrap(Files.readAllBytes(file("courses.i32"))).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < coursesOnDisk; i++) courseId(courseFile.getInt());
+            remap();
+            log.info("Loaded interaction snapshot: {} rows, {} students, {} courses, last id {}",
+                rows, studentCount, courseCount, lastId);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Interaction snapshot in {} is unreadable ({}); rebuilding", directory, e.toString());
+            reset();
+        }
+    }
+
+    /** Drop anything past {@code size} by replacing the file with a copy of its prefix. */
+    private static void cutTo(Path path, long size) throws IOException {
+        long actual = Files.exists(path) ? Files.size(path) : 0;
+        if (actual < size) throw new IOException(path.getFileName() + " is shorter than recorded");
+        if (actual == size) {
+            if (!Files.exists(path)) Files.createFile(path);
+            return;
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            long copied = 0;
+            while (copied < size) copied += in.transferTo(copied, size - copied, out);
+            out.force(false);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void reset() {
+        try {
+            for (String name : List.of("stu.i32", "course.i32", "time.i64", "courses.i32", "snapshot.meta")) {
+                Files.deleteIfExists(file(name));
+            }
+            clearState();
+            writeMeta();
+            generation++;
+            view = View.empty(generation);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void clearState() {
+        courseIds.clear();
+        courseCount = 0;
+        rows = 0;
+        lastId = 0;
+    }
+
+    private void remap() {
+        if (rows == 0) {
+            view = View.empty(generation);
+            return;
+        }
+        try {
+            view = new View(rows,
+                map(file("stu.i32"), rows * 4).asIntBuffer(),
+                map(file("course.i32"), rows * 4).asIntBuffer(),
+                map(file("time.i64"), rows * 8).asLongBuffer(),
+                studentIds.size(),
+                Arrays.copyOf(courses, courseCount),
+                lastId,
+                generation);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.gradproject.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Status of background jobs (avatar processing, user purges) in the background_jobs
+ * table, so a client polling for a job gets an answer from whichever instance the load
+ * balancer picks, not only from the one running it. The state is the JSON map the API
+ * returns; a cancel request is a flag the running instance checks. Rows are removed
+ * {@code jobs.retention} after their last update.
+ */
+@Service
+public class JobStore {
+    private static final Logger log = LoggerFactory.getLogger(JobStore.class);
+    private static final TypeReference<Map<String, Object>> STATE = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+
+    public JobStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                    @Value("${jobs.retention:24h}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+    }
+
+    /** Insert or replace the state of job {@code id}. */
+    public void save(String id, String kind, Map<String, Object> state) {
+        String json = toJson(state);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int updated = jdbcTemplate.update(
+            "UPDATE background_jobs SET state = ?, updated_at = ? WHERE id = ?", json, now, id);
+        if (updated == 0) {
+            jdbcTemplate.update(
+                "INSERT INTO background_jobs (id, kind, state, created_at, updated_at) VALUES (?, ?, ?, ?, ?)",
+                id, kind, json, now, now);
+        }
+    }
+
+    public Optional<Map<String, Object>> find(String id, String kind) {
+        List<String> rows = jdbcTemplate.queryForList(
+            "SELECT state FROM background_jobs WHERE id = ? AND kind = ?", String.class, id, kind);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(fromJson(rows.get(0)));
+    }
+
+    /** The newest {@code limit} jobs of one kind. */
+    public List<Map<String, Object>> list(String kind, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT state FROM background_jobs WHERE kind = ? ORDER BY created_at DESC LIMIT ?",
+                String.class, kind, limit)
+            .stream().map(this::fromJson).toList();
+    }
+
+    /** @return false when there is no such job */
+    public boolean requestCancel(String id, String kind) {
+        return jdbcTemplate.update(
+            "UPDATE background_jobs SET cancel_requested = 1 WHERE id = ? AND kind = ?", id, kind) > 0;
+    }
+
+    public boolean isCancelRequested(String id) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+            "SELECT cancel_requested FROM background_jobs WHERE id = ?", Integer.class, id);
+        return !rows.isEmpty() && rows.get(0) != 0;
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.prune-interval:PT1H}", initialDelayString = "PT5M")
+    public void prune() {
+        Timestamp horizon = new Timestamp(System.currentTimeMillis() - retention.toMillis());
+        int removed = jdbcTemplate.update("DELETE FROM background_jobs WHERE updated_at < ?", horizon);
+        if (removed > 0) log.info("Removed {} finished background jobs", removed);
+    }
+
+    private String toJson(Map<String, Object> state) {
+        try {
+            return objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, STATE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -17,13 +17,17 @@ public class PlanService {
         this.jdbcTemplate = jdbcTemplate;
     }
 
-    public List<StudyPlan> listPlans(long userId, String status, String sort) {
-        String orderBy = "ASC".equalsIgnoreCase(sort) ? "ASC" : "DESC";
-        String sql = """
+    /** Parameters: user id, then status when {@code byStatus}. Also EXPLAINed by QueryPlanChecker. */
+    public static String listPlansSql(boolean byStatus, boolean ascending) {
+        return """
             SELECT id, user_id, title, description, target_date, status
             FROM study_plans WHERE user_id = ?
-            """ + (status == null || status.isBlank() ? "" : " AND status = ? ")
-            + " ORDER BY target_date IS NULL, target_date " + orderBy + ", id DESC";
+            """ + (byStatus ? " AND status = ? " : "")
+            + " ORDER BY target_date IS NULL, target_date " + (ascending ? "ASC" : "DESC") + ", id DESC";
+    }
+
+    public List<StudyPlan> listPlans(long userId, String status, String sort) {
+        String sql = listPlansSql(status != null && !status.isBlank(), "ASC".equalsIgnoreCase(sort));
 
         return jdbcTemplate.query(sql,
             ps -> {
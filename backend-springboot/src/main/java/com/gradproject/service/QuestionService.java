@@ -17,11 +17,15 @@ public class QuestionService {
         this.jdbcTemplate = jdbcTemplate;
     }
 
-    public List<Map<String, Object>> listQuestions(int courseId, int limit, boolean random) {
+    /** Parameters: course id, limit. Also EXPLAINed by QueryPlanChecker. */
+    public static String listQuestionsSql(boolean random) {
         String orderBy = random ? "RAND()" : "q.id DESC";
-        String sql = "SELECT q.id, q.question, q.options, q.answer, q.explanation, q.course_name "
+        return "SELECT q.id, q.question, q.options, q.answer, q.explanation, q.course_name "
             + "FROM course_questions q WHERE q.course_id = ? ORDER BY " + orderBy + " LIMIT ?";
-        return jdbcTemplate.query(sql,
+    }
+
+    public List<Map<String, Object>> listQuestions(int courseId, int limit, boolean random) {
+        return jdbcTemplate.query(listQuestionsSql(random),
             ps -> { ps.setInt(1, courseId); ps.setInt(2, limit); },
             (rs, rowNum) -> {
                 Map<String, Object> map = new HashMap<>();
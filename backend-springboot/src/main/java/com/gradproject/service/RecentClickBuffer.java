@@ -0,0 +1,192 @@
+package com.gradproject.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * The last {@code recent-clicks.capacity} course clicks of every student, in memory, so the
+ * recommendation path can read a user's session without touching the interactions table.
+ * <p>
+ * Buffers are indexed by {@link StudentIdDictionary} index and filled by
+ * {@link CourseService#recordInteraction}. After a restart they are seeded once from the
+ * interaction snapshot, as soon as it has rows. Times are wall-clock epoch seconds, the same
+ * convention as the snapshot, so seeded and live clicks order correctly.
+ */
+@Service
+public class RecentClickBuffer {
+    private static final Logger log = LoggerFactory.getLogger(RecentClickBuffer.class);
+
+    private final InteractionSnapshot snapshot;
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+    private final Duration catalogRefresh;
+
+    private volatile Ring[] rings = new Ring[0];
+    private volatile Map<Integer, Integer> courseTypes = Map.of();
+    private volatile long catalogLoadedAt;
+    private volatile boolean seeded;
+
+    public RecentClickBuffer(InteractionSnapshot snapshot, JdbcTemplate jdbcTemplate,
+                             @Value("${recent-clicks.capacity:20}") int capacity,
+                             @Value("${recent-clicks.catalog-refresh:PT10M}") Duration catalogRefresh) {
+        this.snapshot = snapshot;
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = capacity;
+        this.catalogRefresh = catalogRefresh;
+    }
+
+    /**
+     * A user's recent clicks, newest first; {@code now} is the wall-clock time it was taken
+     * at, in the same epoch seconds as {@code times}.
+     */
+    public record Session(int[] courseIndexes, int[] typeIds, long[] times, long now) {
+        static final Session EMPTY = new Session(new int[0], new int[0], new long[0], 0);
+
+        public int size() { return courseIndexes.length; }
+
+        public boolean isEmpty() { return courseIndexes.length == 0; }
+
+        /** type_id of the latest click, or null when there is none. */
+        public Integer latestTypeId() {
+            return isEmpty() || typeIds[0] < 0 ? null : typeIds[0];
+        }
+    }
+
+    /** Remember a click that was just recorded. */
+    public void record(int studentIndex, int courseIndex) {
+        if (studentIndex < 0) return;
+        ring(studentIndex).add(courseIndex, typeOf(courseIndex), now());
+    }
+
+    public Session session(int studentIndex) {
+        Ring[] current = rings;
+        if (studentIndex < 0 || studentIndex >= current.length || current[studentIndex] == null) return Session.EMPTY;
+        return current[studentIndex].session(now());
+    }
+
+    /** Seed the buffers from the snapshot once it has rows, and keep course types current. */
+    @Scheduled(fixedDelayString = "${recent-clicks.seed-check:PT10S}", initialDelayString = "PT12S")
+    public void maintain() {
+        try {
+            if (System.currentTimeMillis() - catalogLoadedAt >= catalogRefresh.toMillis()) loadCourseTypes();
+            if (!seeded) seed();
+        } catch (RuntimeException e) {
+            log.warn("Recent-click buffer maintenance failed: {}", e.toString());
+        }
+    }
+
+    private void seed() {
+        InteractionSnapshot.View view = snapshot.view();
+        if (view.rows() == 0) return;
+        int[] types = new int[view.courseIndexes().length];
+        for (int c = 0; c < types.length; c++) types[c] = typeOf(view.courseIndexes()[c]);
+        for (int r = 0; r < view.rows(); r++) {
+            int course = view.course().get(r);
+            ring(view.student().get(r)).add(view.courseIndexes()[course], types[course], view.time().get(r));
+        }
+        seeded = true;
+        log.info("Recent-click buffers seeded from {} snapshot rows", view.rows());
+    }
+
+    private void loadCourseTypes() {
+        Map<Integer, Integer> types = new HashMap<>();
+        jdbcTemplate.query("SELECT course_index, type_id FROM courses", rs -> {
+            types.put(rs.getInt("course_index"), rs.getInt("type_id"));
+        });
+        courseTypes = types;
+        catalogLoadedAt = System.currentTimeMillis();
+    }
+
+    /** type_id of a course, or -1 if it is not in the catalog (yet). */
+    private int typeOf(int courseIndex) {
+        Integer type = courseTypes.get(courseIndex);
+        return type == null ? -1 : type;
+    }
+
+    private Ring ring(int studentIndex) {
+        Ring[] current = rings;
+        if (studentIndex < current.length && current[studentIndex] != null) return current[studentIndex];
+        synchronized (this) {
+            current = rings;
+            if (studentIndex >= current.length) {
+                current = Arrays.copyOf(current, Math.max(studentIndex + 1, current.length * 2));
+            }
+            if (current[studentIndex] == null) current[studentIndex] = new Ring(capacity);
+            rings = current;
+            return current[studentIndex];
+        }
+    }
+
+    private static long now() {
+        return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /** Fixed-size circular buffer ordered by time; the oldest click drops out when full. */
+    private static final class Ring {
+        private final int[] courses;
+        private final int[] types;
+        private final long[] times;
+        private int head; // slot of the oldest click
+        private int count;
+
+        Ring(int capacity) {
+            courses = new int[capacity];
+            types = new int[capacity];
+            times = new long[capacity];
+        }
+
+        synchronized void add(int course, int type, long time) {
+            int cap = times.length;
+            for (int i = 0; i < count; i++) {
+                int slot = (head + i) % cap;
+                if (courses[slot] == course && times[slot] == time) return;
+            }
+            if (count == cap && time < times[head]) return;
+            if (count == cap) {
+                head = (head + 1) % cap;
+                count--;
+            }
+            // Usually appended at the end; a click older than the newest (seeding racing
+            // live clicks) is shifted into place.
+            int pos = count;
+            while (pos > 0 && times[(head + pos - 1) % cap] > time) {
+                int from = (head + pos - 1) % cap;
+                int to = (head + pos) % cap;
+                courses[to] = courses[from];
+                types[to] = types[from];
+                times[to] = times[from];
+                pos--;
+            }
+            int slot = (head + pos) % cap;
+            courses[slot] = course;
+            types[slot] = type;
+            times[slot] = time;
+            count++;
+        }
+
+        synchronized Session session(long now) {
+            int cap = times.length;
+            int[] c = new int[count];
+            int[] t = new int[count];
+            long[] at = new long[count];
+            for (int i = 0; i < count; i++) {
+                int slot = (head + count - 1 - i) % cap;
+                c[i] = courses[slot];
+                t[i] = types[slot];
+                at[i] = times[slot];
+            }
+            return new Session(c, t, at, now);
+        }
+    }
+}
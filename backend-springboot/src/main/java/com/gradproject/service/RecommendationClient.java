@@ -1,29 +1,78 @@
 package com.gradproject.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import com.gradproject.config.Bulkhead;
+import com.gradproject.config.SingleFlight;
+import com.gradproject.config.SingleFlightRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Calls to backend-flask. Identical concurrent calls share one HTTP request
+ * ({@link SingleFlight}), so a burst for the same user, or everyone arriving while the
+ * recommender rebuilds its model, costs one call and one bulkhead permit.
+ */
 @Service
 public class RecommendationClient {
     private final RestTemplate restTemplate;
+    /** Present only in the virtual-thread mode (see BulkheadConfig). */
+    private final Bulkhead bulkhead;
+    private final SingleFlight<String, Map<?, ?>> recommendations;
+    private final SingleFlight<String, Map<?, ?>> evaluations;
 
     @Value("${recommender.base-url}")
     private String baseUrl;
 
-    public RecommendationClient(RestTemplate restTemplate) {
+    public RecommendationClient(RestTemplate restTemplate,
+                                @Qualifier("recommenderBulkhead") ObjectProvider<Bulkhead> bulkhead,
+                                SingleFlightRegistry singleFlights,
+                                @Value("${single-flight.recommender-timeout:30s}") Duration recommenderTimeout,
+                                @Value("${single-flight.evaluation-timeout:5m}") Duration evaluationTimeout) {
         this.restTemplate = restTemplate;
+        this.bulkhead = bulkhead.getIfAvailable();
+        this.recommendations = singleFlights.create("recommendations", recommenderTimeout);
+        this.evaluations = singleFlights.create("evaluation", evaluationTimeout);
     }
 
+    /** Each caller gets its own copy of the response, which it may filter in place. */
     public Map<?, ?> getRecommendations(String stuId, int topN) {
         String url = String.format("%s/api/recommend?userId=%s&topN=%d", baseUrl, stuId, topN);
-        return restTemplate.getForObject(url, Map.class);
+        return copy(recommendations.load(stuId + ":" + topN, () -> fetch(url)));
     }
 
     public Map<?, ?> getEvaluation(int topK, int maxUsers) {
         String url = String.format("%s/api/evaluate?topK=%d&maxUsers=%d", baseUrl, topK, maxUsers);
-        return restTemplate.getForObject(url, Map.class);
+        return evaluations.load(topK + ":" + maxUsers, () -> restTemplate.getForObject(url, Map.class));
+    }
+
+    private Map<?, ?> fetch(String url) {
+        if (bulkhead == null) return restTemplate.getForObject(url, Map.class);
+        bulkhead.acquire();
+        try {
+            return restTemplate.getForObject(url, Map.class);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /** Copies the response map, its lists and the maps in them; leaves other values shared. */
+    private static Map<?, ?> copy(Map<?, ?> response) {
+        if (response == null) return null;
+        Map<Object, Object> out = new LinkedHashMap<>(response);
+        out.replaceAll((key, value) -> {
+            if (!(value instanceof List<?> list)) return value;
+            List<Object> items = new ArrayList<>(list.size());
+            for (Object item : list) items.add(item instanceof Map<?, ?> m ? new LinkedHashMap<>(m) : item);
+            return items;
+        });
+        return out;
     }
 }
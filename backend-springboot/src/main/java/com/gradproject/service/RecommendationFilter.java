@@ -0,0 +1,60 @@
+package com.gradproject.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Post-filter applied to the recommender's raw output: drops courses outside the user's
+ * allowed categories, annotates the reason and trims to the requested size.
+ */
+@Component
+public class RecommendationFilter {
+
+    /**
+     * Filter {@code list} in place. An item is kept if its type_id is allowed, or if its
+     * type_name contains one of the allowed names. Empty allow-sets keep everything.
+     */
+    public void apply(List<?> list, Set<Integer> allowedTypeIds, Set<String> allowedTypeNames,
+                      String recentType, int topN) {
+        Iterator<?> iterator = list.iterator();
+        while (iterator.hasNext()) {
+            Object item = iterator.next();
+            if (item instanceof Map<?, ?> raw) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> map = (Map<String, Object>) raw;
+                Object typeIdObj = map.get("type_id");
+                boolean allowed = false;
+                if (!allowedTypeIds.isEmpty() && typeIdObj instanceof Number typeId) {
+                    allowed = allowedTypeIds.contains(typeId.intValue());
+                }
+                if (!allowed && !allowedTypeNames.isEmpty()) {
+                    Object typeNameObj = map.get("type_name");
+                    if (typeNameObj != null) {
+                        String typeName = String.valueOf(typeNameObj);
+                        for (String keyword : allowedTypeNames) {
+                            if (typeName.contains(keyword)) { allowed = true; break; }
+                        }
+                    }
+                }
+                if (!allowed && (!allowedTypeIds.isEmpty() || !allowedTypeNames.isEmpty())) {
+                    iterator.remove();
+                    continue;
+                }
+                if (recentType != null) {
+                    Object typeName = map.get("type_name");
+                    String reason = recentType.equals(typeName)
+                        ? "与你近期学习的科目相同" : "基于相似用户兴趣推荐";
+                    map.put("reason", reason);
+                }
+            }
+        }
+        // Trim to requested topN after filtering
+        while (list.size() > topN) {
+            list.remove(list.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.gradproject.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.gradproject.model.UserContext;
+import org.springframework.stereotype.Service;
+
+/**
+ * Personalised recommendations: asks the recommender for a wide candidate list, keeps
+ * the courses in the user's categories and re-ranks them by the user's latest clicks
+ * ({@link SessionReranker}). When nothing is left it retrieves the best
+ * allowed courses the user has not taken or just clicked from the MF factor index, then courses similar to the ones the user
+ * took, then popular courses.
+ */
+@Service
+public class RecommendationService {
+    /** Candidates requested per result, to compensate for category filtering. */
+    private static final int OVERFETCH = 10;
+
+    private final RecommendationClient recommendationClient;
+    private final RecommendationFilter recommendationFilter;
+    private final CourseService courseService;
+    private final SimilarCourseIndex similarCourseIndex;
+    private final CourseFactorIndex courseFactorIndex;
+    private final RecentClickBuffer recentClickBuffer;
+    private final SessionReranker sessionReranker;
+
+    public RecommendationService(RecommendationClient recommendationClient,
+                                 RecommendationFilter recommendationFilter,
+                                 CourseService courseService,
+                                 SimilarCourseIndex similarCourseIndex,
+                                 CourseFactorIndex courseFactorIndex,
+                                 RecentClickBuffer recentClickBuffer,
+                                 SessionReranker sessionReranker) {
+        this.recommendationClient = recommendationClient;
+        this.recommendationFilter = recommendationFilter;
+        this.courseService = courseService;
+        this.similarCourseIndex = similarCourseIndex;
+        this.courseFactorIndex = courseFactorIndex;
+        this.recentClickBuffer = recentClickBuffer;
+        this.sessionReranker = sessionReranker;
+    }
+
+    /** The context must have a stu_id mapping. */
+    public Map<?, ?> recommend(UserContext context, int topN) {
+        Set<Integer> allowedTypeIds = context.getAllowedTypeIds();
+        Map<?, ?> result = recommendationClient.getRecommendations(context.getStuId(), topN * OVERFETCH);
+        if (result.get("recommendations") instanceof List<?> list) {
+            recommendationFilter.apply(list, allowedTypeIds, context.getAllowedTypeNames(), null, list.size());
+            RecentClickBuffer.Session session = recentClickBuffer.session(context.getStudentIndex());
+            sessionReranker.rerank(list, session, topN);
+            if (list.isEmpty()) {
+                Set<Integer> seen = similarCourseIndex.takenCourses(context.getStudentIndex());
+                for (int courseIndex : session.courseIndexes()) seen.add(courseIndex);
+                List<Map<String, Object>> retrieved =
+                    courseFactorIndex.retrieve(context.getStudentIndex(), allowedTypeIds, seen, topN);
+                if (!retrieved.isEmpty()) return Map.of("recommendations", retrieved);
+                List<Map<String, Object>> similar =
+                    similarCourseIndex.candidatesFor(context.getStudentIndex(), allowedTypeIds, topN);
+                if (!similar.isEmpty()) return Map.of("recommendations", similar);
+                return Map.of("recommendations", courseService.findPopularByTypeIds(allowedTypeIds, topN));
+            }
+        }
+        return result;
+    }
+}
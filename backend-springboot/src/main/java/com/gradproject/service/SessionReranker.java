@@ -0,0 +1,96 @@
+package com.gradproject.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Query-time re-ranking of recommendations by the user's latest clicks, so a click counts
+ * on the very next request instead of after the next model rebuild.
+ * <p>
+ * Each click weighs 2^(-age / {@code recent-clicks.half-life}). A candidate gains
+ * {@code type-boost} times the share of that weight on its own type, plus
+ * {@code neighbour-boost} times the weighted similarity to the clicked courses from
+ * {@link SimilarCourseIndex}. The reason shown with each course comes from the same data.
+ */
+@Component
+public class SessionReranker {
+    static final String REASON_SAME_TYPE = "与你近期学习的科目相同";
+    static final String REASON_NEIGHBOUR = "与你最近浏览的课程相关";
+    static final String REASON_SIMILAR_USERS = "基于相似用户兴趣推荐";
+
+    private final SimilarCourseIndex similarCourseIndex;
+    private final double halfLifeSeconds;
+    private final double typeBoost;
+    private final double neighbourBoost;
+
+    public SessionReranker(SimilarCourseIndex similarCourseIndex,
+                           @Value("${recent-clicks.half-life:PT30M}") Duration halfLife,
+                           @Value("${recent-clicks.type-boost:0.2}") double typeBoost,
+                           @Value("${recent-clicks.neighbour-boost:0.3}") double neighbourBoost) {
+        this.similarCourseIndex = similarCourseIndex;
+        this.halfLifeSeconds = Math.max(1, halfLife.toSeconds());
+        this.typeBoost = typeBoost;
+        this.neighbourBoost = neighbourBoost;
+    }
+
+    /**
+     * Re-order {@code list} (recommender items with course_index, type_id and
+     * predicted_score) in place, set each item's reason and trim to {@code topN}.
+     */
+    public void rerank(List<?> list, RecentClickBuffer.Session session, int topN) {
+        Map<Integer, Double> typeWeight = new HashMap<>();
+        Map<Integer, Double> neighbourWeight = new HashMap<>();
+        double total = 0;
+        for (int i = 0; i < session.size(); i++) {
+            double w = Math.pow(2, -Math.max(0, session.now() - session.times()[i]) / halfLifeSeconds);
+            total += w;
+            typeWeight.merge(session.typeIds()[i], w, Double::sum);
+            for (Map<String, Object> neighbour : similarCourseIndex.similar(session.courseIndexes()[i], Integer.MAX_VALUE)) {
+                double score = ((Number) neighbour.get("predicted_score")).doubleValue();
+                neighbourWeight.merge((Integer) neighbour.get("course_index"), w * score, Double::sum);
+            }
+        }
+        Integer latestType = session.latestTypeId();
+
+        List<Ranked> ranked = new ArrayList<>(list.size());
+        for (int position = 0; position < list.size(); position++) {
+            if (!(list.get(position) instanceof Map<?, ?> raw)) continue;
+            @SuppressWarnings("unchecked")
+            Map<String, Object> item = (Map<String, Object>) raw;
+            Integer course = item.get("course_index") instanceof Number n ? n.intValue() : null;
+            Integer type = item.get("type_id") instanceof Number n ? n.intValue() : null;
+            double base = item.get("predicted_score") instanceof Number n ? n.doubleValue() : 0;
+            double sameType = total == 0 || type == null ? 0 : typeWeight.getOrDefault(type, 0.0) / total;
+            double neighbour = total == 0 || course == null ? 0 : neighbourWeight.getOrDefault(course, 0.0) / total;
+            ranked.add(new Ranked(item, base + typeBoost * sameType + neighbourBoost * neighbour, position));
+
+            if (!session.isEmpty()) {
+                String reason = type != null && type.equals(latestType) ? REASON_SAME_TYPE
+                    : neighbour > 0 ? REASON_NEIGHBOUR : REASON_SIMILAR_USERS;
+                item.put("reason", reason);
+            }
+        }
+        if (session.isEmpty() || ranked.size() != list.size()) {
+            trim(list, topN);
+            return;
+        }
+        ranked.sort(Comparator.comparingDouble(Ranked::score).reversed().thenComparingInt(Ranked::position));
+        @SuppressWarnings("unchecked")
+        List<Object> items = (List<Object>) list;
+        for (int i = 0; i < ranked.size(); i++) items.set(i, ranked.get(i).item());
+        trim(list, topN);
+    }
+
+    private static void trim(List<?> list, int topN) {
+        while (list.size() > topN) list.remove(list.size() - 1);
+    }
+
+    private record Ranked(Map<String, Object> item, double score, int position) {}
+}
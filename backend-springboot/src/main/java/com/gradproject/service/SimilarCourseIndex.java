@@ -0,0 +1,402 @@
+package com.gradproject.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Top-K "students who took this also took" index over the interaction snapshot.
+ * <p>
+ * Every student is a vector of time-decayed course weights, each interaction counting
+ * 2^(age / half-life) like {@code _time_weight} in backend-flask. The similarity of two
+ * courses is the cosine of their student columns, damped by min(common students, 10) / 10
+ * and dropped below {@code similar-courses.min-common}, again like the recommender's
+ * user-user similarity. Weights are taken relative to a fixed reference time instead of
+ * "now": that only scales every weight by the same factor, which cosine ignores, so old
+ * interactions never need touching again.
+ * <p>
+ * Refreshes read only the snapshot rows added since the last one and recompute the
+ * neighbour lists of the courses those students have taken. Lists of other courses may
+ * drift slightly as norms change, so all of them are recomputed every
+ * {@code similar-courses.full-recompute-interval}. Readers see an immutable {@link Index}
+ * of flat int/float arrays, K slots per course.
+ */
+@Service
+public class SimilarCourseIndex {
+    private static final Logger log = LoggerFactory.getLogger(SimilarCourseIndex.class);
+    /** Rebase the reference time before 2^exponent weights get anywhere near overflow. */
+    private static final double MAX_EXPONENT = 256;
+    private static final String COURSES_SQL = """
+        SELECT c.course_index, c.name, c.type_id, t.type_name
+        FROM courses c LEFT JOIN course_types t ON c.type_id = t.type_id
+        """;
+
+    private final InteractionSnapshot snapshot;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int topK;
+    private final double halfLifeSeconds;
+    private final int minCommon;
+    private final Duration fullRecomputeInterval;
+
+    // Writer state; only touched under the monitor, except users (see UserItems).
+    private volatile UserItems[] users = new UserItems[0];
+    private int[][] courseUsers = new int[0][];
+    private int[] courseUserCounts = new int[0];
+    private double[] norms = new double[0];
+    private int[] neighbours = new int[0];
+    private float[] scores = new float[0];
+    private int courseCount;
+    private long processedRows;
+    private int generation = -1;
+    private double referenceTime = Double.NaN;
+    private long lastFullRecompute;
+    // Scratch space for one course's dot products.
+    private double[] dots = new double[0];
+    private int[] commons = new int[0];
+
+    private volatile Index index = Index.EMPTY;
+    private volatile long lastRefreshMs;
+
+    public SimilarCourseIndex(InteractionSnapshot snapshot, JdbcTemplate jdbcTemplate,
+                              @Value("${similar-courses.enabled:true}") boolean enabled,
+                              @Value("${similar-courses.top-k:20}") int topK,
+                              @Value("${similar-courses.half-life-days:90}") double halfLifeDays,
+                              @Value("${similar-courses.min-common:2}") int minCommon,
+                              @Value("${similar-courses.full-recompute-interval:PT1H}") Duration fullRecomputeInterval) {
+        this.snapshot = snapshot;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.topK = topK;
+        this.halfLifeSeconds = halfLifeDays * 86400;
+        this.minCommon = minCommon;
+        this.fullRecomputeInterval = fullRecomputeInterval;
+    }
+
+    /** Course metadata as served with each neighbour. */
+    record CourseInfo(String name, Integer typeId, String typeName) {}
+
+    /**
+     * Neighbours of dense course {@code c} are {@code neighbours[c*k .. c*k+k)}, best first,
+     * padded with -1; {@code courseIndexes} maps dense ids to course_index.
+     */
+    record Index(int k, int[] neighbours, float[] scores, int[] courseIndexes,
+                 Map<Integer, Integer> denseIds, Map<Integer, CourseInfo> courses, long rows) {
+        static final Index EMPTY = new Index(0, new int[0], new float[0], new int[0], Map.of(), Map.of(), 0);
+    }
+
+    @Scheduled(fixedDelayString = "${similar-courses.refresh-interval:PT1M}", initialDelayString = "PT20S")
+    public void scheduledRefresh() {
+        if (!enabled) return;
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Similar-courses refresh failed: {}", e.toString());
+        }
+    }
+
+    /** Fold in snapshot rows added since the last refresh and republish the index. */
+    public synchronized void refresh() {
+        long start = System.nanoTime();
+        InteractionSnapshot.View view = snapshot.view();
+        boolean full = view.generation() != generation || view.rows() < processedRows;
+        if (full) clear(view.generation());
+        if (view.rows() == processedRows && !full && index != Index.EMPTY) return;
+
+        ensureCourses(view.courseIndexes().length);
+        if (Double.isNaN(referenceTime) && view.rows() > 0) referenceTime = maxTime(view);
+        BitSet touched = new BitSet();
+        for (int r = (int) processedRows; r < view.rows(); r++) {
+            add(view.student().get(r), view.course().get(r), view.time().get(r), full ? null : touched);
+        }
+        long added = view.rows() - processedRows;
+        processedRows = view.rows();
+
+        long now = System.currentTimeMillis();
+        if (full || now - lastFullRecompute >= fullRecomputeInterval.toMillis()) {
+            for (int c = 0; c < courseCount; c++) recompute(c);
+            lastFullRecompute = now;
+        } else {
+            touched.stream().forEach(this::recompute);
+        }
+        publish(view);
+        lastRefreshMs = (System.nanoTime() - start) / 1_000_000;
+        if (added > 0) {
+            log.info("Similar-courses index: +{} rows, {} courses, {} ms", added, courseCount, lastRefreshMs);
+        }
+    }
+
+    /** The most similar courses to {@code courseIndex}; empty when it has none (yet). */
+    public List<Map<String, Object>> similar(int courseIndex, int limit) {
+        Index idx = index;
+        Integer c = idx.denseIds().get(courseIndex);
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (c == null) return result;
+        for (int k = 0; k < Math.min(limit, idx.k()); k++) {
+            int n = idx.neighbours()[c * idx.k() + k];
+            if (n < 0) break;
+            result.add(toItem(idx, idx.courseIndexes()[n], idx.scores()[c * idx.k() + k]));
+        }
+        return result;
+    }
+
+    /** course_index of every course the student took, per the interaction snapshot. */
+    public Set<Integer> takenCourses(int studentIndex) {
+        Index idx = index;
+        UserItems[] snapshotUsers = users;
+        if (studentIndex < 0 || studentIndex >= snapshotUsers.length || snapshotUsers[studentIndex] == null) {
+            return new HashSet<>();
+        }
+        UserItems items = snapshotUsers[studentIndex];
+        Set<Integer> taken = new HashSet<>(items.size * 2);
+        for (int i = 0; i < items.size; i++) {
+            if (items.courses[i] < idx.courseIndexes().length) taken.add(idx.courseIndexes()[items.courses[i]]);
+        }
+        return taken;
+    }
+
+    /**
+     * Recommendation candidates for a student: the neighbours of the courses they took,
+     * scored by similarity times the student's weight for the course, limited to the
+     * given type ids and normalised to [0, 1]. Courses the student took are left out.
+     */
+    public List<Map<String, Object>> candidatesFor(int studentIndex, Set<Integer> allowedTypeIds, int limit) {
+        Index idx = index;
+        UserItems[] snapshotUsers = users;
+        if (studentIndex < 0 || studentIndex >= snapshotUsers.length || snapshotUsers[studentIndex] == null) {
+            return new ArrayList<>();
+        }
+        UserItems items = snapshotUsers[studentIndex];
+        Map<Integer, Double> acc = new HashMap<>();
+        for (int i = 0; i < items.size; i++) {
+            int c = items.courses[i];
+            if (c >= idx.courseIndexes().length) continue;
+            for (int k = 0; k < idx.k(); k++) {
+                int n = idx.neighbours()[c * idx.k() + k];
+                if (n < 0) break;
+                if (items.indexOf(n) >= 0) continue;
+                acc.merge(n, items.weights[i] * idx.scores()[c * idx.k() + k], Double::sum);
+            }
+        }
+        double max = acc.values().stream().mapToDouble(Double::doubleValue).max().orElse(1);
+        List<Map<String, Object>> result = new ArrayList<>();
+        acc.entrySet().stream()
+            .filter(e -> {
+                CourseInfo info = idx.courses().get(idx.courseIndexes()[e.getKey()]);
+                return info != null && allowedTypeIds.contains(info.typeId());
+            })
+            .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
+            .limit(limit)
+            .forEach(e -> result.add(toItem(idx, idx.courseIndexes()[e.getKey()], e.getValue() / max)));
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Index idx = index;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("rows", idx.rows());
+        m.put("courses", idx.courseIndexes().length);
+        m.put("topK", idx.k());
+        m.put("lastRefreshMs", lastRefreshMs);
+        return m;
+    }
+
+    private static Map<String, Object> toItem(Index idx, int courseIndex, double score) {
+        CourseInfo info = idx.courses().get(courseIndex);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("course_index", courseIndex);
+        m.put("name", info == null ? "" : info.name());
+        m.put("type_name", info == null ? "" : info.typeName());
+        m.put("type_id", info == null ? null : info.typeId());
+        m.put("predicted_score", Math.round(score * 10000) / 10000.0);
+        return m;
+    }
+
+    // ---------------------------------------------------------------- building
+
+    private void add(int student, int course, long time, BitSet touched) {
+        double exponent = (time - referenceTime) / halfLifeSeconds;
+        if (exponent > MAX_EXPONENT) {
+            rebase(time);
+            exponent = 0;
+        }
+        double w = Math.pow(2, exponent);
+        if (student >= users.length) users = Arrays.copyOf(users, Math.max(student + 1, users.length * 2));
+        UserItems items = users[student];
+        int pos = items == null ? -1 : items.indexOf(course);
+        double before = pos < 0 ? 0 : items.weights[pos];
+        users[student] = items == null ? UserItems.of(course, w) : items.with(pos, course, before + w);
+        if (pos < 0) addCourseUser(course, student);
+        norms[course] += (before + w) * (before + w) - before * before;
+        if (touched != null) {
+            UserItems now = users[student];
+            for (int i = 0; i < now.size; i++) touched.set(now.courses[i]);
+        }
+    }
+
+    /** Move the reference time to {@code time}, scaling every weight down to match. */
+    private void rebase(long time) {
+        double factor = Math.pow(2, -(time - referenceTime) / halfLifeSeconds);
+        UserItems[] all = users;
+        for (int u = 0; u < all.length; u++) {
+            if (all[u] != null) all[u] = all[u].scaled(factor);
+        }
+        for (int c = 0; c < courseCount; c++) norms[c] *= factor * factor;
+        referenceTime = time;
+    }
+
+    private void addCourseUser(int course, int student) {
+        int[] list = courseUsers[course];
+        int n = courseUserCounts[course];
+        if (list == null) list = courseUsers[course] = new int[4];
+        else if (n == list.length) list = courseUsers[course] = Arrays.copyOf(list, n * 2);
+        list[n] = student;
+        courseUserCounts[course] = n + 1;
+    }
+
+    /** Recompute the neighbour list of dense course {@code c} from its students' vectors. */
+    private void recompute(int c) {
+        int[] students = courseUsers[c];
+        List<Integer> seen = new ArrayList<>();
+        for (int s = 0; s < courseUserCounts[c]; s++) {
+            UserItems items = users[students[s]];
+            double wc = items.weights[items.indexOf(c)];
+            for (int i = 0; i < items.size; i++) {
+                int other = items.courses[i];
+                if (other == c) continue;
+                if (commons[other]++ == 0) seen.add(other);
+                dots[other] += wc * items.weights[i];
+            }
+        }
+        int base = c * topK;
+        Arrays.fill(neighbours, base, base + topK, -1);
+        Arrays.fill(scores, base, base + topK, 0f);
+        for (int other : seen) {
+            int common = commons[other];
+            if (common >= minCommon) {
+                double sim = dots[other] / Math.sqrt(norms[c] * norms[other]) * Math.min(common, 10) / 10.0;
+                offer(base, other, (float) sim);
+            }
+            dots[other] = 0;
+            commons[other] = 0;
+        }
+    }
+
+    /** Insert into the sorted top-K slots at {@code base} if the score is good enough. */
+    private void offer(int base, int course, float score) {
+        int k = topK - 1;
+        if (neighbours[base + k] >= 0 && scores[base + k] >= score) return;
+        while (k > 0 && (neighbours[base + k - 1] < 0 || scores[base + k - 1] < score)) {
+            neighbours[base + k] = neighbours[base + k - 1];
+            scores[base + k] = scores[base + k - 1];
+            k--;
+        }
+        neighbours[base + k] = course;
+        scores[base + k] = score;
+    }
+
+    private void ensureCourses(int count) {
+        if (count <= courseCount) return;
+        courseUsers = Arrays.copyOf(courseUsers, count);
+        courseUserCounts = Arrays.copyOf(courseUserCounts, count);
+        norms = Arrays.copyOf(norms, count);
+        dots = Arrays.copyOf(dots, count);
+        commons = Arrays.copyOf(commons, count);
+        int oldSlots = neighbours.length;
+        neighbours = Arrays.copyOf(neighbours, count * topK);
+        scores = Arrays.copyOf(scores, count * topK);
+        Arrays.fill(neighbours, oldSlots, neighbours.length, -1);
+        courseCount = count;
+    }
+
+    private void clear(int newGeneration) {
+        users = new UserItems[0];
+        courseUsers = new int[0][];
+        courseUserCounts = new int[0];
+        norms = new double[0];
+        neighbours = new int[0];
+        scores = new float[0];
+        dots = new double[0];
+        commons = new int[0];
+        courseCount = 0;
+        processedRows = 0;
+        referenceTime = Double.NaN;
+        generation = newGeneration;
+    }
+
+    private static double maxTime(InteractionSnapshot.View view) {
+        long max = Long.MIN_VALUE;
+        for (int r = 0; r < view.rows(); r++) max = Math.max(max, view.time().get(r));
+        return max;
+    }
+
+    private void publish(InteractionSnapshot.View view) {
+        int[] courseIndexes = Arrays.copyOf(view.courseIndexes(), courseCount);
+        Map<Integer, Integer> denseIds = new HashMap<>(courseCount * 2);
+        for (int c = 0; c < courseCount; c++) denseIds.put(courseIndexes[c], c);
+        Map<Integer, CourseInfo> courses = new HashMap<>();
+        jdbcTemplate.query(COURSES_SQL, rs -> {
+            courses.put(rs.getInt("course_index"), new CourseInfo(
+                rs.getString("name"), (Integer) rs.getObject("type_id"), rs.getString("type_name")));
+        });
+        index = new Index(topK, neighbours.clone(), scores.clone(), courseIndexes, denseIds, courses, processedRows);
+    }
+
+    /**
+     * One student's courses and weights. Immutable and replaced on every change, so
+     * request threads can read a student's vector while a refresh is running.
+     */
+    private static final class UserItems {
+        final int[] courses;
+        final double[] weights;
+        final int size;
+
+        private UserItems(int[] courses, double[] weights, int size) {
+            this.courses = courses;
+            this.weights = weights;
+            this.size = size;
+        }
+
+        static UserItems of(int course, double weight) {
+            return new UserItems(new int[] {course}, new double[] {weight}, 1);
+        }
+
+        int indexOf(int course) {
+            for (int i = 0; i < size; i++) {
+                if (courses[i] == course) return i;
+            }
+            return -1;
+        }
+
+        /** A copy with the weight at {@code pos} replaced, or the course appended when pos is -1. */
+        UserItems with(int pos, int course, double weight) {
+            int n = pos < 0 ? size + 1 : size;
+            int[] c = Arrays.copyOf(courses, n);
+            double[] w = Arrays.copyOf(weights, n);
+            c[pos < 0 ? size : pos] = course;
+            w[pos < 0 ? size : pos] = weight;
+            return new UserItems(c, w, n);
+        }
+
+        UserItems scaled(double factor) {
+            double[] w = new double[size];
+            for (int i = 0; i < size; i++) w[i] = weights[i] * factor;
+            return new UserItems(courses, w, size);
+        }
+    }
+}
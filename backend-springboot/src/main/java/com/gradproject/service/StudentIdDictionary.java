@@ -0,0 +1,213 @@
+package com.gradproject.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Two-way dictionary between stu_id strings and dense ints (0, 1, 2, ...), so per-student
+ * data can live in arrays indexed by student instead of maps keyed by VARCHAR.
+ * <p>
+ * Indexes never change once handed out: they are appended to {@code student-ids.file},
+ * one stu_id per line, and forced to disk before anyone sees them. That file is the
+ * {@code students.dict} of the interaction snapshot, whose columns store these indexes.
+ * At startup the file is read back and every student in the table that is not in it yet
+ * is appended; new students are added as they are assigned or imported.
+ * <p>
+ * Two processes appending to one file would hand out the same index twice, so the file
+ * has a single writer: {@code <file>.lock} is locked at startup and held until shutdown.
+ * An instance that does not get the lock, or runs with {@code snapshot.enabled=false},
+ * keeps its dictionary in memory only. Its indexes are then its own and differ from the
+ * file's, which is fine because they never leave the process; only the snapshot columns
+ * store indexes, and that instance does not write them.
+ */
+@Service
+public class StudentIdDictionary {
+    private static final Logger log = LoggerFactory.getLogger(StudentIdDictionary.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path file;
+    private final boolean enabled;
+    private FileChannel lockChannel;
+    private volatile boolean persisted;
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    /** stuIds[i] for i < size is published; written under the monitor only. */
+    private volatile String[] stuIds = new String[1024];
+    private volatile int size;
+
+    public StudentIdDictionary(JdbcTemplate jdbcTemplate,
+                               @Value("${student-ids.file:${snapshot.directory:../data/snapshot}/students.dict}") String file,
+                               @Value("${snapshot.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.file = Paths.get(file).toAbsolutePath().normalize();
+        this.enabled = enabled;
+    }
+
+    /** Take the writer lock and read the persisted indexes back, cutting off a line torn by a crash. */
+    @PostConstruct
+    public synchronized void load() {
+        if (!enabled) return;
+        try {
+            Files.createDirectories(file.getParent());
+            if (!lock()) {
+                log.warn("Student dictionary {} is written by another process; keeping indexes in memory only", file);
+                return;
+            }
+            persisted = true;
+            if (!Files.exists(file)) return;
+            byte[] bytes = Files.readAllBytes(file);
+            int offset = 0;
+            for (int end = 0; end < bytes.length; end++) {
+                if (bytes[end] != '\n') continue;
+                publish(new String(bytes, offset, end - offset, StandardCharsets.UTF_8));
+                offset = end + 1;
+            }
+            if (offset < bytes.length) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(offset);
+                }
+            }
+            log.info("Loaded {} student ids from {}", size, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read student dictionary " + file, e);
+        }
+    }
+
+    private boolean lock() throws IOException {
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            return false;
+        }
+        lockChannel = channel;
+        return true;
+    }
+
+    @PreDestroy
+    public void unlock() throws IOException {
+        if (lockChannel != null) lockChannel.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadStudents() {
+        try {
+            int added = internAll(jdbcTemplate.queryForList("SELECT stu_id FROM students ORDER BY stu_id", String.class));
+            if (added > 0) log.info("Student dictionary: {} new students, {} total", added, size);
+        } catch (DataAccessException e) {
+            log.warn("Student dictionary not preloaded: {}", e.getMessage());
+        }
+    }
+
+    /** Dense index of a stu_id, or -1 if it has none yet. */
+    public int indexOf(String stuId) {
+        Integer index = indexes.get(stuId);
+        return index == null ? -1 : index;
+    }
+
+    /** The stu_id of a dense index. */
+    public String stuIdAt(int index) {
+        int n = size;
+        if (index < 0 || index >= n) throw new IndexOutOfBoundsException("student index " + index + " of " + n);
+        return stuIds[index];
+    }
+
+    /** Number of indexes handed out; every index below it is on disk when the file is persisted. */
+    public int size() {
+        return size;
+    }
+
+    /** Dense index of a stu_id, assigning (and persisting) the next one if it has none. */
+    public int intern(String stuId) {
+        Integer index = indexes.get(stuId);
+        if (index != null) return index;
+        internAll(List.of(stuId));
+        return indexes.get(stuId);
+    }
+
+    /** Assign indexes to the stu_ids that have none, with a single append; returns how many. */
+    public synchronized int internAll(Collection<String> candidates) {
+        Set<String> fresh = new LinkedHashSet<>();
+        for (String stuId : candidates) {
+            if (stuId.indexOf('\n') >= 0 || stuId.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("stu_id contains a line break");
+            }
+            if (!indexes.containsKey(stuId)) fresh.add(stuId);
+        }
+        if (fresh.isEmpty()) return 0;
+        if (!persisted) {
+            fresh.forEach(this::publish);
+            return fresh.size();
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (String stuId : fresh) lines.append(stuId).append('\n');
+        ByteBuffer data = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            while (data.hasRemaining()) channel.write(data);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot extend student dictionary " + file, e);
+        }
+        fresh.forEach(this::publish);
+        return fresh.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("file", file.toString());
+        m.put("persisted", persisted);
+        m.put("students", size);
+        return m;
+    }
+
+    /**
+     * Give the stu_id the next index. A line repeated in the file keeps its slot but
+     * lookups return the first index, so the line number always equals the index.
+     */
+    private void publish(String stuId) {
+        int index = size;
+        String[] array = stuIds;
+        if (index == array.length) array = Arrays.copyOf(array, index * 2);
+        array[index] = stuId;
+        stuIds = array;
+        size = index + 1;
+        indexes.putIfAbsent(stuId, index);
+    }
+}
@@ -0,0 +1,395 @@
+package com.gradproject.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Most-clicked courses over a sliding window of up to 24 hours, answered from memory.
+ * <p>
+ * Clicks from {@link CourseService#recordInteraction} are counted in 60 minute buckets
+ * and 24 hour buckets, each a ring slot reused once its minute or hour has passed. A
+ * bucket is a count-min sketch plus the {@code trending.candidates} courses with the
+ * highest estimates in it, so memory stays fixed however large the catalog gets. The
+ * candidates form a min-heap on their estimates, so a click costs one sketch update and
+ * at most a few heap moves rather than a re-estimate of every candidate. A query
+ * sums the sketches of the buckets in the window for the union of their candidates and
+ * keeps the best with a bounded heap. Windows up to an hour use minute buckets; longer
+ * ones are rounded up to whole hours.
+ * <p>
+ * Counts are per instance: each one counts the clicks it served, so behind a load
+ * balancer every node reports its own share of the traffic, not the cluster total.
+ * <p>
+ * The buckets are written to {@code trending.file} on shutdown and every
+ * {@code trending.checkpoint-interval}, and read back on startup. The file belongs to one
+ * instance: {@code <file>.lock} is held while the app runs. A second instance on the same
+ * file logs a warning and keeps its counters in memory only, so they start empty there and
+ * do not survive a restart.
+ */
+@Service
+public class TrendingCourses {
+    private static final Logger log = LoggerFactory.getLogger(TrendingCourses.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final int MINUTES = 60;
+    private static final int HOURS = 24;
+    private static final Pattern WINDOW = Pattern.compile("(\\d+)([mh])");
+    private static final String COURSES_SQL = """
+        SELECT c.course_index, c.name, c.type_id, t.type_name
+        FROM courses c LEFT JOIN course_types t ON c.type_id = t.type_id
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path file;
+    private final int depth;
+    private final int width;
+    private final int candidates;
+    private final Bucket[] minutes = new Bucket[MINUTES];
+    private final Bucket[] hours = new Bucket[HOURS];
+
+    private volatile Map<Integer, CourseInfo> catalog = Map.of();
+    private FileChannel lockChannel;
+    private boolean persisted;
+
+    public TrendingCourses(JdbcTemplate jdbcTemplate,
+                           @Value("${trending.file:${snapshot.directory:../data/snapshot}/trending.bin}") String file,
+                           @Value("${trending.depth:4}") int depth,
+                           @Value("${trending.width:2048}") int width,
+                           @Value("${trending.candidates:200}") int candidates) {
+        if (Integer.bitCount(width) != 1) throw new IllegalArgumentException("trending.width must be a power of two");
+        this.jdbcTemplate = jdbcTemplate;
+        this.file = Paths.get(file).toAbsolutePath().normalize();
+        this.depth = depth;
+        this.width = width;
+        this.candidates = candidates;
+        for (int i = 0; i < MINUTES; i++) minutes[i] = new Bucket();
+        for (int i = 0; i < HOURS; i++) hours[i] = new Bucket();
+    }
+
+    private record CourseInfo(String name, int typeId, String typeName) {}
+
+    private record Scored(int course, long count) {}
+
+    @PostConstruct
+    public void load() {
+        persisted = lock();
+        if (!persisted) {
+            log.warn("Trending counters {} are written by another process; keeping them in memory only", file);
+            return;
+        }
+        if (!Files.exists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION || in.readInt() != depth || in.readInt() != width
+                    || in.readInt() != candidates) {
+                log.info("Trending counters in {} were written with other settings; starting empty", file);
+                return;
+            }
+            for (Bucket bucket : minutes) bucket.read(in);
+            for (Bucket bucket : hours) bucket.read(in);
+            log.info("Trending counters restored from {}", file);
+        } catch (IOException e) {
+            log.warn("Could not read trending counters from {}: {}", file, e.toString());
+            for (Bucket bucket : minutes) bucket.reset(-1);
+            for (Bucket bucket : hours) bucket.reset(-1);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        save();
+        if (lockChannel != null) lockChannel.close();
+    }
+
+    private boolean lock() {
+        try {
+            Files.createDirectories(file.getParent());
+            FileChannel channel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                channel.close();
+                return false;
+            }
+            lockChannel = channel;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot lock trending counters " + file, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trending.checkpoint-interval:PT5M}", initialDelayString = "${trending.checkpoint-interval:PT5M}")
+    public void checkpoint() {
+        save();
+    }
+
+    /** Reload names and types for the results; counting does not depend on it. */
+    @Scheduled(fixedDelayString = "${trending.catalog-refresh:PT10M}", initialDelayString = "PT5S")
+    public void refreshCatalog() {
+        try {
+            Map<Integer, CourseInfo> courses = new HashMap<>();
+            jdbcTemplate.query(COURSES_SQL, rs -> {
+                courses.put(rs.getInt("course_index"), new CourseInfo(rs.getString("name"),
+                    rs.getInt("type_id"), rs.getString("type_name")));
+            });
+            catalog = courses;
+        } catch (RuntimeException e) {
+            log.warn("Trending catalog refresh failed: {}", e.toString());
+        }
+    }
+
+    /** Count a click on a course now. */
+    public void record(int courseIndex) {
+        long minute = System.currentTimeMillis() / 60_000;
+        long hour = minute / 60;
+        minutes[(int) (minute % MINUTES)].add(minute, courseIndex);
+        hours[(int) (hour % HOURS)].add(hour, courseIndex);
+    }
+
+    /**
+     * Window length in minutes from "30m" or "6h" style text.
+     *
+     * @throws IllegalArgumentException when it is malformed, zero or longer than 24h
+     */
+    public static int parseWindow(String window) {
+        Matcher m = WINDOW.matcher(window == null ? "" : window.trim());
+        if (!m.matches()) throw new IllegalArgumentException("window must look like 30m or 6h");
+        long minutes = Long.parseLong(m.group(1)) * (m.group(2).equals("h") ? 60 : 1);
+        if (minutes < 1 || minutes > HOURS * 60) throw new IllegalArgumentException("window must be between 1m and 24h");
+        return (int) minutes;
+    }
+
+    /**
+     * The {@code limit} courses clicked most in the last {@code windowMinutes}, optionally
+     * of one type, each with its estimated click count.
+     */
+    public List<Map<String, Object>> trending(int windowMinutes, Integer typeId, int limit) {
+        long minute = System.currentTimeMillis() / 60_000;
+        List<Bucket> window = new ArrayList<>();
+        List<Long> epochs = new ArrayList<>();
+        if (windowMinutes <= MINUTES) {
+            for (long e = minute - windowMinutes + 1; e <= minute; e++) {
+                window.add(minutes[(int) (e % MINUTES)]);
+                epochs.add(e);
+            }
+        } else {
+            long hour = minute / 60;
+            for (long e = hour - (windowMinutes + 59) / 60 + 1; e <= hour; e++) {
+                window.add(hours[(int) (e % HOURS)]);
+                epochs.add(e);
+            }
+        }
+
+        Map<Integer, CourseInfo> courses = catalog;
+        Set<Integer> union = new HashSet<>();
+        for (int i = 0; i < window.size(); i++) window.get(i).candidatesInto(epochs.get(i), union);
+        if (typeId != null) union.removeIf(c -> courses.get(c) == null || courses.get(c).typeId() != typeId);
+
+        PriorityQueue<Scored> best = new PriorityQueue<>(Comparator.comparingLong(Scored::count));
+        for (int course : union) {
+            long count = 0;
+            for (int i = 0; i < window.size(); i++) count += window.get(i).estimate(epochs.get(i), course);
+            if (count == 0) continue;
+            best.add(new Scored(course, count));
+            if (best.size() > limit) best.poll();
+        }
+        List<Map<String, Object>> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            Scored s = best.poll();
+            CourseInfo info = courses.get(s.course());
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("course_index", s.course());
+            item.put("name", info == null ? null : info.name());
+            item.put("type_name", info == null ? null : info.typeName());
+            item.put("type_id", info == null ? null : info.typeId());
+            item.put("clicks", s.count());
+            result.add(0, item);
+        }
+        return result;
+    }
+
+    private void save() {
+        if (!persisted) return;
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream raw = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(raw))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(depth);
+                out.writeInt(width);
+                out.writeInt(candidates);
+                for (Bucket bucket : minutes) bucket.write(out);
+                for (Bucket bucket : hours) bucket.write(out);
+            }
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Could not write trending counters to {}: {}", file, e.toString());
+        }
+    }
+
+    private int slot(int row, int course) {
+        // splitmix64 finaliser with a fixed seed per row, so saved sketches stay valid
+        // across restarts.
+        long h = course + (row + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return row * width + (int) (h & (width - 1));
+    }
+
+    /** One minute or hour: a count-min sketch and its heaviest courses. */
+    private final class Bucket {
+        private long epoch = -1;
+        private final int[] sketch = new int[depth * width];
+        // Min-heap of candidates on the estimate each had when last counted. Shared sketch
+        // slots can raise an estimate later, so the root is refreshed before it is evicted.
+        private final int[] top = new int[candidates];
+        private final int[] topEstimate = new int[candidates];
+        private final Map<Integer, Integer> position = new HashMap<>();
+        private int topCount;
+
+        synchronized void add(long now, int course) {
+            if (epoch != now) reset(now);
+            int estimate = Integer.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                int s = slot(row, course);
+                estimate = Math.min(estimate, ++sketch[s]);
+            }
+            Integer pos = position.get(course);
+            if (pos != null) {
+                topEstimate[pos] = estimate;
+                siftDown(pos);
+            } else if (topCount < top.length) {
+                place(topCount, course, estimate);
+                siftUp(topCount++);
+            } else {
+                int current;
+                while ((current = estimateLocked(top[0])) != topEstimate[0]) {
+                    topEstimate[0] = current;
+                    siftDown(0);
+                }
+                if (estimate > topEstimate[0]) {
+                    position.remove(top[0]);
+                    place(0, course, estimate);
+                    siftDown(0);
+                }
+            }
+        }
+
+        synchronized void candidatesInto(long at, Set<Integer> out) {
+            if (epoch != at) return;
+            for (int i = 0; i < topCount; i++) out.add(top[i]);
+        }
+
+        synchronized int estimate(long at, int course) {
+            return epoch == at ? estimateLocked(course) : 0;
+        }
+
+        private int estimateLocked(int course) {
+            int estimate = Integer.MAX_VALUE;
+            for (int row = 0; row < depth; row++) estimate = Math.min(estimate, sketch[slot(row, course)]);
+            return estimate;
+        }
+
+        private void place(int i, int course, int estimate) {
+            top[i] = course;
+            topEstimate[i] = estimate;
+            position.put(course, i);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (topEstimate[parent] <= topEstimate[i]) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < topCount && topEstimate[left] < topEstimate[smallest]) smallest = left;
+                if (right < topCount && topEstimate[right] < topEstimate[smallest]) smallest = right;
+                if (smallest == i) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int course = top[a];
+            int estimate = topEstimate[a];
+            place(a, top[b], topEstimate[b]);
+            place(b, course, estimate);
+        }
+
+        synchronized void reset(long now) {
+            epoch = now;
+            Arrays.fill(sketch, 0);
+            position.clear();
+            topCount = 0;
+        }
+
+        synchronized void write(DataOutputStream out) throws IOException {
+            out.writeLong(epoch);
+            out.writeInt(topCount);
+            for (int i = 0; i < topCount; i++) out.writeInt(top[i]);
+            for (int v : sketch) out.writeInt(v);
+        }
+
+        synchronized void read(DataInputStream in) throws IOException {
+            epoch = in.readLong();
+            topCount = in.readInt();
+            if (topCount < 0 || topCount > top.length) throw new IOException("bad candidate count " + topCount);
+            for (int i = 0; i < topCount; i++) top[i] = in.readInt();
+            for (int i = 0; i < sketch.length; i++) sketch[i] = in.readInt();
+            position.clear();
+            for (int i = 0; i < topCount; i++) place(i, top[i], estimateLocked(top[i]));
+            for (int i = topCount / 2 - 1; i >= 0; i--) siftDown(i);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.gradproject.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import com.gradproject.model.User;
+import com.gradproject.model.UserContext;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+@Service
+public class UserContextService {
+    /** Type-name keywords that make up the fixed (non-major) exam categories. */
+    public static final List<String> MATH_KEYWORDS = List.of("数学");
+    public static final List<String> ENGLISH_KEYWORDS = List.of("英语", "外语");
+    public static final List<String> POLITICS_KEYWORDS = List.of("政治", "哲学");
+    public static final List<String> CATEGORY_KEYWORDS = List.of("数学", "英语", "外语", "政治", "哲学");
+
+    private final AuthService authService;
+    private final CourseService courseService;
+    private final StudentIdDictionary studentIds;
+
+    public UserContextService(AuthService authService, CourseService courseService,
+                              StudentIdDictionary studentIds) {
+        this.authService = authService;
+        this.courseService = courseService;
+        this.studentIds = studentIds;
+    }
+
+    /**
+     * Resolve everything a request needs to know about the user in one place.
+     * Creates the stu_id mapping on first use, like {@link AuthService#ensureMapping}.
+     * Contexts without a stu_id (unknown users) are not cached.
+     */
+    @Cacheable(value = "userContext", key = "#userId", unless = "#result.stuId == null")
+    public UserContext getContext(long userId) {
+        Optional<User> user = authService.getUserById(userId);
+        String stuId = user.isPresent() ? authService.ensureMapping(userId) : null;
+        Integer majorTypeId = user.map(User::getMajorTypeId).orElse(null);
+        return contextFor(userId, stuId, majorTypeId, resolveCategories());
+    }
+
+    /** type_ids of the fixed exam categories, which are the same for every user. */
+    public record Categories(Set<Integer> math, Set<Integer> english, Set<Integer> politics) {}
+
+    public Categories resolveCategories() {
+        return new Categories(typeIdsFor(MATH_KEYWORDS), typeIdsFor(ENGLISH_KEYWORDS), typeIdsFor(POLITICS_KEYWORDS));
+    }
+
+    /**
+     * Context from data the caller already has, for callers that load many users at once
+     * and resolve the categories only once (see {@link BulkRecommendationService}).
+     */
+    public UserContext contextFor(long userId, String stuId, Integer majorTypeId, Categories categories) {
+        int studentIndex = stuId == null ? -1 : studentIds.intern(stuId);
+        String majorTypeName = majorTypeId == null ? null : courseService.findTypeNameById(majorTypeId);
+        return new UserContext(userId, stuId, studentIndex, majorTypeId, majorTypeName,
+            categories.math(), categories.english(), categories.politics(), CATEGORY_KEYWORDS);
+    }
+
+    private Set<Integer> typeIdsFor(List<String> keywords) {
+        Set<Integer> typeIds = new HashSet<>();
+        for (String keyword : keywords) {
+            typeIds.addAll(courseService.findTypeIdsByKeyword(keyword));
+        }
+        return typeIds;
+    }
+}
@@ -0,0 +1,357 @@
+package com.gradproject.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Deletes user accounts in the background. A user's wrong questions and study plans go
+ * in primary-key ranges of {@code purge.chunk-size} rows, each range in its own short
+ * transaction with {@code purge.pause} between them, so live quiz writes never wait long
+ * on row locks. The user row itself goes last, together with whatever children were
+ * added meanwhile. For inactivity purges every one of those transactions first locks the
+ * user row and re-checks the inactivity predicate, so a user who became active after
+ * the job was queued is skipped rather than deleted.
+ * <p>
+ * Jobs run one at a time on the instance that accepted them. Their status is kept in
+ * {@link JobStore} (written at most once per {@code purge.progress-interval}), so any
+ * instance can report it or record a cancel request, which the running job picks up at
+ * its next progress write.
+ */
+@Service
+public class UserPurgeService {
+    private static final Logger log = LoggerFactory.getLogger(UserPurgeService.class);
+    private static final String JOB_KIND = "purge";
+    private static final int LISTED_JOBS = 50;
+    /** Child tables emptied chunk by chunk before the user row is deleted. */
+    private static final List<String> CHUNKED_TABLES = List.of("wrong_questions", "study_plans");
+
+    /** Four parameters, all the cutoff timestamp. */
+    private static final String INACTIVE_SINCE = """
+        u.created_at < ?
+          AND NOT EXISTS (SELECT 1 FROM wrong_questions w WHERE w.user_id = u.id AND w.created_at >= ?)
+          AND NOT EXISTS (SELECT 1 FROM study_plans p WHERE p.user_id = u.id AND p.updated_at >= ?)
+          AND NOT EXISTS (SELECT 1 FROM user_student_map m JOIN interactions i ON i.stu_id = m.stu_id
+                          WHERE m.user_id = u.id AND i.time >= ?)
+        """;
+    private static final String INACTIVE_USERS_SQL =
+        "SELECT u.id FROM users u WHERE " + INACTIVE_SINCE + " ORDER BY u.id LIMIT ?";
+    private static final String STILL_INACTIVE_SQL =
+        "SELECT COUNT(*) FROM users u WHERE u.id = ? AND " + INACTIVE_SINCE;
+
+    private enum Outcome { PURGED, SKIPPED, CANCELLED }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final JobStore jobStore;
+    private final int chunkSize;
+    private final Duration pause;
+    private final int maxUsers;
+    private final int minInactiveDays;
+    private final long progressIntervalNanos;
+    private final ThreadPoolExecutor worker;
+    /** Queued and running jobs of this instance. */
+    private final Map<String, PurgeJob> jobs = new ConcurrentHashMap<>();
+
+    public UserPurgeService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            CacheManager cacheManager, JobStore jobStore,
+                            @Value("${purge.chunk-size:500}") int chunkSize,
+                            @Value("${purge.pause:50ms}") Duration pause,
+                            @Value("${purge.max-users:5000}") int maxUsers,
+                            @Value("${purge.min-inactive-days:90}") int minInactiveDays,
+                            @Value("${purge.queue-capacity:16}") int queueCapacity,
+                            @Value("${purge.progress-interval:1s}") Duration progressInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(30);
+        this.cacheManager = cacheManager;
+        this.jobStore = jobStore;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.maxUsers = maxUsers;
+        this.minInactiveDays = minInactiveDays;
+        this.progressIntervalNanos = progressInterval.toNanos();
+        AtomicInteger threadIds = new AtomicInteger();
+        this.worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread t = new Thread(r, "user-purge-" + threadIds.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.cancelled = true);
+        worker.shutdownNow();
+    }
+
+    public int getMinInactiveDays() {
+        return minInactiveDays;
+    }
+
+    /**
+     * Queue the deletion of one user.
+     *
+     * @throws RejectedExecutionException when too many purge jobs are queued
+     */
+    public Optional<Map<String, Object>> purgeUser(long userId) {
+        Integer exists = jdbcTemplate.query("SELECT 1 FROM users WHERE id = ?",
+            rs -> rs.next() ? 1 : null, userId);
+        if (exists == null) return Optional.empty();
+        return Optional.of(start(new PurgeJob("user", List.of(userId), null)));
+    }
+
+    /**
+     * Queue the deletion of accounts created more than {@code inactiveDays} ago that have
+     * recorded no wrong question, plan change or course interaction since then. With
+     * {@code dryRun} only the matching count and the first ids are returned.
+     *
+     * @throws RejectedExecutionException when too many purge jobs are queued
+     */
+    public Map<String, Object> purgeInactive(int inactiveDays, Integer limit, boolean dryRun) {
+        if (inactiveDays < minInactiveDays) {
+            throw new IllegalArgumentException("inactiveDays must be at least " + minInactiveDays);
+        }
+        int max = limit == null || limit <= 0 ? maxUsers : Math.min(limit, maxUsers);
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(inactiveDays));
+        List<Long> userIds = jdbcTemplate.queryForList(INACTIVE_USERS_SQL, Long.class,
+            cutoff, cutoff, cutoff, cutoff, max);
+        if (dryRun) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("dryRun", true);
+            result.put("inactiveDays", inactiveDays);
+            result.put("matched", userIds.size());
+            result.put("sampleUserIds", userIds.subList(0, Math.min(20, userIds.size())));
+            return result;
+        }
+        return start(new PurgeJob("inactive:" + inactiveDays + "d", userIds, cutoff));
+    }
+
+    public Optional<Map<String, Object>> getJob(String jobId) {
+        return jobStore.find(jobId, JOB_KIND);
+    }
+
+    /** The newest jobs of every instance. */
+    public List<Map<String, Object>> listJobs() {
+        return jobStore.list(JOB_KIND, LISTED_JOBS);
+    }
+
+    /**
+     * Stops the job at the next chunk boundary; users already purged stay purged. A job
+     * running on another instance stops once that instance next records its progress.
+     */
+    public Optional<Map<String, Object>> cancel(String jobId) {
+        PurgeJob local = jobs.get(jobId);
+        if (local != null) local.cancelled = true;
+        if (!jobStore.requestCancel(jobId, JOB_KIND)) return Optional.empty();
+        return jobStore.find(jobId, JOB_KIND).map(state -> {
+            Map<String, Object> m = new LinkedHashMap<>(state);
+            if (m.get("finishedAt") == null) m.put("cancelRequested", true);
+            return m;
+        });
+    }
+
+    private Map<String, Object> start(PurgeJob job) {
+        jobStore.save(job.id, JOB_KIND, job.snapshot());
+        jobs.put(job.id, job);
+        try {
+            worker.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            job.status = "failed";
+            job.error = "purge_queue_full";
+            job.finishedAt = Instant.now();
+            save(job);
+            throw e;
+        }
+        return job.snapshot();
+    }
+
+    private void run(PurgeJob job) {
+        job.startedAt = Instant.now();
+        job.status = "running";
+        save(job);
+        try {
+            for (long userId : job.userIds) {
+                Outcome outcome = purge(job, userId);
+                if (outcome == Outcome.CANCELLED) break;
+                if (outcome == Outcome.PURGED) job.purgedUsers.incrementAndGet();
+                else job.skippedUsers.incrementAndGet();
+                checkpoint(job);
+            }
+            job.status = job.cancelled ? "cancelled" : "done";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.status = "cancelled";
+        } catch (RuntimeException e) {
+            log.warn("Purge job {} failed: {}", job.id, e.getMessage());
+            job.error = e.getClass().getSimpleName();
+            job.status = "failed";
+        } finally {
+            job.finishedAt = Instant.now();
+            jobs.remove(job.id);
+            save(job);
+        }
+        log.info("Purge job {} ({}) {}: {} of {} users, {} skipped, rows {}", job.id, job.kind, job.status,
+            job.purgedUsers.get(), job.userIds.size(), job.skippedUsers.get(), job.deletedRows);
+    }
+
+    private Outcome purge(PurgeJob job, long userId) throws InterruptedException {
+        for (String table : CHUNKED_TABLES) {
+            Outcome outcome = deleteInChunks(job, table, userId);
+            if (outcome != Outcome.PURGED) return outcome;
+            if (job.cancelled) return Outcome.CANCELLED;
+        }
+        Boolean purged = transactionTemplate.execute(status -> {
+            if (!stillEligible(job, userId)) return false;
+            // Rows written while the chunks were being deleted; normally none.
+            for (String table : CHUNKED_TABLES) {
+                job.count(table, jdbcTemplate.update("DELETE FROM " + table + " WHERE user_id = ?", userId));
+            }
+            job.count("user_student_map", jdbcTemplate.update("DELETE FROM user_student_map WHERE user_id = ?", userId));
+            job.count("users", jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId));
+            return true;
+        });
+        if (!Boolean.TRUE.equals(purged)) return Outcome.SKIPPED;
+        evict("users", userId);
+        evict("userContext", userId);
+        return Outcome.PURGED;
+    }
+
+    /** @return PURGED once the table holds no rows of the user */
+    private Outcome deleteInChunks(PurgeJob job, String table, long userId) throws InterruptedException {
+        while (!job.cancelled) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE user_id = ? ORDER BY id LIMIT ?", Long.class, userId, chunkSize);
+            if (ids.isEmpty()) return Outcome.PURGED;
+            long from = ids.get(0);
+            long to = ids.get(ids.size() - 1);
+            Integer deleted = transactionTemplate.execute(status -> stillEligible(job, userId)
+                ? jdbcTemplate.update("DELETE FROM " + table + " WHERE user_id = ? AND id BETWEEN ? AND ?", userId, from, to)
+                : null);
+            if (deleted == null) return Outcome.SKIPPED;
+            job.count(table, deleted);
+            job.chunks.incrementAndGet();
+            checkpoint(job);
+            if (ids.size() < chunkSize) return Outcome.PURGED;
+            if (!pause.isZero()) Thread.sleep(pause.toMillis());
+        }
+        return Outcome.CANCELLED;
+    }
+
+    /**
+     * Inside a transaction: locks the user row, which also holds off new wrong questions,
+     * plans and student mappings (their foreign keys need it), then re-runs the inactivity
+     * check for inactivity purges. False when the user is gone or active again.
+     */
+    private boolean stillEligible(PurgeJob job, long userId) {
+        List<Long> locked = jdbcTemplate.queryForList("SELECT id FROM users WHERE id = ? FOR UPDATE", Long.class, userId);
+        if (locked.isEmpty()) return false;
+        if (job.cutoff == null) return true;
+        Integer matches = jdbcTemplate.queryForObject(STILL_INACTIVE_SQL, Integer.class,
+            userId, job.cutoff, job.cutoff, job.cutoff, job.cutoff);
+        return matches != null && matches > 0;
+    }
+
+    /** Records progress and picks up cancel requests, at most once per progress interval. */
+    private void checkpoint(PurgeJob job) {
+        long now = System.nanoTime();
+        if (now - job.lastSavedNanos < progressIntervalNanos) return;
+        save(job);
+        try {
+            if (jobStore.isCancelRequested(job.id)) job.cancelled = true;
+        } catch (RuntimeException e) {
+            log.warn("Could not check purge job {} for a cancel request: {}", job.id, e.getMessage());
+        }
+    }
+
+    private void save(PurgeJob job) {
+        job.lastSavedNanos = System.nanoTime();
+        try {
+            jobStore.save(job.id, JOB_KIND, job.snapshot());
+        } catch (RuntimeException e) {
+            log.warn("Could not record purge job {} as {}: {}", job.id, job.status, e.getMessage());
+        }
+    }
+
+    private void evict(String cacheName, long userId) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) cache.evict(userId);
+    }
+
+    private static final class PurgeJob {
+        final String id = UUID.randomUUID().toString();
+        final String kind;
+        final List<Long> userIds;
+        /** Inactivity cutoff re-checked before each delete; null for an explicit user purge. */
+        final Timestamp cutoff;
+        final Instant createdAt = Instant.now();
+        final AtomicInteger purgedUsers = new AtomicInteger();
+        final AtomicInteger skippedUsers = new AtomicInteger();
+        final AtomicLong chunks = new AtomicLong();
+        final Map<String, AtomicLong> deletedRows = new ConcurrentHashMap<>();
+        volatile String status = "queued";
+        volatile boolean cancelled;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+        long lastSavedNanos;
+
+        PurgeJob(String kind, List<Long> userIds, Timestamp cutoff) {
+            this.kind = kind;
+            this.userIds = userIds;
+            this.cutoff = cutoff;
+        }
+
+        void count(String table, int rows) {
+            if (rows > 0) deletedRows.computeIfAbsent(table, k -> new AtomicLong()).addAndGet(rows);
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("jobId", id);
+            m.put("kind", kind);
+            m.put("status", status);
+            m.put("totalUsers", userIds.size());
+            m.put("purgedUsers", purgedUsers.get());
+            m.put("skippedUsers", skippedUsers.get());
+            m.put("chunks", chunks.get());
+            Map<String, Long> rows = new LinkedHashMap<>();
+            deletedRows.forEach((table, n) -> rows.put(table, n.get()));
+            m.put("deletedRows", rows);
+            m.put("createdAt", createdAt.toString());
+            m.put("startedAt", startedAt == null ? null : startedAt.toString());
+            m.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+            if (error != null) m.put("error", error);
+            if (cancelled && finishedAt == null) m.put("cancelRequested", true);
+            return m;
+        }
+    }
+}
@@ -13,6 +13,10 @@ import org.springframework.stereotype.Service;
 
 @Service
 public class WrongQuestionService {
+    /** Parameters: user id, question id. Also EXPLAINed by QueryPlanChecker. */
+    public static final String FIND_BY_QUESTION_ID_SQL =
+        "SELECT id, error_count FROM wrong_questions WHERE user_id = ? AND question_id = ? LIMIT 1";
+
     private final JdbcTemplate jdbcTemplate;
 
     public WrongQuestionService(JdbcTemplate jdbcTemplate) {
@@ -56,7 +60,7 @@ public class WrongQuestionService {
         Integer existing = null;
         if (request.getQuestionId() != null) {
             existing = jdbcTemplate.query(
-                "SELECT id, error_count FROM wrong_questions WHERE user_id = ? AND question_id = ? LIMIT 1",
+                FIND_BY_QUESTION_ID_SQL,
                 rs -> rs.next() ? rs.getInt("error_count") : null,
                 request.getUserId(), request.getQuestionId()
             );
@@ -111,34 +115,46 @@ public class WrongQuestionService {
         jdbcTemplate.update("DELETE FROM wrong_questions WHERE id = ? AND user_id = ?", id, userId);
     }
 
+    /**
+     * Parameters: user id, {@code typeCount} type ids, the keyword pattern twice when
+     * {@code keyword} is set, then limit and offset. Also EXPLAINed by QueryPlanChecker.
+     */
+    public static String listPagedSql(int typeCount, boolean keyword) {
+        return "SELECT w.id, w.user_id, w.question_id, w.question_text, " +
+            "w.course_name, w.your_answer, w.correct_answer, w.error_count " +
+            pagedFrom(typeCount, keyword) +
+            " GROUP BY w.id ORDER BY w.id DESC LIMIT ? OFFSET ?";
+    }
+
+    private static String pagedFrom(int typeCount, boolean keyword) {
+        StringBuilder from = new StringBuilder("FROM wrong_questions w ");
+        from.append(typeCount > 0
+            ? "JOIN courses c ON w.course_name = c.name" : "LEFT JOIN courses c ON w.course_name = c.name");
+        from.append(" WHERE w.user_id = ?");
+        if (typeCount > 0) {
+            from.append(" AND c.type_id IN (").append(String.join(",", Collections.nCopies(typeCount, "?"))).append(")");
+        }
+        if (keyword) from.append(" AND (w.question_text LIKE ? OR w.course_name LIKE ?)");
+        return from.toString();
+    }
+
     public Map<String, Object> listPaged(long userId, List<Integer> typeIds, String keyword, int page, int size) {
-        StringBuilder where = new StringBuilder("WHERE w.user_id = ?");
+        int typeCount = typeIds == null ? 0 : typeIds.size();
+        boolean hasKeyword = keyword != null && !keyword.isBlank();
         List<Object> params = new ArrayList<>();
         params.add(userId);
-
-        if (typeIds != null && !typeIds.isEmpty()) {
-            String ph = String.join(",", Collections.nCopies(typeIds.size(), "?"));
-            where.append(" AND c.type_id IN (").append(ph).append(")");
-            params.addAll(typeIds);
-        }
-        if (keyword != null && !keyword.isBlank()) {
-            where.append(" AND (w.question_text LIKE ? OR w.course_name LIKE ?)");
+        if (typeCount > 0) params.addAll(typeIds);
+        if (hasKeyword) {
             String like = "%" + keyword + "%";
             params.add(like);
             params.add(like);
         }
 
-        String joinClause = (typeIds != null && !typeIds.isEmpty())
-            ? "JOIN courses c ON w.course_name = c.name" : "LEFT JOIN courses c ON w.course_name = c.name";
-
-        String countSql = "SELECT COUNT(DISTINCT w.id) FROM wrong_questions w " + joinClause + " " + where;
+        String countSql = "SELECT COUNT(DISTINCT w.id) " + pagedFrom(typeCount, hasKeyword);
         int total = jdbcTemplate.queryForObject(countSql, Integer.class, params.toArray());
         int totalPages = Math.max(1, (int) Math.ceil((double) total / size));
 
-        String dataSql = "SELECT w.id, w.user_id, w.question_id, w.question_text, " +
-            "w.course_name, w.your_answer, w.correct_answer, w.error_count " +
-            "FROM wrong_questions w " + joinClause + " " + where +
-            " GROUP BY w.id ORDER BY w.id DESC LIMIT ? OFFSET ?";
+        String dataSql = listPagedSql(typeCount, hasKeyword);
         List<Object> dataParams = new ArrayList<>(params);
         dataParams.add(size);
         dataParams.add((page - 1) * size);
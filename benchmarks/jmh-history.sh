@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Runs the JMH suite at each given commit and keeps its JSON results, so a change can be
+# compared with the commit before it under the same settings.
+#
+#   benchmarks/jmh-history.sh <out-dir> <commit>...
+#
+# Every commit is checked out into a temporary git worktree, built with mvn -B -q package
+# -DskipTests and benchmarked with java -jar benchmarks/target/benchmarks.jar; the results
+# land in <out-dir>/<short-sha>.json, with the run's output in <short-sha>.log if it fails.
+# JMH_ARGS adds JMH options (default: none, i.e. the settings in the annotations).
+#
+# Commits from before the benchmarks module get it from the commit that added it (user-029):
+# the root pom, the backend pom (which only differs by the jar classifier) and the benchmark
+# sources, minus RecommendationFilterBenchmark and StudentIdAssignmentBenchmark. Those call
+# RecommendationFilter and AuthService.firstUnusedStudentId, which that commit extracted
+# from the controller and from assignStudentId without changing them.
+set -euo pipefail
+
+module=93160d9
+out=$(realpath -m "$1")
+shift
+args=${JMH_ARGS:-}
+repo=$(git rev-parse --show-toplevel)
+mkdir -p "$out"
+
+for commit in "$@"; do
+    sha=$(git -C "$repo" rev-parse --short "$commit")
+    tree=$(mktemp -d)
+    scratch=$(mktemp -d)
+    git -C "$repo" worktree add --detach -q "$tree" "$sha"
+    echo "== $sha $(git -C "$repo" log -1 --format=%s "$sha")"
+    if [ ! -f "$tree/benchmarks/pom.xml" ]; then
+        git -C "$repo" archive "$module" pom.xml backend-springboot/pom.xml benchmarks/pom.xml \
+            benchmarks/src/main/java/com/gradproject/benchmarks | tar -x -C "$tree"
+        rm "$tree"/benchmarks/src/main/java/com/gradproject/benchmarks/{RecommendationFilter,StudentIdAssignment}Benchmark.java
+        echo "   benchmarks module taken from $module"
+    fi
+    if (cd "$tree" && mvn -B -q package -DskipTests > "$scratch/build.log" 2>&1); then
+        # shellcheck disable=SC2086
+        (cd "$scratch" && java -jar "$tree/benchmarks/target/benchmarks.jar" $args \
+            -rf json -rff "$out/$sha.json" > "$scratch/run.log" 2>&1) \
+            || { echo "   benchmarks failed, see $out/$sha.log"; cp "$scratch/run.log" "$out/$sha.log"; }
+    else
+        echo "   build failed"
+        cp "$scratch/build.log" "$out/$sha.build.log"
+    fi
+    git -C "$repo" worktree remove --force "$tree"
+    rm -rf "$scratch"
+done
@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Runs the load-test harness (LoadTestMain) at each given commit and keeps its JSON report,
+# so a change can be compared with the commit before it under the same settings.
+#
+#   benchmarks/loadtest-history.sh <out-dir> <commit>...
+#
+# Every commit is checked out into a temporary git worktree, built with mvn -B -q package
+# -DskipTests and run from an empty scratch directory; the report lands in
+# <out-dir>/<short-sha>.json, with the run's output in <short-sha>.log if it fails.
+# LOADTEST_ARGS overrides the harness options (the harness exists from user-030 on).
+set -euo pipefail
+
+out=$(realpath -m "$1")
+shift
+args=${LOADTEST_ARGS:---users=200 --concurrency=20 --warmup=5 --duration=30}
+repo=$(git rev-parse --show-toplevel)
+mkdir -p "$out"
+
+for commit in "$@"; do
+    sha=$(git -C "$repo" rev-parse --short "$commit")
+    tree=$(mktemp -d)
+    scratch=$(mktemp -d)
+    git -C "$repo" worktree add --detach -q "$tree" "$sha"
+    echo "== $sha $(git -C "$repo" log -1 --format=%s "$sha")"
+    if (cd "$tree" && mvn -B -q package -DskipTests > "$scratch/build.log" 2>&1); then
+        # shellcheck disable=SC2086
+        (cd "$scratch" && java -cp "$tree/benchmarks/target/benchmarks.jar" com.gradproject.loadtest.LoadTestMain \
+            $args --output="$out/$sha.json" --snapshot.directory="$scratch/snapshot" > "$scratch/run.log" 2>&1) \
+            || { echo "   harness failed, see $out/$sha.log"; cp "$scratch/run.log" "$out/$sha.log"; }
+    else
+        echo "   build failed"
+        cp "$scratch/build.log" "$out/$sha.build.log"
+    fi
+    git -C "$repo" worktree remove --force "$tree"
+    rm -rf "$scratch"
+done
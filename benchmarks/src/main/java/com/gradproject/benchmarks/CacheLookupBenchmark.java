@@ -0,0 +1,72 @@
+package com.gradproject.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.gradproject.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+/**
+ * Hit-path cost of the lookups behind {@code @Cacheable}: the raw Caffeine cache, Spring's
+ * {@link CaffeineCache} adapter (what the cache interceptor calls), the synchronized
+ * {@code get(key, loader)} path and a loading cache as used for refreshAfterWrite policies.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CacheLookupBenchmark {
+    private static final int KEYS = 10_000;
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> raw;
+    private Cache spring;
+    private LoadingCache<Object, Object> loading;
+
+    @Setup
+    public void setup() {
+        raw = Caffeine.newBuilder().maximumSize(20_000).recordStats().build();
+        loading = Caffeine.newBuilder().maximumSize(20_000).recordStats()
+            .refreshAfterWrite(10, TimeUnit.MINUTES)
+            .build(key -> Optional.of(new User((Long) key, "user" + key, null, 1)));
+        spring = new CaffeineCache("users", raw);
+        for (long id = 0; id < KEYS; id++) {
+            Optional<User> user = Optional.of(new User(id, "user" + id, null, 1));
+            raw.put(id, user);
+            loading.put(id, user);
+        }
+    }
+
+    private static Long key() {
+        return (long) ThreadLocalRandom.current().nextInt(KEYS);
+    }
+
+    @Benchmark
+    public Object caffeineGetIfPresent() {
+        return raw.getIfPresent(key());
+    }
+
+    @Benchmark
+    public Object springCacheGet() {
+        return spring.get(key());
+    }
+
+    @Benchmark
+    public Object springCacheGetWithLoader() {
+        Long key = key();
+        return spring.get(key, () -> Optional.of(new User(key, "user" + key, null, 1)));
+    }
+
+    @Benchmark
+    public Object loadingCacheGet() {
+        return loading.get(key());
+    }
+}
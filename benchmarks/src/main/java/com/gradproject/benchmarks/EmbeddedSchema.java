@@ -0,0 +1,44 @@
+package com.gradproject.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Creates the application schema in an embedded H2 database (MySQL mode) from the
+ * repository's {@code sql/schema.sql}, which the build copies onto the classpath.
+ */
+public final class EmbeddedSchema {
+    private EmbeddedSchema() {}
+
+    public static void create(JdbcTemplate jdbcTemplate) {
+        for (String statement : statements()) {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    static String[] statements() {
+        String script;
+        try (InputStream in = EmbeddedSchema.class.getResourceAsStream("/sql/schema.sql")) {
+            if (in == null) throw new IllegalStateException("sql/schema.sql not on classpath");
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StringBuilder cleaned = new StringBuilder();
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("--")) continue;
+            cleaned.append(line).append('\n');
+        }
+        return java.util.Arrays.stream(cleaned.toString().split(";"))
+            .map(String::trim)
+            .filter(s -> !s.isEmpty())
+            // database selection is the connection URL's job
+            .filter(s -> !s.startsWith("CREATE DATABASE") && !s.startsWith("USE "))
+            .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,85 @@
+package com.gradproject.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.gradproject.service.RecommendationFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The post-filter the recommendations endpoint runs over {@code topN * 10} raw results.
+ * The filter mutates its input, so every invocation filters a fresh copy; {@link #copyOnly}
+ * measures that copy so it can be subtracted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecommendationFilterBenchmark {
+    private static final String[] TYPE_NAMES = {
+        "高等数学", "线性代数", "英语阅读", "外语写作", "思想政治", "马克思主义哲学",
+        "计算机网络", "数据结构", "操作系统", "经济学原理", "管理学", "法学概论"
+    };
+
+    @Param({"100", "1000"})
+    public int fetchN;
+
+    private final RecommendationFilter filter = new RecommendationFilter();
+    private List<Map<String, Object>> raw;
+    private Set<Integer> allowedTypeIds;
+    private Set<String> allowedTypeNames;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        raw = new ArrayList<>(fetchN);
+        for (int i = 0; i < fetchN; i++) {
+            int typeId = random.nextInt(TYPE_NAMES.length);
+            Map<String, Object> item = new HashMap<>();
+            item.put("course_index", i);
+            item.put("name", "课程" + i);
+            item.put("type_id", typeId);
+            item.put("type_name", TYPE_NAMES[typeId]);
+            item.put("predicted_score", random.nextDouble());
+            raw.add(item);
+        }
+        // math, english, politics keyword matches plus a major (数据结构)
+        allowedTypeIds = new HashSet<>(List.of(0, 1, 2, 3, 4, 5, 7));
+        allowedTypeNames = new HashSet<>(List.of("数学", "英语", "外语", "政治", "哲学", "数据结构"));
+    }
+
+    private List<Map<String, Object>> copy() {
+        List<Map<String, Object>> list = new ArrayList<>(raw.size());
+        for (Map<String, Object> item : raw) list.add(new HashMap<>(item));
+        return list;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> copyOnly() {
+        return copy();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> filter() {
+        List<Map<String, Object>> list = copy();
+        filter.apply(list, allowedTypeIds, allowedTypeNames, "高等数学", fetchN / 10);
+        return list;
+    }
+
+    @Benchmark
+    public void filterNothingAllowedById(Blackhole bh) {
+        // Worst case: every item falls through to the type-name keyword scan.
+        List<Map<String, Object>> list = copy();
+        filter.apply(list, Set.of(), allowedTypeNames, "高等数学", fetchN / 10);
+        bh.consume(list);
+    }
+}
@@ -0,0 +1,95 @@
+package com.gradproject.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Per-row {@code HashMap} (as in most services' RowMappers) versus a record with the same
+ * fields, both for building a page of rows and for serializing it with Jackson.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RowMappingBenchmark {
+
+    public record WrongQuestionRow(
+        long id,
+        @JsonProperty("user_id") long userId,
+        @JsonProperty("question_id") Long questionId,
+        @JsonProperty("question_text") String questionText,
+        @JsonProperty("course_name") String courseName,
+        @JsonProperty("your_answer") String yourAnswer,
+        @JsonProperty("correct_answer") String correctAnswer,
+        @JsonProperty("error_count") int errorCount
+    ) {}
+
+    @Param({"20", "500"})
+    public int rows;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Object[][] source;
+    private List<Map<String, Object>> maps;
+    private List<WrongQuestionRow> records;
+
+    @Setup
+    public void setup() {
+        source = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            source[i] = new Object[] {
+                (long) i, 7L, (long) (1000 + i), "下列关于线性代数的说法正确的是第" + i + "题",
+                "线性代数", "A", "C", 1 + i % 4
+            };
+        }
+        maps = mapAsHashMaps();
+        records = mapAsRecords();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> mapAsHashMaps() {
+        List<Map<String, Object>> list = new ArrayList<>(rows);
+        for (Object[] r : source) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", r[0]);
+            m.put("user_id", r[1]);
+            m.put("question_id", r[2]);
+            m.put("question_text", r[3]);
+            m.put("course_name", r[4]);
+            m.put("your_answer", r[5]);
+            m.put("correct_answer", r[6]);
+            m.put("error_count", r[7]);
+            list.add(m);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public List<WrongQuestionRow> mapAsRecords() {
+        List<WrongQuestionRow> list = new ArrayList<>(rows);
+        for (Object[] r : source) {
+            list.add(new WrongQuestionRow((Long) r[0], (Long) r[1], (Long) r[2], (String) r[3],
+                (String) r[4], (String) r[5], (String) r[6], (Integer) r[7]));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public byte[] serializeHashMaps() throws Exception {
+        return mapper.writeValueAsBytes(maps);
+    }
+
+    @Benchmark
+    public byte[] serializeRecords() throws Exception {
+        return mapper.writeValueAsBytes(records);
+    }
+}
@@ -0,0 +1,38 @@
+package com.gradproject.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.gradproject.service.AuthService;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * {@link AuthService#firstUnusedStudentId}: the in-memory part of {@code assignStudentId},
+ * which hashes every existing stu_id and probes upward from 1 on each registration.
+ * Students are numbered densely, so the probe walks the whole table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class StudentIdAssignmentBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int students;
+
+    private List<String> existingIds;
+
+    @Setup
+    public void setup() {
+        existingIds = new ArrayList<>(students);
+        for (int i = 1; i <= students; i++) existingIds.add(String.valueOf(i));
+    }
+
+    @Benchmark
+    public String firstUnusedStudentId() {
+        return AuthService.firstUnusedStudentId(existingIds);
+    }
+}
@@ -0,0 +1,87 @@
+package com.gradproject.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.gradproject.model.WrongQuestionRequest;
+import com.gradproject.service.WrongQuestionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+/**
+ * {@link WrongQuestionService#create} against an embedded H2 database in MySQL mode:
+ * the repeat-by-id path (one SELECT), the repeat-by-text path (two SELECTs + UPDATE)
+ * and the first-time path (up to two SELECTs + INSERT).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WrongQuestionCreateBenchmark {
+    private static final int USERS = 200;
+    private static final int QUESTIONS_PER_USER = 50;
+
+    private JdbcTemplate jdbcTemplate;
+    private WrongQuestionService service;
+    private long nextNewQuestion = 1_000_000;
+
+    @Setup
+    public void setup() throws Exception {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(
+            new org.h2.Driver(), "jdbc:h2:mem:wrongq;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        EmbeddedSchema.create(jdbcTemplate);
+        for (long user = 1; user <= USERS; user++) {
+            jdbcTemplate.update("INSERT INTO users (id, username, password_hash) VALUES (?, ?, 'x')", user, "user" + user);
+            for (long q = 1; q <= QUESTIONS_PER_USER; q++) {
+                jdbcTemplate.update(
+                    "INSERT INTO wrong_questions (user_id, question_id, question_text, course_name, your_answer, correct_answer, error_count) VALUES (?, ?, ?, '线性代数', 'A', 'B', 1)",
+                    user, q, "题目" + q);
+            }
+        }
+        service = new WrongQuestionService(jdbcTemplate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    private static WrongQuestionRequest request(long userId, Long questionId, String text) {
+        WrongQuestionRequest request = new WrongQuestionRequest();
+        request.setUserId(userId);
+        request.setQuestionId(questionId);
+        request.setQuestionText(text);
+        request.setCourseName("线性代数");
+        request.setYourAnswer("A");
+        request.setCorrectAnswer("B");
+        return request;
+    }
+
+    @Benchmark
+    public int repeatById(ThreadState state) {
+        return service.create(request(state.user(), state.question(), null));
+    }
+
+    @Benchmark
+    public int repeatByText(ThreadState state) {
+        return service.create(request(state.user(), null, "题目" + state.question()));
+    }
+
+    @Benchmark
+    public int firstTime(ThreadState state) {
+        long questionId;
+        synchronized (this) { questionId = nextNewQuestion++; }
+        return service.create(request(state.user(), questionId, "新题目" + questionId));
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private long counter;
+
+        long user() { return 1 + (counter++ % USERS); }
+        long question() { return 1 + (counter % QUESTIONS_PER_USER); }
+    }
+}
@@ -0,0 +1,50 @@
+package com.gradproject.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency samples (nanoseconds) and error count of one operation, recorded by a single
+ * virtual user and merged after the run, so recording never contends.
+ */
+class EndpointStats {
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+
+    void record(long nanos, boolean ok) {
+        if (!ok) errors++;
+        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+    }
+
+    void merge(EndpointStats other) {
+        if (count + other.count > samples.length) {
+            samples = Arrays.copyOf(samples, Math.max(samples.length * 2, count + other.count));
+        }
+        System.arraycopy(other.samples, 0, samples, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    Map<String, Object> summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("requests", count);
+        m.put("errors", errors);
+        m.put("throughput", seconds > 0 ? count / seconds : 0);
+        m.put("p50Ms", percentile(sorted, 0.50));
+        m.put("p99Ms", percentile(sorted, 0.99));
+        m.put("p999Ms", percentile(sorted, 0.999));
+        m.put("maxMs", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        return m;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
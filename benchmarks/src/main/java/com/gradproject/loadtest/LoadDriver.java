@@ -0,0 +1,146 @@
+package com.gradproject.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replays a weighted mix of API calls from {@code concurrency} virtual users, each on its
+ * own virtual thread, in a closed loop. Samples taken during warm-up are discarded.
+ */
+class LoadDriver {
+    private static final String[] CATEGORIES = {"math", "english", "politics", "major"};
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final String[] operations;
+    private final int[] cumulativeWeights;
+
+    LoadDriver(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+        List<String> ops = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, Integer> e : options.mix.entrySet()) {
+            if (e.getValue() <= 0) continue;
+            total += e.getValue();
+            ops.add(e.getKey());
+            weights.add(total);
+        }
+        this.operations = ops.toArray(String[]::new);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    Map<String, Object> run() throws Exception {
+        long warmupEnd = System.nanoTime() + options.warmupSeconds * 1_000_000_000L;
+        long end = warmupEnd + options.durationSeconds * 1_000_000_000L;
+        List<Future<Map<String, EndpointStats>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.concurrency; i++) {
+                futures.add(executor.submit(() -> virtualUser(warmupEnd, end)));
+            }
+        }
+        Map<String, EndpointStats> merged = new TreeMap<>();
+        EndpointStats all = new EndpointStats();
+        for (Future<Map<String, EndpointStats>> future : futures) {
+            for (Map.Entry<String, EndpointStats> e : future.get().entrySet()) {
+                merged.computeIfAbsent(e.getKey(), k -> new EndpointStats()).merge(e.getValue());
+                all.merge(e.getValue());
+            }
+        }
+        Map<String, Object> endpoints = new TreeMap<>();
+        merged.forEach((name, stats) -> endpoints.put(name, stats.summarize(options.durationSeconds)));
+        endpoints.put("ALL", all.summarize(options.durationSeconds));
+        return endpoints;
+    }
+
+    private Map<String, EndpointStats> virtualUser(long warmupEnd, long end) {
+        Map<String, EndpointStats> stats = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            String op = pick(random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]));
+            boolean ok;
+            try {
+                ok = execute(op, random);
+            } catch (Exception e) {
+                ok = false;
+            }
+            long elapsed = System.nanoTime() - now;
+            if (now >= warmupEnd) stats.computeIfAbsent(op, k -> new EndpointStats()).record(elapsed, ok);
+        }
+        return stats;
+    }
+
+    private String pick(int r) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) return operations[i];
+        }
+        return operations[operations.length - 1];
+    }
+
+    private boolean execute(String op, ThreadLocalRandom random) throws Exception {
+        int user = 1 + random.nextInt(options.users);
+        int course = 1 + random.nextInt(options.courses);
+        return switch (op) {
+            case "recommendations" -> get("/api/recommendations?userId=" + user + "&topN=10");
+            case "questions" -> get("/api/questions?courseId=" + course + "&limit=5");
+            case "questions-by-category" -> get("/api/questions/by-category?category="
+                + CATEGORIES[random.nextInt(CATEGORIES.length)] + "&userId=" + user + "&limit=10");
+            case "interactions" -> post("/api/interactions",
+                "{\"userId\":" + user + ",\"courseIndex\":" + course + "}");
+            case "wrong-questions-page" -> get("/api/wrong-questions?userId=" + user + "&page=1&size=5");
+            case "wrong-questions-create" -> {
+                long question = 1 + random.nextLong((long) options.courses * options.questionsPerCourse);
+                yield post("/api/wrong-questions", "{\"userId\":" + user + ",\"questionId\":" + question
+                    + ",\"questionText\":\"" + SyntheticDataSeeder.courseName(course) + " 第" + question + "题\""
+                    + ",\"courseName\":\"" + SyntheticDataSeeder.courseName(course) + "\""
+                    + ",\"yourAnswer\":\"A\",\"correctAnswer\":\"B\"}");
+            }
+            case "login" -> post("/api/auth/login",
+                "{\"username\":\"user" + user + "\",\"password\":\"" + SyntheticDataSeeder.PASSWORD + "\"}");
+            case "admin-wrong-questions" -> get("/api/admin/wrong-questions?page=" + (1 + random.nextInt(20))
+                + "&size=20&keyword=" + URLEncoder.encode("题", StandardCharsets.UTF_8));
+            default -> throw new IllegalArgumentException("Unknown operation " + op);
+        };
+    }
+
+    private boolean get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(30)).GET().build();
+        return send(request);
+    }
+
+    private boolean post(String path, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+        return send(request);
+    }
+
+    private boolean send(HttpRequest request) throws Exception {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        return response.statusCode() < 400;
+    }
+}
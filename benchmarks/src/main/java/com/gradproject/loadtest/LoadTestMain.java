@@ -0,0 +1,96 @@
+package com.gradproject.loadtest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.gradproject.Application;
+import com.gradproject.benchmarks.EmbeddedSchema;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Self-contained load test: seeds an embedded H2 database (MySQL mode) with synthetic data,
+ * starts a stub recommender and the real application against both, then drives a realistic
+ * request mix and reports throughput and p50/p99/p999 latency per endpoint.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.gradproject.loadtest.LoadTestMain \
+ *     --users=5000 --concurrency=300 --duration=120 --stub-latency-ms=40
+ * </pre>
+ * The report is printed and written as JSON to {@code --output} (default loadtest-result.json).
+ */
+public class LoadTestMain {
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        String jdbcUrl = "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+        long seedStart = System.currentTimeMillis();
+        JdbcTemplate seedTemplate = new JdbcTemplate(
+            new SimpleDriverDataSource(new org.h2.Driver(), jdbcUrl, "sa", ""));
+        EmbeddedSchema.create(seedTemplate);
+        new SyntheticDataSeeder(seedTemplate, options).seed();
+        System.out.printf("Seeded %d users / %d courses in %d ms%n",
+            options.users, options.courses, System.currentTimeMillis() - seedStart);
+
+        try (StubRecommender stub = new StubRecommender(options)) {
+            List<String> appArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.hikari.maximum-pool-size=" + options.poolSize,
+                "--recommender.base-url=" + stub.baseUrl(),
+                "--spring.main.banner-mode=off",
+                "--plan-check.fail-on-violation=true",
+                "--logging.level.root=WARN"
+            ));
+            appArgs.addAll(options.applicationArgs);
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .run(appArgs.toArray(String[]::new));
+            try {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                System.out.printf("Driving %d virtual users for %ds (+%ds warm-up) against port %d%n",
+                    options.concurrency, options.durationSeconds, options.warmupSeconds, port);
+                Map<String, Object> endpoints = new LoadDriver(options, "http://127.0.0.1:" + port).run();
+                report(options, endpoints);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static void report(LoadTestOptions options, Map<String, Object> endpoints) throws Exception {
+        System.out.printf("%n%-24s %9s %7s %9s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        endpoints.forEach((name, value) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> s = (Map<String, Object>) value;
+            System.out.printf("%-24s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name,
+                s.get("requests"), s.get("errors"), s.get("throughput"),
+                s.get("p50Ms"), s.get("p99Ms"), s.get("p999Ms"), s.get("maxMs"));
+        });
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("users", options.users);
+        config.put("courses", options.courses);
+        config.put("concurrency", options.concurrency);
+        config.put("durationSeconds", options.durationSeconds);
+        config.put("stubLatencyMs", options.stubLatencyMs);
+        config.put("poolSize", options.poolSize);
+        config.put("mix", options.mix);
+        config.put("applicationArgs", options.applicationArgs);
+        result.put("config", config);
+        result.put("endpoints", endpoints);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(options.output), result);
+        System.out.println("\nReport written to " + options.output);
+    }
+}
@@ -0,0 +1,80 @@
+package com.gradproject.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line options of the load test, all given as {@code --name=value}.
+ * Options the harness does not know (e.g. {@code --spring.threads.virtual.enabled=true})
+ * are passed through to the application.
+ */
+public class LoadTestOptions {
+    // data scale
+    int users = 2_000;
+    int courses = 500;
+    int courseTypes = 30;
+    int interactionsPerUser = 40;
+    int questionsPerCourse = 20;
+    int wrongQuestionsPerUser = 30;
+    // stub recommender
+    int stubLatencyMs = 20;
+    int stubJitterMs = 10;
+    // driver
+    int concurrency = 200;
+    int warmupSeconds = 10;
+    int durationSeconds = 60;
+    int poolSize = 20;
+    Map<String, Integer> mix = new LinkedHashMap<>(Map.of(
+        "recommendations", 25,
+        "questions", 20,
+        "questions-by-category", 5,
+        "interactions", 20,
+        "wrong-questions-page", 10,
+        "wrong-questions-create", 10,
+        "login", 10,
+        "admin-wrong-questions", 0
+    ));
+    String output = "loadtest-result.json";
+    List<String> applicationArgs = new ArrayList<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions o = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "users" -> o.users = Integer.parseInt(value);
+                case "courses" -> o.courses = Integer.parseInt(value);
+                case "course-types" -> o.courseTypes = Integer.parseInt(value);
+                case "interactions-per-user" -> o.interactionsPerUser = Integer.parseInt(value);
+                case "questions-per-course" -> o.questionsPerCourse = Integer.parseInt(value);
+                case "wrong-questions-per-user" -> o.wrongQuestionsPerUser = Integer.parseInt(value);
+                case "stub-latency-ms" -> o.stubLatencyMs = Integer.parseInt(value);
+                case "stub-jitter-ms" -> o.stubJitterMs = Integer.parseInt(value);
+                case "concurrency" -> o.concurrency = Integer.parseInt(value);
+                case "warmup" -> o.warmupSeconds = Integer.parseInt(value);
+                case "duration" -> o.durationSeconds = Integer.parseInt(value);
+                case "pool-size" -> o.poolSize = Integer.parseInt(value);
+                case "output" -> o.output = value;
+                case "mix" -> o.mix = parseMix(value);
+                default -> o.applicationArgs.add(arg);
+            }
+        }
+        return o;
+    }
+
+    /** {@code recommendations:50,login:10,...} – operations left out get weight 0. */
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] kv = part.split(":");
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,104 @@
+package com.gradproject.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stand-in for the Flask recommender: answers {@code /api/recommend} and {@code /api/evaluate}
+ * with the same JSON shape after a configurable latency (plus uniform jitter).
+ */
+class StubRecommender implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LoadTestOptions options;
+
+    StubRecommender(LoadTestOptions options) throws IOException {
+        this.options = options;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/api/recommend", this::recommend);
+        server.createContext("/api/evaluate", this::evaluate);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void recommend(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        int topN = Integer.parseInt(query.getOrDefault("topN", "10"));
+        delay();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder json = new StringBuilder(64 + topN * 120);
+        json.append("{\"user_id\":\"").append(query.get("userId")).append("\",\"recommendations\":[");
+        for (int i = 0; i < topN; i++) {
+            int course = 1 + random.nextInt(options.courses);
+            int typeId = 1 + (course - 1) % options.courseTypes;
+            if (i > 0) json.append(',');
+            json.append("{\"course_index\":").append(course)
+                .append(",\"name\":\"").append(SyntheticDataSeeder.courseName(course))
+                .append("\",\"type_id\":").append(typeId)
+                .append(",\"type_name\":\"").append(SyntheticDataSeeder.typeName(typeId))
+                .append("\",\"predicted_score\":").append(String.format("%.4f", 1 - i / (double) topN))
+                .append('}');
+        }
+        json.append("]}");
+        respond(exchange, json.toString());
+    }
+
+    private void evaluate(HttpExchange exchange) throws IOException {
+        delay();
+        respond(exchange, "{\"precision\":0.1,\"recall\":0.1,\"f1\":0.1,\"users_evaluated\":100}");
+    }
+
+    private void delay() {
+        int jitter = options.stubJitterMs > 0 ? ThreadLocalRandom.current().nextInt(options.stubJitterMs + 1) : 0;
+        int millis = options.stubLatencyMs + jitter;
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
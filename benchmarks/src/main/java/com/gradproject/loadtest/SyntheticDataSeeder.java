@@ -0,0 +1,122 @@
+package com.gradproject.loadtest;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Fills the embedded database with synthetic course types, courses, students/users,
+ * interactions, questions and wrong questions at the scale given by {@link LoadTestOptions}.
+ * Every user's password is {@link #PASSWORD}; stu_ids are dense like assignStudentId's.
+ */
+class SyntheticDataSeeder {
+    static final String PASSWORD = "password";
+    private static final int BATCH = 1_000;
+    private static final String[] TYPE_NAMES = {
+        "高等数学", "线性代数", "概率论与数理统计", "英语阅读", "英语写作", "外语翻译",
+        "思想政治理论", "马克思主义哲学", "计算机网络", "数据结构", "操作系统", "计算机组成原理",
+        "经济学", "管理学", "法学", "心理学", "教育学", "历史学", "文学", "医学", "机械工程",
+        "电子信息", "化学", "物理学", "生物学", "建筑学", "金融学", "会计学", "新闻传播", "艺术学"
+    };
+    /** Index of the first non-exam (major) type in {@link #TYPE_NAMES}. */
+    private static final int FIRST_MAJOR_TYPE = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadTestOptions options;
+    private final Random random = new Random(20240601);
+
+    SyntheticDataSeeder(JdbcTemplate jdbcTemplate, LoadTestOptions options) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.options = options;
+    }
+
+    static String typeName(int typeId) {
+        String base = TYPE_NAMES[(typeId - 1) % TYPE_NAMES.length];
+        int round = (typeId - 1) / TYPE_NAMES.length;
+        return round == 0 ? base : base + round;
+    }
+
+    static String courseName(int courseIndex) {
+        return "课程" + courseIndex;
+    }
+
+    void seed() {
+        int types = options.courseTypes;
+        List<Object[]> rows = new ArrayList<>();
+        for (int t = 1; t <= types; t++) rows.add(new Object[] {t, typeName(t)});
+        batch("INSERT INTO course_types (type_id, type_name) VALUES (?, ?)", rows);
+
+        for (int c = 1; c <= options.courses; c++) {
+            int typeId = 1 + (c - 1) % types;
+            rows.add(new Object[] {c, courseName(c), typeName(typeId), typeId, "https://example.com/course/" + c});
+        }
+        batch("INSERT INTO courses (course_index, name, type, type_id, url) VALUES (?, ?, ?, ?, ?)", rows);
+
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        int majorTypes = Math.max(1, types - FIRST_MAJOR_TYPE);
+        for (int u = 1; u <= options.users; u++) {
+            rows.add(new Object[] {String.valueOf(u)});
+        }
+        batch("INSERT INTO students (stu_id) VALUES (?)", rows);
+        for (int u = 1; u <= options.users; u++) {
+            int major = Math.min(types, FIRST_MAJOR_TYPE + 1 + random.nextInt(majorTypes));
+            rows.add(new Object[] {u, "user" + u, hash, major});
+        }
+        batch("INSERT INTO users (id, username, password_hash, major_type_id) VALUES (?, ?, ?, ?)", rows);
+        for (int u = 1; u <= options.users; u++) rows.add(new Object[] {u, String.valueOf(u)});
+        batch("INSERT INTO user_student_map (user_id, stu_id) VALUES (?, ?)", rows);
+
+        long now = System.currentTimeMillis();
+        long ninetyDays = 90L * 24 * 3600 * 1000;
+        for (int u = 1; u <= options.users; u++) {
+            Set<Long> times = new HashSet<>();
+            for (int i = 0; i < options.interactionsPerUser; i++) {
+                long t = (now - (long) (random.nextDouble() * ninetyDays)) / 1000 * 1000;
+                if (!times.add(t)) continue;
+                rows.add(new Object[] {String.valueOf(u), new Timestamp(t), 1 + random.nextInt(options.courses)});
+                if (rows.size() >= BATCH) batch("INSERT INTO interactions (stu_id, time, course_index) VALUES (?, ?, ?)", rows);
+            }
+        }
+        batch("INSERT INTO interactions (stu_id, time, course_index) VALUES (?, ?, ?)", rows);
+
+        for (int c = 1; c <= options.courses; c++) {
+            for (int q = 0; q < options.questionsPerCourse; q++) {
+                rows.add(new Object[] {c, courseName(c), courseName(c) + " 第" + (q + 1) + "题：下列说法正确的是？",
+                    "[\"A. 选项一\", \"B. 选项二\", \"C. 选项三\", \"D. 选项四\"]", "ABCD".substring(q % 4, q % 4 + 1),
+                    "解析：略"});
+                if (rows.size() >= BATCH) batch(INSERT_QUESTION, rows);
+            }
+        }
+        batch(INSERT_QUESTION, rows);
+
+        long questionCount = (long) options.courses * options.questionsPerCourse;
+        for (int u = 1; u <= options.users; u++) {
+            for (int i = 0; i < options.wrongQuestionsPerUser; i++) {
+                long questionId = 1 + (long) (random.nextDouble() * questionCount);
+                int course = (int) ((questionId - 1) / options.questionsPerCourse) + 1;
+                rows.add(new Object[] {u, questionId, courseName(course) + " 第" + questionId + "题",
+                    courseName(course), "A", "B", 1 + random.nextInt(3)});
+                if (rows.size() >= BATCH) batch(INSERT_WRONG, rows);
+            }
+        }
+        batch(INSERT_WRONG, rows);
+    }
+
+    private static final String INSERT_QUESTION =
+        "INSERT INTO course_questions (course_id, course_name, question, options, answer, explanation) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_WRONG =
+        "INSERT INTO wrong_questions (user_id, question_id, question_text, course_name, your_answer, correct_answer, error_count) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /** Run and clear the pending rows. */
+    private void batch(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(sql, rows);
+        rows.clear();
+    }
+}
@@ -55,6 +55,14 @@ export function uploadAvatar(userId, file) {
   return fetch(`${BASE}/user/avatar`, { method: 'POST', body: fd }).then(j);
 }
 
+export function fetchDashboard(userId, topN = 10) {
+  return fetch(`${BASE}/dashboard?userId=${userId}&topN=${topN}`).then(j);
+}
+
+export function fetchAvatarStatus(uploadId) {
+  return fetch(`${BASE}/user/avatar/${encodeURIComponent(uploadId)}`).then(j);
+}
+
 export function fetchCourseTypes(exclude = '') {
   let url = `${BASE}/course-types`;
   if (exclude) url += `?exclude=${encodeURIComponent(exclude)}`;
@@ -139,6 +147,10 @@ export function adminDeleteUser(id) {
   return fetch(`${BASE}/admin/users/${id}`, { method: 'DELETE' }).then(j);
 }
 
+export function adminFetchPurgeJob(jobId) {
+  return fetch(`${BASE}/admin/purge-jobs/${encodeURIComponent(jobId)}`).then(j);
+}
+
 // 题库管理
 export function adminListQuestions(page = 1, size = 20, keyword = '') {
   let url = `${BASE}/admin/questions?page=${page}&size=${size}`;
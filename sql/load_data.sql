@@ -12,5 +12,7 @@ USE grad_project;
 -- IGNORE 1 ROWS
 -- (stu_id, time, course_index);
 
--- For most setups, use the Python script instead:
--- cd scripts && python load_data.py
+-- For most setups, use the backend's importer instead (parallel, multi-row inserts):
+-- java -jar ../backend-springboot/target/backend-springboot-0.0.1-SNAPSHOT.jar --import-dataset=../data.csv --spring.main.web-application-type=none
+-- or POST /api/admin/imports {"file": "data.csv"} on a running backend.
+-- The original Python loader still works: cd scripts && python load_data.py
@@ -0,0 +1,21 @@
+-- V2: indexes for the hot request-path statements
+-- Applies to databases created from schema.sql before these indexes were added to it
+-- (fresh installs already have them). Run once: mysql grad_project < V2__hot_path_indexes.sql
+--
+-- Already covered, so not added here:
+--   interactions(stu_id, time)   -> prefix of uk_interaction (stu_id, time, course_index)
+--   interactions(course_index)   -> index InnoDB created for the course_index foreign key
+--   course_questions(course_id)  -> index InnoDB created for the course_id foreign key
+--
+-- QueryPlanChecker (GET /api/admin/query-plans) EXPLAINs the statements these serve.
+
+USE grad_project;
+
+-- 错题去重 (WrongQuestionService.create: WHERE user_id = ? AND question_id = ?)
+ALTER TABLE wrong_questions ADD INDEX idx_wrong_user_question (user_id, question_id);
+
+-- 错题本分页 (JOIN courses c ON w.course_name = c.name)
+ALTER TABLE courses ADD INDEX idx_courses_name (name);
+
+-- 学习计划列表 (WHERE user_id = ? ORDER BY target_date)
+ALTER TABLE study_plans ADD INDEX idx_study_plans_user_date (user_id, target_date);
@@ -0,0 +1,18 @@
+-- V3: cross-instance cache invalidation log (CacheInvalidationBus)
+-- Applies to databases created from schema.sql before the table was added to it
+-- (fresh installs already have it). Run once: mysql grad_project < V3__cache_invalidation_log.sql
+--
+-- Without this table every instance keeps its caches node-local, and an eviction on one
+-- node only reaches the others when their entries expire.
+
+USE grad_project;
+
+-- 缓存失效日志 (多实例间广播 @CacheEvict，见 CacheInvalidationBus)
+CREATE TABLE IF NOT EXISTS cache_invalidation_log (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    cache_name VARCHAR(64)  NOT NULL,
+    cache_key  VARCHAR(255) DEFAULT NULL,
+    origin     VARCHAR(64)  NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_cache_invalidation_created (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
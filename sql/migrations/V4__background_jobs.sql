@@ -0,0 +1,20 @@
+-- V4: background job status shared by all instances (JobStore)
+-- Applies to databases created from schema.sql before the table was added to it
+-- (fresh installs already have it). Run once: mysql grad_project < V4__background_jobs.sql
+--
+-- Avatar uploads and user purges record their status here, so polling
+-- /api/user/avatar/{uploadId} or /api/admin/purge-jobs/{jobId} works through any instance.
+
+USE grad_project;
+
+-- 后台任务状态 (头像处理、用户清理；任一实例都可查询，见 JobStore)
+CREATE TABLE IF NOT EXISTS background_jobs (
+    id               VARCHAR(36) PRIMARY KEY,
+    kind             VARCHAR(32) NOT NULL,
+    state            TEXT        NOT NULL,
+    cancel_requested TINYINT(1)  NOT NULL DEFAULT 0,
+    created_at       DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at       DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_background_jobs_kind_created (kind, created_at),
+    INDEX idx_background_jobs_updated (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -24,7 +24,8 @@ CREATE TABLE IF NOT EXISTS courses (
     type         VARCHAR(128) DEFAULT NULL,
     type_id      INT DEFAULT NULL,
     url          VARCHAR(512) DEFAULT NULL,
-    FOREIGN KEY (type_id) REFERENCES course_types(type_id)
+    FOREIGN KEY (type_id) REFERENCES course_types(type_id),
+    INDEX idx_courses_name (name)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- 交互记录表
@@ -68,7 +69,8 @@ CREATE TABLE IF NOT EXISTS study_plans (
     status      VARCHAR(32) DEFAULT 'pending',
     created_at  DATETIME DEFAULT CURRENT_TIMESTAMP,
     updated_at  DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    FOREIGN KEY (user_id) REFERENCES users(id)
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    INDEX idx_study_plans_user_date (user_id, target_date)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- 错题本
@@ -82,7 +84,8 @@ CREATE TABLE IF NOT EXISTS wrong_questions (
     correct_answer VARCHAR(255) DEFAULT NULL,
     error_count    INT DEFAULT 1,
     created_at     DATETIME DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (user_id) REFERENCES users(id)
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    INDEX idx_wrong_user_question (user_id, question_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- 管理员表
@@ -104,3 +107,25 @@ CREATE TABLE IF NOT EXISTS course_questions (
     explanation  TEXT,
     FOREIGN KEY (course_id) REFERENCES courses(course_index)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 缓存失效日志 (多实例间广播 @CacheEvict，见 CacheInvalidationBus)
+CREATE TABLE IF NOT EXISTS cache_invalidation_log (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    cache_name VARCHAR(64)  NOT NULL,
+    cache_key  VARCHAR(255) DEFAULT NULL,
+    origin     VARCHAR(64)  NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_cache_invalidation_created (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 后台任务状态 (头像处理、用户清理；任一实例都可查询，见 JobStore)
+CREATE TABLE IF NOT EXISTS background_jobs (
+    id               VARCHAR(36) PRIMARY KEY,
+    kind             VARCHAR(32) NOT NULL,
+    state            TEXT        NOT NULL,
+    cancel_requested TINYINT(1)  NOT NULL DEFAULT 0,
+    created_at       DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at       DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_background_jobs_kind_created (kind, created_at),
+    INDEX idx_background_jobs_updated (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;